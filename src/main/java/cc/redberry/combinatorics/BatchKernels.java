@@ -0,0 +1,46 @@
+package cc.redberry.combinatorics;
+
+/**
+ * Kernels for batch generation of tuples and compositions into flat buffers. This is the portable scalar
+ * implementation; the multi-release JAR contains a replacement of this class for Java 17+, which uses SIMD kernels
+ * from {@code jdk.incubator.vector} (when the module is enabled with {@code --add-modules jdk.incubator.vector}) and
+ * produces exactly the same results.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+final class BatchKernels {
+    private BatchKernels() {}
+
+    /**
+     * Whether the SIMD kernels are used
+     */
+    static boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * Writes {@code run} rows of the specified width starting at {@code offset}; row {@code i} is equal to {@code
+     * first} except the last element which is {@code first[width - 1] + i}.
+     */
+    static void tuplesRun(int[] first, int width, int[] out, int offset, int run) {
+        final int last = width - 1, value = first[last];
+        for (int i = 0; i < run; ++i, offset += width) {
+            System.arraycopy(first, 0, out, offset, last);
+            out[offset + last] = value + i;
+        }
+    }
+
+    /**
+     * Converts rows of extended separators [-1, s<sub>1</sub>, ..., s<sub>n-1</sub>, integer + n - 1] (each row of
+     * length {@code width + 1}) into rows of compositions of length {@code width}: part<sub>i</sub> =
+     * s<sub>i+1</sub> - s<sub>i</sub> - 1. The {@code separators} array is used as a scratch space.
+     */
+    static void separatorsToParts(int[] separators, int rows, int width, int[] out, int offset) {
+        final int length = rows * (width + 1) - 1;
+        for (int j = 0; j < length; ++j)
+            separators[j] = separators[j + 1] - separators[j] - 1;
+        for (int r = 0; r < rows; ++r)
+            System.arraycopy(separators, r * (width + 1), out, offset + r * width, width);
+    }
+}
@@ -0,0 +1,123 @@
+package cc.redberry.combinatorics;
+
+import java.util.PriorityQueue;
+
+/**
+ * Base class for ports which enumerate elements in increasing order of additive cost. Elements are represented by
+ * vectors of ranks of their components in the order of increasing cost, so that increasing any rank does not decrease
+ * the cost. Each element except the root has a unique parent obtained by decreasing one of the ranks; the best-first
+ * search from the root over this tree keeps a priority queue of the children of all emitted elements, which never
+ * contains duplicates.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+abstract class BestFirstPort implements IntCombinatorialPort {
+    private static final long serialVersionUID = 6216436931468740187L;
+    private transient PriorityQueue<Node> frontier;
+    private long sequence = 0;
+    private double cost = Double.NaN;
+    private final int length;
+    int[] element;
+
+    BestFirstPort(int length) {
+        this.length = length;
+        this.element = new int[length];
+    }
+
+    /**
+     * Node of the search tree
+     */
+    static final class Node implements Comparable<Node> {
+        final int[] ranks;
+        final double cost;
+        final long sequence;
+
+        Node(int[] ranks, double cost, long sequence) {
+            this.ranks = ranks;
+            this.cost = cost;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Node o) {
+            int c = Double.compare(cost, o.cost);
+            return c != 0 ? c : Long.compare(sequence, o.sequence);
+        }
+    }
+
+    /**
+     * Returns the root or null if there are no elements
+     */
+    abstract int[] root();
+
+    /**
+     * Adds all children of the node via {@link #push(int[])}
+     */
+    abstract void children(Node node);
+
+    /**
+     * Returns the cost of ranks
+     */
+    abstract double cost(int[] ranks);
+
+    /**
+     * Writes the element which corresponds to ranks into {@link #element}
+     */
+    abstract void write(int[] ranks);
+
+    final void push(int[] ranks) {
+        frontier.add(new Node(ranks, cost(ranks), sequence++));
+    }
+
+    @Override
+    public void reset() {
+        frontier = null;
+        cost = Double.NaN;
+        if (element == null)
+            element = new int[length];
+    }
+
+    @Override
+    public int[] getReference() {
+        return element;
+    }
+
+    /**
+     * Returns the cost of the last returned element ({@code NaN} if there is no such element)
+     *
+     * @return the cost of the last returned element
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * Returns the current number of elements in the priority queue
+     *
+     * @return the current number of elements in the priority queue
+     */
+    public int frontierSize() {
+        return frontier == null ? 0 : frontier.size();
+    }
+
+    @Override
+    public int[] take() {
+        if (frontier == null) {
+            frontier = new PriorityQueue<>();
+            sequence = 0;
+            int[] root = root();
+            if (root != null)
+                push(root);
+        }
+        Node node = frontier.poll();
+        if (node == null) {
+            cost = Double.NaN;
+            return element = null;
+        }
+        children(node);
+        cost = node.cost;
+        write(node.ranks);
+        return element;
+    }
+}
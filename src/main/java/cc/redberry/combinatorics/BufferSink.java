@@ -0,0 +1,147 @@
+package cc.redberry.combinatorics;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Sink which writes elements of a combinatorial port directly into caller-supplied byte buffers (typically direct
+ * ones), so that the filled buffer can be passed to {@code FileChannel.write}, to a socket or to native code without
+ * intermediate heap copies. Elements are written one after another without separators; each value occupies {@link
+ * ElementWidth#bytes} bytes in the byte order of the target buffer (values of narrow widths are written unsigned).
+ *
+ * <p>Each invocation of {@link #fill(ByteBuffer)} writes as many whole elements as fit into the remaining space of the
+ * buffer and advances its position; the element which did not fit is kept and written first by the next invocation.
+ * Tuples and compositions are generated in batches (see {@link IntTuples#take(int[], int)}) and copied into the buffer
+ * with bulk operations. Memory segments of newer JDKs can be filled via their {@code asByteBuffer()} views.
+ *
+ * <p>Example:
+ * <code><pre>
+ * BufferSink sink = new BufferSink(new IntTuples(10, 10, 10), ElementWidth.BYTE);
+ * ByteBuffer buffer = ByteBuffer.allocateDirect(1 &lt;&lt; 16);
+ * while (sink.fill(buffer) != 0) {
+ *     buffer.flip();
+ *     channel.write(buffer);
+ *     buffer.clear();
+ * }
+ * </pre></code>
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+public final class BufferSink {
+    /** minimal number of values for which views of the buffer are used */
+    private static final int BULK_THRESHOLD = 64;
+    private final IntCombinatorialPort port;
+    private final ElementWidth width;
+    /** length of elements if port supports batches and -1 otherwise */
+    private final int batchLength;
+    /** element which was taken from the port but not yet written */
+    private int[] pending = null;
+    private boolean exhausted = false;
+    private int[] scratch = null;
+
+    /**
+     * Creates sink of elements of the specified port
+     *
+     * @param port  port
+     * @param width width of values in the output
+     */
+    public BufferSink(IntCombinatorialPort port, ElementWidth width) {
+        this.port = port;
+        this.width = width;
+        if (port instanceof IntTuples)
+            this.batchLength = ((IntTuples) port).length();
+        else if (port instanceof IntCompositions)
+            this.batchLength = ((IntCompositions) port).length();
+        else
+            this.batchLength = -1;
+    }
+
+    /**
+     * Creates sink of elements of the specified iterator
+     *
+     * @param iterator iterator
+     * @param width    width of values in the output
+     */
+    public BufferSink(CombinatorialIterator<int[]> iterator, ElementWidth width) {
+        this(new IntCartesianProduct.IteratorPort(iterator), width);
+    }
+
+    /**
+     * Returns width of values in the output
+     */
+    public ElementWidth getElementWidth() {
+        return width;
+    }
+
+    /**
+     * Returns whether there are elements which were not yet written
+     */
+    public boolean hasRemaining() {
+        return peek() != null;
+    }
+
+    private int[] peek() {
+        if (pending == null && !exhausted && (pending = port.take()) == null)
+            exhausted = true;
+        return pending;
+    }
+
+    /**
+     * Writes as many whole elements as fit into the remaining space of the buffer starting at its current position
+     * and advances the position. Values are written in the byte order of the buffer.
+     *
+     * @param buffer target buffer
+     * @return number of written elements (zero if there are no more elements or the next element does not fit)
+     * @throws IllegalArgumentException if some value does not fit into the element width
+     */
+    public int fill(ByteBuffer buffer) {
+        int written = 0;
+        int[] element;
+        while ((element = peek()) != null) {
+            if (buffer.remaining() < (long) element.length * width.bytes)
+                return written;
+            put(buffer, element, 0, element.length);
+            pending = null;
+            ++written;
+            if (batchLength > 0)
+                return written + fillBatch(buffer);
+        }
+        return written;
+    }
+
+    private int fillBatch(ByteBuffer buffer) {
+        int rows = buffer.remaining() / (batchLength * width.bytes);
+        if (rows == 0)
+            return 0;
+        if (scratch == null || scratch.length < rows * batchLength)
+            scratch = new int[rows * batchLength];
+        int taken = port instanceof IntTuples
+                ? ((IntTuples) port).take(scratch, rows)
+                : ((IntCompositions) port).take(scratch, rows);
+        if (taken < rows)
+            exhausted = true;
+        put(buffer, scratch, 0, taken * batchLength);
+        return taken;
+    }
+
+    private void put(ByteBuffer buffer, int[] values, int from, int length) {
+        final int to = from + length;
+        final long bound = width.bound();
+        for (int i = from; i < to; ++i)
+            if (values[i] < 0 || values[i] >= bound)
+                throw new IllegalArgumentException("Value " + values[i] + " does not fit into " + width + ".");
+        if (width == ElementWidth.BYTE || length < BULK_THRESHOLD)
+            for (int i = from; i < to; ++i)
+                width.put(buffer, values[i]);
+        else if (width == ElementWidth.SHORT) {
+            ShortBuffer view = buffer.asShortBuffer();
+            for (int i = from; i < to; ++i)
+                view.put((short) values[i]);
+            buffer.position(buffer.position() + 2 * length);
+        } else {
+            buffer.asIntBuffer().put(values, from, length);
+            buffer.position(buffer.position() + 4 * length);
+        }
+    }
+}
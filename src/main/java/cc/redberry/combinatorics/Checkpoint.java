@@ -0,0 +1,172 @@
+package cc.redberry.combinatorics;
+
+import java.util.Arrays;
+
+/**
+ * Encoding of compact checkpoint tokens of combinatorial iterators. Each token starts with the format version and the
+ * kind of iterator, followed by the iterator state written as a sequence of zig-zag varints.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+final class Checkpoint {
+    private Checkpoint() {}
+
+    /** Current format version */
+    static final byte VERSION = 1;
+
+    static final byte
+            COMBINATIONS = 1,
+            PERMUTATIONS = 2,
+            COMBINATIONS_WITH_PERMUTATIONS = 3,
+            TUPLES = 4,
+            COMPOSITIONS = 5,
+            DISTINCT_TUPLES = 6,
+            PERMUTATIONS_WITH_PRIORITY = 7,
+            PORT_ITERATOR = 8;
+
+    /**
+     * Returns the kind of iterator encoded in the token
+     *
+     * @throws IllegalArgumentException if token is malformed or has unsupported version
+     */
+    static byte kind(byte[] token) {
+        if (token == null || token.length < 2)
+            throw new IllegalArgumentException("Malformed checkpoint token.");
+        if (token[0] != VERSION)
+            throw new IllegalArgumentException("Unsupported checkpoint version: " + token[0]);
+        return token[1];
+    }
+
+    static final class Writer {
+        private byte[] buffer = new byte[32];
+        private int size = 0;
+
+        Writer(byte kind) {
+            buffer[size++] = VERSION;
+            buffer[size++] = kind;
+        }
+
+        Writer putInt(int value) {
+            ensureCapacity(5);
+            // zig-zag encoding, so small negative numbers are also short
+            int v = (value << 1) ^ (value >> 31);
+            while ((v & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buffer[size++] = (byte) v;
+            return this;
+        }
+
+        Writer putBoolean(boolean value) {
+            return putByte(value ? 1 : 0);
+        }
+
+        Writer putByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+            return this;
+        }
+
+        Writer putInts(int[] values) {
+            putInt(values.length);
+            for (int value : values)
+                putInt(value);
+            return this;
+        }
+
+        Writer putToken(byte[] token) {
+            putInt(token.length);
+            ensureCapacity(token.length);
+            System.arraycopy(token, 0, buffer, size, token.length);
+            size += token.length;
+            return this;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length)
+                buffer = Arrays.copyOf(buffer, Math.max(size + extra, buffer.length * 2));
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    static final class Reader {
+        private final byte[] token;
+        private int position = 2;
+
+        Reader(byte[] token, byte expectedKind) {
+            if (kind(token) != expectedKind)
+                throw new IllegalArgumentException("Checkpoint token is of a different kind: " + token[1]);
+            this.token = token;
+        }
+
+        int getInt() {
+            int v = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (position == token.length || shift > 28)
+                    throw new IllegalArgumentException("Malformed checkpoint token.");
+                byte b = token[position++];
+                v |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    break;
+            }
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        /**
+         * Reads non-negative integer
+         */
+        int getSize() {
+            int size = getInt();
+            if (size < 0 || size > token.length - position)
+                throw new IllegalArgumentException("Malformed checkpoint token.");
+            return size;
+        }
+
+        boolean getBoolean() {
+            return getByte() != 0;
+        }
+
+        int getByte() {
+            if (position == token.length)
+                throw new IllegalArgumentException("Malformed checkpoint token.");
+            return token[position++];
+        }
+
+        int[] getInts() {
+            int[] values = new int[getSize()];
+            for (int i = 0; i < values.length; ++i)
+                values[i] = getInt();
+            return values;
+        }
+
+        /**
+         * Reads array of the specified length
+         */
+        int[] getInts(int expectedLength) {
+            int[] values = getInts();
+            if (values.length != expectedLength)
+                throw new IllegalArgumentException("Malformed checkpoint token.");
+            return values;
+        }
+
+        byte[] getToken() {
+            int length = getSize();
+            byte[] r = Arrays.copyOfRange(token, position, position + length);
+            position += length;
+            return r;
+        }
+
+        /**
+         * Checks that the whole token was consumed
+         */
+        void end() {
+            if (position != token.length)
+                throw new IllegalArgumentException("Malformed checkpoint token.");
+        }
+    }
+}
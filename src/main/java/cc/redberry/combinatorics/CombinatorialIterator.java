@@ -28,6 +28,17 @@ public interface CombinatorialIterator<T>
      */
     T current();
 
+    /**
+     * Returns a compact versioned token with the state of this iterator, such that an iterator restored from this token
+     * via {@link Combinatorics#resume(byte[])} will continue the iteration exactly after the last returned element.
+     *
+     * @return checkpoint token
+     * @throws UnsupportedOperationException if iterator does not support checkpoints
+     */
+    default byte[] checkpoint() {
+        throw new UnsupportedOperationException("Checkpoints are not supported.");
+    }
+
     @Override
     default Iterator<T> iterator() {
         return this;
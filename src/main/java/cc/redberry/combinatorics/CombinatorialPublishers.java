@@ -0,0 +1,278 @@
+package cc.redberry.combinatorics;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Reactive publishers of combinatorial elements with backpressure. Each subscriber gets its own iterator from the
+ * source, and elements are produced on the specified executor strictly on demand: publisher never generates more
+ * elements than it was requested via {@link Subscription#request(long)}, and it keeps no references to the elements
+ * after they were passed to {@link Subscriber#onNext(Object)}.
+ *
+ * <p>Interfaces {@link Publisher}, {@link Subscriber} and {@link Subscription} have exactly the same methods and
+ * contracts as the corresponding interfaces of {@code java.util.concurrent.Flow} (and of Reactive Streams), so that
+ * they can be adapted to {@code Flow} with one-line wrappers on Java 9+.
+ *
+ * <p>Example:
+ * <code><pre>
+ * List&lt;Publisher&lt;int[]&gt;&gt; parts = CombinatorialPublishers.shards(IntCombinatorialSpace.permutations(10), 4, executor);
+ * for (Publisher&lt;int[]&gt; part : parts)
+ *     part.subscribe(new MySubscriber());
+ * </pre></code>
+ *
+ * @author Stanislav Poslavsky
+ * @see IntCombinatorialSpace
+ * @since 2.2
+ */
+public final class CombinatorialPublishers {
+    private CombinatorialPublishers() {}
+
+    /**
+     * Producer of elements which are received by subscribers (mirrors {@code java.util.concurrent.Flow.Publisher})
+     *
+     * @param <T> type of elements
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+        /**
+         * Adds the subscriber; the subscriber will receive {@link Subscriber#onSubscribe(Subscription)} and then
+         * elements on demand
+         *
+         * @param subscriber subscriber
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receiver of elements (mirrors {@code java.util.concurrent.Flow.Subscriber})
+     *
+     * @param <T> type of elements
+     */
+    public interface Subscriber<T> {
+        /**
+         * Invoked before any other method for the given subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Invoked with the next element
+         */
+        void onNext(T item);
+
+        /**
+         * Invoked on unrecoverable error; no other methods will be invoked after that
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Invoked when all elements were produced; no other methods will be invoked after that
+         */
+        void onComplete();
+    }
+
+    /**
+     * Link between publisher and subscriber (mirrors {@code java.util.concurrent.Flow.Subscription})
+     */
+    public interface Subscription {
+        /**
+         * Adds {@code n} to the number of elements which subscriber is ready to receive
+         *
+         * @param n number of elements (if not positive, the subscriber will receive {@code onError} with {@link
+         *          IllegalArgumentException})
+         */
+        void request(long n);
+
+        /**
+         * Stops producing elements; some elements requested before may still be delivered
+         */
+        void cancel();
+    }
+
+    /**
+     * Returns publisher of elements, each subscriber of which will receive all elements of a new iterator produced by
+     * the specified source. Elements are copied before they are passed to subscriber.
+     *
+     * @param source   source of iterators
+     * @param executor executor used to produce elements
+     * @return publisher of elements
+     */
+    public static Publisher<int[]> publisher(Supplier<? extends Iterator<int[]>> source, Executor executor) {
+        return subscriber -> new ElementSubscription(subscriber, source.get(), executor).start();
+    }
+
+    /**
+     * Returns publisher of elements, each subscriber of which will receive all elements of a new iterator produced by
+     * the specified source. Elements are produced in the common fork-join pool.
+     *
+     * @param source source of iterators
+     * @return publisher of elements
+     */
+    public static Publisher<int[]> publisher(Supplier<? extends Iterator<int[]>> source) {
+        return publisher(source, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns publisher of batches of elements, each subscriber of which will receive all elements of a new iterator
+     * produced by the specified source. Each batch (one requested item) contains {@code batchSize} elements except
+     * the last batch which may be shorter. Each batch is a newly allocated array.
+     *
+     * @param source    source of iterators
+     * @param batchSize number of elements in batch
+     * @param executor  executor used to produce elements
+     * @return publisher of batches
+     * @throws IllegalArgumentException if batch size is not positive
+     */
+    public static Publisher<int[][]> batchPublisher(Supplier<? extends Iterator<int[]>> source,
+                                                    int batchSize, Executor executor) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size should be positive.");
+        return subscriber -> new BatchSubscription(subscriber, source.get(), batchSize, executor).start();
+    }
+
+    /**
+     * Splits the space into {@code nShards} contiguous ranges of ranks (see {@link IntCombinatorialSpace#shard(int,
+     * int)}) and returns publisher for each range. Publishers may be subscribed and run concurrently.
+     *
+     * @param space    space
+     * @param nShards  number of ranges
+     * @param executor executor used to produce elements
+     * @return publishers of ranges
+     */
+    public static List<Publisher<int[]>> shards(IntCombinatorialSpace space, int nShards, Executor executor) {
+        List<Publisher<int[]>> r = new ArrayList<>(nShards);
+        for (int i = 0; i < nShards; ++i) {
+            final int index = i;
+            r.add(publisher(() -> space.shard(index, nShards), executor));
+        }
+        return r;
+    }
+
+    private abstract static class AbstractSubscription<T> implements Subscription, Runnable {
+        final Subscriber<? super T> subscriber;
+        final Iterator<int[]> iterator;
+        private final Executor executor;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile Throwable invalidRequest = null;
+        private boolean done = false;
+
+        AbstractSubscription(Subscriber<? super T> subscriber, Iterator<int[]> iterator, Executor executor) {
+            this.subscriber = subscriber;
+            this.iterator = iterator;
+            this.executor = executor;
+        }
+
+        abstract T nextItem();
+
+        final void start() {
+            subscriber.onSubscribe(this);
+            // completes empty sources without demand
+            schedule();
+        }
+
+        @Override
+        public final void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+                schedule();
+                return;
+            }
+            long current, next;
+            do {
+                current = demand.get();
+                if (current == Long.MAX_VALUE)
+                    return;
+                next = current + n;
+                if (next < 0)
+                    next = Long.MAX_VALUE;
+            } while (!demand.compareAndSet(current, next));
+            schedule();
+        }
+
+        @Override
+        public final void cancel() {
+            cancelled = true;
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0)
+                executor.execute(this);
+        }
+
+        @Override
+        public final void run() {
+            int missed = 1;
+            do {
+                if (done || cancelled)
+                    return;
+                if (invalidRequest != null) {
+                    done = true;
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                long requested = demand.get(), emitted = 0;
+                try {
+                    while (emitted != requested && !cancelled && iterator.hasNext()) {
+                        subscriber.onNext(nextItem());
+                        ++emitted;
+                    }
+                    if (!cancelled && !iterator.hasNext()) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                } catch (Throwable e) {
+                    done = true;
+                    cancelled = true;
+                    subscriber.onError(e);
+                    return;
+                }
+                if (emitted != 0 && requested != Long.MAX_VALUE)
+                    demand.addAndGet(-emitted);
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+
+    private static final class ElementSubscription extends AbstractSubscription<int[]> {
+        ElementSubscription(Subscriber<? super int[]> subscriber, Iterator<int[]> iterator, Executor executor) {
+            super(subscriber, iterator, executor);
+        }
+
+        @Override
+        int[] nextItem() {
+            return iterator.next().clone();
+        }
+    }
+
+    private static final class BatchSubscription extends AbstractSubscription<int[][]> {
+        private final int batchSize;
+
+        BatchSubscription(Subscriber<? super int[][]> subscriber, Iterator<int[]> iterator,
+                          int batchSize, Executor executor) {
+            super(subscriber, iterator, executor);
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        int[][] nextItem() {
+            int[][] batch = new int[batchSize][];
+            int size = 0;
+            while (size < batchSize && iterator.hasNext())
+                batch[size++] = iterator.next().clone();
+            if (size < batchSize) {
+                int[][] r = new int[size][];
+                System.arraycopy(batch, 0, r, 0, size);
+                return r;
+            }
+            return batch;
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package cc.redberry.combinatorics;
 
 import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * This class provides factory and utility methods for combinatorics infrastructure.
@@ -15,7 +21,10 @@ public final class Combinatorics {
     private Combinatorics() {}
 
     /**
-     * Iterator over all k-combinations from {code n}.
+     * Iterator over all k-combinations from {code n}. If {@link IntTableCache} is enabled, the returned iterator may read
+     * elements from the shared precomputed table. The returned iterator never uses hand-unrolled loop nests, since a loop
+     * nest cannot be suspended between elements; use {@link #forEachCombination(int, int, Consumer)} to enumerate with
+     * them.
      *
      * @param n combination length
      * @param k the total
@@ -23,11 +32,15 @@ public final class Combinatorics {
     public static CombinatorialIterator<int[]> combinations(int n, int k) {
         if (n < k)
             throw new IllegalArgumentException();
+        CombinatorialIterator<int[]> cached = IntTableCache.combinations(n, k);
+        if (cached != null)
+            return cached;
         return new IntCombinations(n, k);
     }
 
     /**
-     * Iterator over all k-combinations with permutations from {code n}.
+     * Iterator over all k-combinations with permutations from {code n}. The returned iterator never uses hand-unrolled
+     * loop nests; use {@link #forEachCombinationWithPermutations(int, int, Consumer)} to enumerate with them.
      *
      * @param n combination length
      * @param k the total
@@ -36,37 +49,88 @@ public final class Combinatorics {
         if (n < k)
             throw new IllegalArgumentException();
         if (n == k)
-            return new IntPermutations(n);
+            return permutations(n);
         else
             return new IntCombinationsWithPermutations(n, k);
     }
 
     /**
-     * Iterator over all permutations of the specified length
+     * Passes all k-combinations from {@code n} to the consumer (in the same order as {@link #combinations(int, int)}).
+     * For {@code 2 <= k <= 6} hand-unrolled loop nests are used, which are considerably faster than the iterator; this
+     * method is the only way to use them, since the iterator returned by {@link #combinations(int, int)} cannot.
+     *
+     * <p><b>Note:</b> the same array is passed to the consumer on each invocation.
+     *
+     * @param n        the total
+     * @param k        combination length
+     * @param consumer consumer
+     */
+    public static void forEachCombination(int n, int k, Consumer<int[]> consumer) {
+        if (n < k)
+            throw new IllegalArgumentException();
+        if (UnrolledCombinations.combinations(n, k, consumer))
+            return;
+        IntCombinations it = new IntCombinations(n, k);
+        while (it.advance())
+            consumer.accept(it.current());
+    }
+
+    /**
+     * Passes all k-combinations with permutations from {@code n} to the consumer (in the same order as {@link
+     * #combinationsWithPermutations(int, int)}). For {@code 2 <= k <= 6} hand-unrolled loop nests are used, which are
+     * considerably faster than the iterator; this method is the only way to use them, since the iterator returned by
+     * {@link #combinationsWithPermutations(int, int)} cannot.
+     *
+     * <p><b>Note:</b> the same array is passed to the consumer on each invocation.
+     *
+     * @param n        the total
+     * @param k        combination length
+     * @param consumer consumer
+     */
+    public static void forEachCombinationWithPermutations(int n, int k, Consumer<int[]> consumer) {
+        if (n < k)
+            throw new IllegalArgumentException();
+        if (UnrolledCombinations.combinationsWithPermutations(n, k, consumer))
+            return;
+        IntCombinationsWithPermutations it = new IntCombinationsWithPermutations(n, k);
+        while (it.advance())
+            consumer.accept(it.current());
+    }
+
+    /**
+     * Iterator over all permutations of the specified length. If {@link IntTableCache} is enabled, the returned iterator
+     * may read elements from the shared precomputed table.
      */
     public static CombinatorialIterator<int[]> permutations(int n) {
+        CombinatorialIterator<int[]> cached = IntTableCache.permutations(n);
+        if (cached != null)
+            return cached;
         return new IntPermutations(n);
     }
 
     /**
      * Iterator over all compositions of {@code integer} into {@code nPartitions}
      *
+     * <p><b>Note:</b> method {@code next()} returns a new array on each invocation.
+     *
      * @param integer     the sum
      * @param nPartitions number of partitions
      * @see IntCompositions
      */
     public static CombinatorialIterator<int[]> compositions(int integer, int nPartitions) {
-        return new IntCombinatorialPort.Iterator(new IntCompositions(integer, nPartitions));
+        return IntCombinatorialPort.Iterator.copying(new IntCompositions(integer, nPartitions));
     }
 
     /**
      * Iterator over all distinct N-tuples, which can be chosen from {@code N} specified sets of integers.
      *
+     * <p><b>Note:</b> method {@code next()} returns a new array on each invocation.
+     *
      * @param sets array of sets of integers
      * @see IntDistinctTuples
      */
     public static CombinatorialIterator<int[]> distinctTuples(int[]... sets) {
-        return new IntCombinatorialPort.Iterator(new IntDistinctTuples(deepClone(sets)));
+        return IntCombinatorialPort.Iterator.copying(new IntDistinctTuples(deepClone(sets)));
     }
 
     private static int[][] deepClone(int[][] sets) {
@@ -80,11 +144,200 @@ public final class Combinatorics {
      * Iterator over all N-tuples (not necessary to be distinct), which can be chosen from {@code N} arrays of integers
      * of the form <i>array</i><sub>i</sub> = [0, 1, 2, ..., K<sub>i</sub>]
      *
+     * <p><b>Note:</b> method {@code next()} returns a new array on each invocation.
+     *
      * @param bounds the bounds on the tuple elements
      * @see IntDistinctTuples
      */
     public static CombinatorialIterator<int[]> tuples(int... bounds) {
-        return new IntCombinatorialPort.Iterator(new IntTuples(bounds));
+        return IntCombinatorialPort.Iterator.copying(new IntTuples(bounds));
+    }
+
+    /**
+     * Iterator over all {@code arity}-ary necklaces of specified length in lexicographic order
+     *
+     * @param length length of words
+     * @param arity  number of letters
+     * @see IntNecklaces
+     */
+    public static CombinatorialIterator<int[]> necklaces(int length, int arity) {
+        return new IntCombinatorialPort.Iterator(new IntNecklaces(length, arity, IntNecklaces.Kind.NECKLACES));
+    }
+
+    /**
+     * Iterator over all {@code arity}-ary Lyndon words of specified length in lexicographic order
+     *
+     * @param length length of words
+     * @param arity  number of letters
+     * @see IntNecklaces
+     */
+    public static CombinatorialIterator<int[]> lyndonWords(int length, int arity) {
+        return new IntCombinatorialPort.Iterator(new IntNecklaces(length, arity, IntNecklaces.Kind.LYNDON_WORDS));
+    }
+
+    /**
+     * Iterator over all {@code arity}-ary bracelets of specified length in lexicographic order
+     *
+     * @param length length of words
+     * @param arity  number of letters
+     * @see IntNecklaces
+     */
+    public static CombinatorialIterator<int[]> bracelets(int length, int arity) {
+        return new IntCombinatorialPort.Iterator(new IntNecklaces(length, arity, IntNecklaces.Kind.BRACELETS));
+    }
+
+    /**
+     * Iterator over all N-tuples (the same as {@link #tuples(int...)}), which satisfy linear constraint {@code lower <=
+     * sum_i weights[i] * tuple[i] <= upper}
+     *
+     * @param bounds  the bounds on the tuple elements
+     * @param weights weights
+     * @param lower   lower bound of weighted sum (inclusive)
+     * @param upper   upper bound of weighted sum (inclusive)
+     * @see IntLinearTuples
+     */
+    public static CombinatorialIterator<int[]> linearTuples(int[] bounds, int[] weights, long lower, long upper) {
+        return new IntCombinatorialPort.Iterator(new IntLinearTuples(bounds, weights, lower, upper));
+    }
+
+    /**
+     * Iterator over all k-combinations of {@code weights.length} elements in the order of increasing sum of weights
+     *
+     * @param weights weights of elements
+     * @param k       length of combinations
+     * @see IntCombinationsByCost
+     */
+    public static CombinatorialIterator<int[]> combinationsByCost(double[] weights, int k) {
+        return new IntCombinatorialPort.Iterator(new IntCombinationsByCost(weights, k));
+    }
+
+    /**
+     * Iterator over all N-tuples in the order of increasing cost {@code costs[0][x_0] + ... + costs[N-1][x_(N-1)]}
+     *
+     * @param costs costs of values at each position
+     * @see IntTuplesByCost
+     */
+    public static CombinatorialIterator<int[]> tuplesByCost(double[]... costs) {
+        return new IntCombinatorialPort.Iterator(new IntTuplesByCost(costs));
+    }
+
+    /**
+     * Iterator over all distinct k-submultisets of the multiset, in which value {@code i} occurs {@code
+     * multiplicities[i]} times
+     *
+     * @param multiplicities multiplicities of values
+     * @param k              size of submultisets
+     * @see IntMultisetCombinations
+     */
+    public static CombinatorialIterator<int[]> multisetCombinations(int[] multiplicities, int k) {
+        return new IntCombinatorialPort.Iterator(new IntMultisetCombinations(multiplicities, k));
+    }
+
+    /**
+     * Iterator over all perfect matchings of {@code 2 * nPairs} points in the form of flat arrays of pairs
+     *
+     * @param nPairs number of pairs
+     * @see IntPerfectMatchings
+     */
+    public static CombinatorialIterator<int[]> perfectMatchings(int nPairs) {
+        return new IntCombinatorialPort.Iterator(new IntPerfectMatchings(nPairs));
+    }
+
+    /**
+     * Iterator over all permutations with the specified cycle type (e.g. {@code permutationsByCycleType(2, 2, 2)} gives
+     * all fixed-point-free involutions of 6 points)
+     *
+     * @param cycleType lengths of cycles (in any order, including fixed points)
+     * @see IntPermutationsByCycleType
+     */
+    public static CombinatorialIterator<int[]> permutationsByCycleType(int... cycleType) {
+        return new IntCombinatorialPort.Iterator(new IntPermutationsByCycleType(cycleType));
+    }
+
+    /**
+     * Iterator over the Cartesian product of the specified iterators: each element is the concatenation of elements of
+     * all factors. Factors are reset lazily when exhausted, so no iterators are allocated during the iteration.
+     *
+     * @param factors factors
+     * @see IntCartesianProduct
+     */
+    @SafeVarargs
+    public static CombinatorialIterator<int[]> product(CombinatorialIterator<int[]>... factors) {
+        return new IntCombinatorialPort.Iterator(IntCartesianProduct.of(factors));
+    }
+
+    /**
+     * Searches in parallel (in the common fork-join pool) for any element of the space satisfying the predicate; all
+     * workers are cancelled as soon as some matching element is found. See {@link ParallelSearch} for additional
+     * options (time and element limits, lexicographically first mode, custom executor).
+     *
+     * @param space     space
+     * @param predicate predicate (should be thread-safe)
+     * @return search result
+     * @see ParallelSearch
+     */
+    public static ParallelSearch.Result search(IntCombinatorialSpace space, Predicate<int[]> predicate) {
+        return new ParallelSearch().search(space, predicate);
+    }
+
+    /**
+     * Searches in parallel (in the common fork-join pool) for the lexicographically first element of the space
+     * satisfying the predicate; when a matching element is found, only ranges above it are cancelled.
+     *
+     * @param space     space
+     * @param predicate predicate (should be thread-safe)
+     * @return search result
+     * @see ParallelSearch
+     */
+    public static ParallelSearch.Result searchFirst(IntCombinatorialSpace space, Predicate<int[]> predicate) {
+        return new ParallelSearch().lexicographicallyFirst().search(space, predicate);
+    }
+
+    /**
+     * Restores iterator from the checkpoint token obtained via {@link CombinatorialIterator#checkpoint()} or {@link
+     * IntCombinatorialPort#checkpoint()}. The restored iterator continues the iteration exactly after the last element
+     * returned before the checkpoint.
+     *
+     * @param token checkpoint token
+     * @return restored iterator
+     * @throws IllegalArgumentException if token is malformed
+     */
+    public static CombinatorialIterator<int[]> resume(byte[] token) {
+        switch (Checkpoint.kind(token)) {
+            case Checkpoint.COMBINATIONS:
+                return IntCombinations.resume(token);
+            case Checkpoint.PERMUTATIONS:
+                return IntPermutations.resume(token);
+            case Checkpoint.COMBINATIONS_WITH_PERMUTATIONS:
+                return IntCombinationsWithPermutations.resume(token);
+            case Checkpoint.PORT_ITERATOR:
+                return IntCombinatorialPort.Iterator.resume(token);
+            default:
+                return new IntCombinatorialPort.Iterator(resumePort(token));
+        }
+    }
+
+    /**
+     * Restores port from the checkpoint token obtained via {@link IntCombinatorialPort#checkpoint()}. The restored port
+     * continues the iteration exactly after the last element taken before the checkpoint.
+     *
+     * @param token checkpoint token
+     * @return restored port
+     * @throws IllegalArgumentException if token is malformed or is not a token of a port
+     */
+    public static IntCombinatorialPort resumePort(byte[] token) {
+        switch (Checkpoint.kind(token)) {
+            case Checkpoint.TUPLES:
+                return IntTuples.resume(token);
+            case Checkpoint.COMPOSITIONS:
+                return IntCompositions.resume(token);
+            case Checkpoint.DISTINCT_TUPLES:
+                return IntDistinctTuples.resume(token);
+            case Checkpoint.PERMUTATIONS_WITH_PRIORITY:
+                return IntPermutationsWithPriority.resume(token);
+            default:
+                throw new IllegalArgumentException("Not a checkpoint of a port: " + token[1]);
+        }
     }
 
     static final Comparator<int[]> arrayComparator = (o1, o2) -> {
@@ -178,6 +431,32 @@ public final class Combinatorics {
         return new TIterator<>(input, new GenericFactory<>(input), combinationsWithPermutations(input.length, k));
     }
 
+    /**
+     * Iterator over all distinct k-combinations from the specified array, which may contain equal elements (in the sense
+     * of {@code equals}/{@code hashCode}): each combination of values is produced only once. Elements of combinations
+     * appear in the order of their first occurrence in the input.
+     *
+     * @param input elements (possibly repeated)
+     * @param k     combination length
+     * @see IntMultisetCombinations
+     */
+    public static <T> CombinatorialIterator<T[]> multisetCombinations(final T[] input, int k) {
+        Map<T, Integer> indices = new LinkedHashMap<>();
+        List<Integer> multiplicities = new ArrayList<>();
+        for (T el : input) {
+            Integer index = indices.get(el);
+            if (index == null) {
+                indices.put(el, multiplicities.size());
+                multiplicities.add(1);
+            } else
+                multiplicities.set(index, multiplicities.get(index) + 1);
+        }
+        T[] distinct = new GenericFactory<>(input).create(indices.size());
+        indices.keySet().toArray(distinct);
+        return new TIterator<>(distinct, new GenericFactory<>(input),
+                multisetCombinations(multiplicities.stream().mapToInt(Integer::intValue).toArray(), k));
+    }
+
     private static <T> T[] map(T[][] arrays, int[] indices, ArrayFactory<T> factory) {
         T[] r = factory.create(arrays.length);
         for (int i = 0; i < arrays.length; i++)
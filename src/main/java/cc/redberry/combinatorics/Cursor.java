@@ -0,0 +1,39 @@
+package cc.redberry.combinatorics;
+
+/**
+ * Single-call cursor over combinatorial elements: {@link #advance()} moves to the next element and reports whether it
+ * exists, and {@link #current()} returns it. Unlike {@link java.util.Iterator} the cursor needs no separate
+ * {@code hasNext()} check, and all generators implement it with amortized constant-time detection of the end of
+ * iteration.
+ *
+ * <p>Example:
+ * <code><pre>
+ * Cursor cursor = new IntCombinations(5, 3);
+ * while (cursor.advance())
+ *     System.out.println(Arrays.toString(cursor.current()));
+ * </pre></code>
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+public interface Cursor {
+    /**
+     * Moves to the next element.
+     *
+     * @return {@code true} if the cursor moved to the next element and {@code false} if there are no more elements (in
+     * this case the cursor remains at the last element)
+     */
+    boolean advance();
+
+    /**
+     * Returns the reference to the current element (the same reference may be returned after each advance)
+     *
+     * @return the reference to the current element
+     */
+    int[] current();
+
+    /**
+     * Resets the cursor to the position before the first element
+     */
+    void reset();
+}
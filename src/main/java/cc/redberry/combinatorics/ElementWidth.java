@@ -0,0 +1,95 @@
+package cc.redberry.combinatorics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Width of a packed element in a binary representation of combinatorial output. Elements of width {@link #BYTE} and
+ * {@link #SHORT} are treated as unsigned.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+public enum ElementWidth {
+    /** one byte per element, values in [0, 256) */
+    BYTE(1),
+    /** two bytes per element, values in [0, 65536) */
+    SHORT(2),
+    /** four bytes per element, non-negative int values */
+    INT(4);
+
+    /** number of bytes per element */
+    public final int bytes;
+
+    ElementWidth(int bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns the smallest width which can hold all numbers from {@code [0, bound)}
+     *
+     * @param bound exclusive upper bound of elements
+     * @return the smallest width which can hold all numbers from {@code [0, bound)}
+     */
+    public static ElementWidth forBound(int bound) {
+        if (bound <= (1 << 8))
+            return BYTE;
+        if (bound <= (1 << 16))
+            return SHORT;
+        return INT;
+    }
+
+    /**
+     * Returns the exclusive upper bound of values representable with this width
+     *
+     * @return exclusive upper bound of values representable with this width
+     */
+    public long bound() {
+        return this == INT ? Integer.MAX_VALUE + 1L : 1L << (8 * bytes);
+    }
+
+    /**
+     * Writes value at the specified absolute position of buffer
+     */
+    public void put(ByteBuffer buffer, int position, int value) {
+        switch (this) {
+            case BYTE:
+                buffer.put(position, (byte) value);
+                return;
+            case SHORT:
+                buffer.putShort(position, (short) value);
+                return;
+            default:
+                buffer.putInt(position, value);
+        }
+    }
+
+    /**
+     * Writes value at the current position of buffer
+     */
+    public void put(ByteBuffer buffer, int value) {
+        switch (this) {
+            case BYTE:
+                buffer.put((byte) value);
+                return;
+            case SHORT:
+                buffer.putShort((short) value);
+                return;
+            default:
+                buffer.putInt(value);
+        }
+    }
+
+    /**
+     * Reads value at the specified absolute position of buffer
+     */
+    public int get(ByteBuffer buffer, int position) {
+        switch (this) {
+            case BYTE:
+                return buffer.get(position) & 0xFF;
+            case SHORT:
+                return buffer.getShort(position) & 0xFFFF;
+            default:
+                return buffer.getInt(position);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package cc.redberry.combinatorics;
+
+/**
+ * Management interface with progress metrics of a running enumeration.
+ *
+ * @author Stanislav Poslavsky
+ * @see InstrumentedIterator
+ * @since 2.2
+ */
+public interface EnumerationMetricsMXBean {
+    /**
+     * Returns the name of the enumeration
+     */
+    String getName();
+
+    /**
+     * Returns the number of emitted elements (updated periodically, so it may lag behind the actual value by at most
+     * the publish interval)
+     */
+    long getEmitted();
+
+    /**
+     * Returns the total number of elements or -1 if unknown
+     */
+    long getTotal();
+
+    /**
+     * Returns the fraction of emitted elements (from 0 to 1) or {@code NaN} if the total number of elements is unknown
+     */
+    double getFractionComplete();
+
+    /**
+     * Returns the average number of emitted elements per second
+     */
+    double getElementsPerSecond();
+
+    /**
+     * Returns the time elapsed since the start of enumeration in seconds
+     */
+    double getElapsedSeconds();
+
+    /**
+     * Returns the estimated time remaining in seconds or {@code NaN} if it is unknown
+     */
+    double getEstimatedSecondsRemaining();
+
+    /**
+     * Returns whether the enumeration is finished
+     */
+    boolean isFinished();
+}
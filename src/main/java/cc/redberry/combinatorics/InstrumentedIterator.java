@@ -0,0 +1,258 @@
+package cc.redberry.combinatorics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+
+/**
+ * Wrapper of combinatorial iterator which collects progress metrics: number of emitted elements, throughput, fraction
+ * complete and ETA. Metrics are available via {@link EnumerationMetricsMXBean} methods (also via JMX, see {@link
+ * #register()}) and are pushed to the optional {@link ProgressListener}.
+ *
+ * <p>Implementation note: the iterating thread increments a plain (non-volatile) counter, and only each
+ * {@code publishInterval}-th element (a power of two) the counter is published to a volatile field and the listener is
+ * notified, so the overhead per element is a single increment and mask test. Iterators without instrumentation are not
+ * affected at all.
+ *
+ * <p>Example:
+ * <code><pre>
+ * InstrumentedIterator&lt;int[]&gt; it = InstrumentedIterator.of("job", IntCombinatorialSpace.combinations(60, 7));
+ * it.register();
+ * try {
+ *     for (int[] c : it)
+ *         process(c);
+ * } finally {
+ *     it.unregister();
+ * }
+ * </pre></code>
+ *
+ * @param <T> type of elements
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+public final class InstrumentedIterator<T> implements CombinatorialIterator<T>, EnumerationMetricsMXBean {
+    private static final long serialVersionUID = -2751364937542036807L;
+    /** default publish interval */
+    public static final int DEFAULT_PUBLISH_INTERVAL = 1 << 16;
+
+    /**
+     * Listener of enumeration progress. Invoked in the iterating thread each time metrics are published and once when
+     * the enumeration is finished.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Invoked with the current metrics
+         *
+         * @param metrics metrics
+         */
+        void onProgress(EnumerationMetricsMXBean metrics);
+    }
+
+    private final String name;
+    private final CombinatorialIterator<T> inner;
+    private final long total;
+    private final long mask;
+    private final transient ProgressListener listener;
+    private transient ObjectName objectName;
+    private long emitted = 0;
+    private volatile long published = 0;
+    private volatile long startNanos = -1;
+    private volatile long finishNanos = -1;
+
+    /**
+     * Creates instrumented wrapper
+     *
+     * @param name            name of the enumeration
+     * @param inner           the iterator
+     * @param total           total number of elements or -1 if unknown
+     * @param publishInterval number of elements between publications of metrics (rounded up to a power of two)
+     * @param listener        progress listener or null
+     * @throws IllegalArgumentException if publish interval is not positive
+     */
+    public InstrumentedIterator(String name, CombinatorialIterator<T> inner, long total,
+                                int publishInterval, ProgressListener listener) {
+        if (publishInterval < 1 || publishInterval > (1 << 30))
+            throw new IllegalArgumentException("Illegal publish interval: " + publishInterval);
+        this.name = name;
+        this.inner = inner;
+        this.total = total;
+        this.mask = (publishInterval == 1 ? 1 : Integer.highestOneBit(publishInterval - 1) * 2L) - 1;
+        this.listener = listener;
+    }
+
+    /**
+     * Creates instrumented wrapper with default publish interval and without listener
+     *
+     * @param name  name of the enumeration
+     * @param inner the iterator
+     * @param total total number of elements or -1 if unknown
+     */
+    public InstrumentedIterator(String name, CombinatorialIterator<T> inner, long total) {
+        this(name, inner, total, DEFAULT_PUBLISH_INTERVAL, null);
+    }
+
+    /**
+     * Returns instrumented iterator over all elements of the specified space
+     *
+     * @param name  name of the enumeration
+     * @param space space
+     * @return instrumented iterator
+     */
+    public static InstrumentedIterator<int[]> of(String name, IntCombinatorialSpace space) {
+        return of(name, space, DEFAULT_PUBLISH_INTERVAL, null);
+    }
+
+    /**
+     * Returns instrumented iterator over all elements of the specified space
+     *
+     * @param name            name of the enumeration
+     * @param space           space
+     * @param publishInterval number of elements between publications of metrics (rounded up to a power of two)
+     * @param listener        progress listener or null
+     * @return instrumented iterator
+     */
+    public static InstrumentedIterator<int[]> of(String name, IntCombinatorialSpace space,
+                                                 int publishInterval, ProgressListener listener) {
+        BigInteger count = space.count();
+        return new InstrumentedIterator<>(name, space.iterator(),
+                count.bitLength() < Long.SIZE ? count.longValue() : Long.MAX_VALUE, publishInterval, listener);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (inner.hasNext())
+            return true;
+        if (finishNanos == -1)
+            finish();
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (emitted == 0 && startNanos == -1)
+            startNanos = System.nanoTime();
+        T r = inner.next();
+        if ((++emitted & mask) == 0)
+            publish();
+        return r;
+    }
+
+    private void publish() {
+        published = emitted;
+        if (listener != null)
+            listener.onProgress(this);
+    }
+
+    private void finish() {
+        if (startNanos == -1)
+            startNanos = System.nanoTime();
+        finishNanos = System.nanoTime();
+        publish();
+    }
+
+    @Override
+    public void reset() {
+        inner.reset();
+        emitted = 0;
+        published = 0;
+        startNanos = -1;
+        finishNanos = -1;
+    }
+
+    @Override
+    public T current() {
+        return inner.current();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getEmitted() {
+        return published;
+    }
+
+    @Override
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public double getFractionComplete() {
+        if (total < 0)
+            return Double.NaN;
+        return total == 0 ? 1.0 : Math.min(1.0, 1.0 * published / total);
+    }
+
+    @Override
+    public double getElapsedSeconds() {
+        long start = startNanos;
+        if (start == -1)
+            return 0;
+        long finish = finishNanos;
+        return ((finish == -1 ? System.nanoTime() : finish) - start) / 1e9;
+    }
+
+    @Override
+    public double getElementsPerSecond() {
+        double elapsed = getElapsedSeconds();
+        return elapsed == 0 ? 0 : published / elapsed;
+    }
+
+    @Override
+    public double getEstimatedSecondsRemaining() {
+        if (finishNanos != -1)
+            return 0;
+        double rate = getElementsPerSecond();
+        if (total < 0 || rate == 0)
+            return Double.NaN;
+        return Math.max(0, total - published) / rate;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return finishNanos != -1;
+    }
+
+    /**
+     * Registers this iterator in the platform MBean server with the name {@code
+     * cc.redberry.combinatorics:type=Enumeration,name=<name>}
+     *
+     * @return object name of the registered MBean
+     * @throws IllegalStateException if registration failed (e.g. an MBean with the same name is already registered)
+     */
+    public synchronized ObjectName register() {
+        if (objectName != null)
+            return objectName;
+        try {
+            ObjectName objectName = new ObjectName("cc.redberry.combinatorics:type=Enumeration,name="
+                    + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return this.objectName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Unregisters this iterator from the platform MBean server (if it was registered)
+     */
+    public synchronized void unregister() {
+        if (objectName == null)
+            return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName))
+                server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            objectName = null;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package cc.redberry.combinatorics;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Iterator over canonical representatives of permutations under a symmetry group of positions. Permutations {@code p}
+ * and {@code q} are considered equivalent if {@code q[i] = p[g[i]]} for some {@code g} from the group (i.e. {@code q}
+ * is obtained from {@code p} by permutation of positions), and for each class of equivalence only the
+ * lexicographically smallest permutation is produced. The total number of produced permutations is {@code
+ * N!/|G|}.
+ *
+ * <p>Implementation note: for the stabilizer chain of the group with base {@code [0, 1, ..., N-1]}, permutation {@code
+ * p} is canonical if and only if {@code p[i] < p[x]} for each {@code x != i} from the orbit of {@code i} under the
+ * pointwise stabilizer of {@code 0, ..., i-1}. Permutations are generated via depth-first search in lexicographic
+ * order, and each prefix which either violates these conditions or can not be completed to a canonical permutation is
+ * pruned, so the search never enters subtrees without canonical permutations.
+ *
+ * <p>Calculation of the next permutation occurs only on the invocation of {@link #take()}.
+ *
+ * <p><b>Note:</b> method {@link #take()} returns the same reference on each invocation.
+ *
+ * @author Stanislav Poslavsky
+ * @see PermutationGroup
+ * @since 2.2
+ */
+public final class IntCanonicalPermutations implements IntCombinatorialPort {
+    private static final long serialVersionUID = 1956366211573419002L;
+    private final PermutationGroup group;
+    private final int size;
+    /** predecessors[x] = sorted positions i < x, such that x belongs to the orbit of i */
+    private final int[][] predecessors;
+    private final int[] permutation;
+    private final boolean[] used;
+    /** temporary array for the feasibility test */
+    private final int[] bounds;
+    private int position;
+    private byte state = -1;
+
+    /**
+     * Constructs iterator over canonical permutations under the specified group
+     *
+     * @param group symmetry group of positions
+     */
+    public IntCanonicalPermutations(PermutationGroup group) {
+        this.group = group;
+        this.size = group.degree();
+        int[][] predecessors = new int[size][size];
+        int[] counts = new int[size];
+        for (int i = 0; i < size; ++i)
+            for (int x : group.orbit(i))
+                if (x != i)
+                    predecessors[x][counts[x]++] = i;
+        for (int x = 0; x < size; ++x)
+            predecessors[x] = Arrays.copyOf(predecessors[x], counts[x]);
+        this.predecessors = predecessors;
+        this.permutation = new int[size];
+        this.used = new boolean[size];
+        this.bounds = new int[size + 1];
+    }
+
+    /**
+     * Returns the total number of canonical permutations, i.e. {@code N!/|G|}
+     */
+    public BigInteger count() {
+        BigInteger factorial = BigInteger.ONE;
+        for (int i = 2; i <= size; ++i)
+            factorial = factorial.multiply(BigInteger.valueOf(i));
+        return factorial.divide(group.order());
+    }
+
+    @Override
+    public int[] take() {
+        if (state == 1)
+            return null;
+        if (state == -1) {
+            state = 0;
+            if (size == 0) {
+                state = 1;
+                return permutation;
+            }
+            position = 0;
+            permutation[0] = -1;
+        }
+        while (position >= 0) {
+            if (permutation[position] >= 0)
+                used[permutation[position]] = false;
+            int value = Math.max(permutation[position], lowerBound(position, position - 1)) + 1;
+            while (value < size && used[value])
+                ++value;
+            if (value == size) {
+                --position;
+                continue;
+            }
+            permutation[position] = value;
+            used[value] = true;
+            if (!isFeasible(position))
+                continue;
+            if (position == size - 1)
+                return permutation;
+            permutation[++position] = -1;
+        }
+        state = 1;
+        return null;
+    }
+
+    /**
+     * Maximal value at the predecessors of x among positions {@code 0, ..., assigned}, or -1
+     */
+    private int lowerBound(int x, int assigned) {
+        int bound = -1;
+        for (int i : predecessors[x]) {
+            if (i > assigned)
+                break;
+            if (permutation[i] > bound)
+                bound = permutation[i];
+        }
+        return bound;
+    }
+
+    /**
+     * Whether positions after the specified one can be filled by the unused values respecting the lower bounds (Hall's
+     * condition for thresholds)
+     */
+    private boolean isFeasible(int assigned) {
+        Arrays.fill(bounds, 0);
+        for (int x = assigned + 1; x < size; ++x)
+            ++bounds[lowerBound(x, assigned) + 1];
+        int positions = 0, values = 0;
+        for (int t = size - 1; t >= -1; --t) {
+            // values = number of unused values greater than t
+            if (t + 1 < size && !used[t + 1])
+                ++values;
+            positions += bounds[t + 1];
+            if (positions > values)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        state = -1;
+        Arrays.fill(used, false);
+    }
+
+    @Override
+    public int[] getReference() {
+        return permutation;
+    }
+}
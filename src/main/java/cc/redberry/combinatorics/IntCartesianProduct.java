@@ -0,0 +1,154 @@
+package cc.redberry.combinatorics;
+
+/**
+ * Lazy Cartesian product of combinatorial generators. Each element of the product is a concatenation of elements of
+ * all factors written into a single flat array; the elements are produced in lexicographic order of factors (i.e. the
+ * last factor changes most frequently). For example, the product of 2-combinations from 3 and permutations of 2 gives
+ * <code><pre>
+ *     [0, 1, 0, 1]
+ *     [0, 1, 1, 0]
+ *     [0, 2, 0, 1]
+ *     [0, 2, 1, 0]
+ *     [1, 2, 0, 1]
+ *     [1, 2, 1, 0]
+ * </pre></code>
+ *
+ * <p>Factors are not copied: when some factor is exhausted it is reset (only at this moment) and the previous factor
+ * is advanced, so no iterators are allocated during the iteration. All elements of each factor should have the same
+ * length, and the same generator should not be passed as several factors.
+ *
+ * <p>Calculation of the next element occurs only on the invocation of {@link #take()}.
+ *
+ * <p><b>Note:</b> method {@link #take()} returns the same reference on each invocation.
+ *
+ * @author Stanislav Poslavsky
+ * @see IntCombinatorialSpace#product(IntCombinatorialSpace...)
+ * @since 2.2
+ */
+public final class IntCartesianProduct implements IntCombinatorialPort {
+    private static final long serialVersionUID = -5240316318286437451L;
+    private final IntCombinatorialPort[] factors;
+    /** offsets of factors in the flat array (computed on the first take) */
+    private final int[] offsets;
+    private int[] element = null;
+    private boolean onFirst = true, exhausted = false;
+    private int lastUpdateFactor = -1;
+
+    /**
+     * Creates product of the specified factors
+     *
+     * @param factors factors
+     */
+    public IntCartesianProduct(IntCombinatorialPort... factors) {
+        if (factors.length == 0)
+            throw new IllegalArgumentException("No factors.");
+        this.factors = factors.clone();
+        this.offsets = new int[factors.length + 1];
+    }
+
+    /**
+     * Creates product of the specified iterators
+     *
+     * @param factors factors
+     * @return product of the specified iterators
+     */
+    @SafeVarargs
+    public static IntCartesianProduct of(CombinatorialIterator<int[]>... factors) {
+        IntCombinatorialPort[] ports = new IntCombinatorialPort[factors.length];
+        for (int i = 0; i < factors.length; ++i)
+            ports[i] = new IteratorPort(factors[i]);
+        return new IntCartesianProduct(ports);
+    }
+
+    @Override
+    public int[] take() {
+        if (exhausted)
+            return null;
+        if (onFirst) {
+            onFirst = false;
+            int[][] first = new int[factors.length][];
+            for (int i = 0; i < factors.length; ++i)
+                if ((first[i] = factors[i].take()) == null) {
+                    exhausted = true;
+                    return null;
+                } else
+                    offsets[i + 1] = offsets[i] + first[i].length;
+            if (element == null)
+                element = new int[offsets[factors.length]];
+            for (int i = 0; i < factors.length; ++i)
+                write(i, first[i]);
+            lastUpdateFactor = 0;
+            return element;
+        }
+        int i = factors.length - 1;
+        int[] next;
+        while ((next = factors[i].take()) == null) {
+            if (i == 0) {
+                exhausted = true;
+                return null;
+            }
+            --i;
+        }
+        write(i, next);
+        lastUpdateFactor = i;
+        for (int j = i + 1; j < factors.length; ++j) {
+            factors[j].reset();
+            write(j, factors[j].take());
+        }
+        return element;
+    }
+
+    private void write(int factor, int[] value) {
+        if (value.length != offsets[factor + 1] - offsets[factor])
+            throw new IllegalStateException("Elements of factor " + factor + " have different lengths.");
+        System.arraycopy(value, 0, element, offsets[factor], value.length);
+    }
+
+    /**
+     * Returns the index of the leftmost factor which was changed by the last invocation of {@link #take()}
+     *
+     * @return the index of the leftmost factor which was changed by the last invocation of {@link #take()}
+     */
+    public int getLastUpdateFactor() {
+        return lastUpdateFactor;
+    }
+
+    @Override
+    public void reset() {
+        for (IntCombinatorialPort factor : factors)
+            factor.reset();
+        onFirst = true;
+        exhausted = false;
+        lastUpdateFactor = -1;
+    }
+
+    @Override
+    public int[] getReference() {
+        return element;
+    }
+
+    static final class IteratorPort implements IntCombinatorialPort {
+        private static final long serialVersionUID = 1130858318407604327L;
+        private final CombinatorialIterator<int[]> iterator;
+        private int[] current = null;
+
+        IteratorPort(CombinatorialIterator<int[]> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public int[] take() {
+            return current = iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public void reset() {
+            iterator.reset();
+        }
+
+        @Override
+        public int[] getReference() {
+            return current;
+        }
+    }
+}
@@ -16,10 +16,10 @@ package cc.redberry.combinatorics;
  * @since 1.0
  */
 public final class IntCombinations
-        extends IntCombinatorialIterator {
+        extends IntCombinatorialIterator implements Cursor {
     private static final long serialVersionUID = -2446688661078690111L;
     final int[] combination;
-    private final int n, k;
+    final int n, k;
     private boolean onFirst = true;
 
     /**
@@ -46,29 +46,44 @@ public final class IntCombinations
             combination[i] = i;
     }
 
+    /**
+     * Since combinations are strictly increasing, the combination is the last one iff its first element is n - k
+     */
     private boolean isLast() {
-        for (int i = 0; i < k; ++i)
-            if (combination[i] != i + n - k)
-                return false;
-        return true;
+        return k == 0 || combination[0] == n - k;
     }
 
     @Override
     public int[] next() {
         if (onFirst)
             onFirst = false;
-        else {
-            int i;
-            for (i = k - 1; i >= 0; --i)
-                if (combination[i] != i + n - k)
-                    break;
-            int m = ++combination[i++];
-            for (; i < k; ++i)
-                combination[i] = ++m;
-        }
+        else
+            step();
         return combination;
     }
 
+    @Override
+    public boolean advance() {
+        if (onFirst) {
+            onFirst = false;
+            return true;
+        }
+        if (isLast())
+            return false;
+        step();
+        return true;
+    }
+
+    private void step() {
+        int i;
+        for (i = k - 1; i >= 0; --i)
+            if (combination[i] != i + n - k)
+                break;
+        int m = ++combination[i++];
+        for (; i < k; ++i)
+            combination[i] = ++m;
+    }
+
     /**
      * @throws UnsupportedOperationException always
      */
@@ -81,4 +96,49 @@ public final class IntCombinations
     public int[] current() {
         return combination;
     }
+
+    /**
+     * Sets the state of this iterator
+     *
+     * @param combination the current combination
+     * @param onFirst     whether the specified combination should be returned by the next invocation of {@link #next()}
+     */
+    void setState(int[] combination, boolean onFirst) {
+        if (combination.length != k)
+            throw new IllegalArgumentException("Wrong combination length.");
+        System.arraycopy(combination, 0, this.combination, 0, k);
+        this.onFirst = onFirst;
+    }
+
+    void writeState(Checkpoint.Writer writer) {
+        writer.putInt(n).putInt(k).putBoolean(onFirst).putInts(combination);
+    }
+
+    static IntCombinations readState(Checkpoint.Reader reader) {
+        IntCombinations r = new IntCombinations(reader.getInt(), reader.getInt());
+        boolean onFirst = reader.getBoolean();
+        r.setState(reader.getInts(r.k), onFirst);
+        return r;
+    }
+
+    @Override
+    public byte[] checkpoint() {
+        Checkpoint.Writer writer = new Checkpoint.Writer(Checkpoint.COMBINATIONS);
+        writeState(writer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Restores the iterator from the token obtained via {@link #checkpoint()}
+     *
+     * @param token checkpoint token
+     * @return iterator which continues the iteration exactly after the last element returned before the checkpoint
+     * @throws IllegalArgumentException if token is malformed or is not a token of this iterator
+     */
+    public static IntCombinations resume(byte[] token) {
+        Checkpoint.Reader reader = new Checkpoint.Reader(token, Checkpoint.COMBINATIONS);
+        IntCombinations r = readState(reader);
+        reader.end();
+        return r;
+    }
 }
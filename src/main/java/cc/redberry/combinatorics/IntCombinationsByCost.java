@@ -0,0 +1,94 @@
+package cc.redberry.combinatorics;
+
+import java.util.Arrays;
+
+/**
+ * Iterator over all k-combinations from n elements (the same as {@link IntCombinations}) in the order of increasing
+ * cost, which is the sum of weights of chosen elements; combinations with equal costs are returned in unspecified
+ * order. Each combination is sorted.
+ *
+ * <p>Implementation note: elements are sorted by weight, and each combination is represented by the increasing
+ * sequence of ranks c<sub>0</sub> &lt; ... &lt; c<sub>k-1</sub> of its elements. Let {@code j} be the smallest position
+ * with c<sub>j</sub> &gt; j; the parent of a combination is obtained by decreasing c<sub>j</sub> by one, so that each
+ * combination has at most two children (obtained by increasing c<sub>j-1</sub> or c<sub>j</sub>) and the best-first
+ * search from the combination of k cheapest elements never generates duplicates. Elements are generated lazily; the
+ * priority queue contains at most two elements per each returned combination.
+ *
+ * <p><b>Note:</b> method {@link #take()} returns the same reference on each invocation.
+ *
+ * @author Stanislav Poslavsky
+ * @see IntCombinations
+ * @see IntTuplesByCost
+ * @since 2.2
+ */
+public final class IntCombinationsByCost extends BestFirstPort {
+    private static final long serialVersionUID = 3079253128823569473L;
+    private final int n, k;
+    /** elements in the order of increasing weight */
+    private final int[] order;
+    /** weights in increasing order */
+    private final double[] sortedWeights;
+
+    /**
+     * Creates iterator over k-combinations of {@code weights.length} elements
+     *
+     * @param weights weights of elements
+     * @param k       length of combinations
+     * @throws IllegalArgumentException if {@code k > weights.length} or some weight is NaN
+     */
+    public IntCombinationsByCost(double[] weights, int k) {
+        super(k);
+        if (k < 0 || k > weights.length)
+            throw new IllegalArgumentException();
+        this.n = weights.length;
+        this.k = k;
+        this.order = IntTuplesByCost.sortedIndices(weights);
+        this.sortedWeights = new double[n];
+        for (int i = 0; i < n; ++i)
+            sortedWeights[i] = weights[order[i]];
+    }
+
+    @Override
+    int[] root() {
+        int[] root = new int[k];
+        for (int i = 0; i < k; ++i)
+            root[i] = i;
+        return root;
+    }
+
+    @Override
+    void children(Node node) {
+        final int[] ranks = node.ranks;
+        int j = 0;
+        while (j < k && ranks[j] == j)
+            ++j;
+        if (j > 0)
+            child(ranks, j - 1);
+        if (j < k)
+            child(ranks, j);
+    }
+
+    private void child(int[] ranks, int m) {
+        int limit = m + 1 < k ? ranks[m + 1] : n;
+        if (ranks[m] + 1 < limit) {
+            int[] child = ranks.clone();
+            ++child[m];
+            push(child);
+        }
+    }
+
+    @Override
+    double cost(int[] ranks) {
+        double cost = 0;
+        for (int r : ranks)
+            cost += sortedWeights[r];
+        return cost;
+    }
+
+    @Override
+    void write(int[] ranks) {
+        for (int i = 0; i < k; ++i)
+            element[i] = order[ranks[i]];
+        Arrays.sort(element);
+    }
+}
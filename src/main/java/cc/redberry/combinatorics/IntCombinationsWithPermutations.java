@@ -22,7 +22,7 @@ package cc.redberry.combinatorics;
  * @since 1.0
  */
 public final class IntCombinationsWithPermutations
-        extends IntCombinatorialIterator {
+        extends IntCombinatorialIterator implements Cursor {
     private static final long serialVersionUID = 8846104681881108285L;
     private final int[] permutation, combination;
     private final int[] combinationPermutation;
@@ -34,16 +34,25 @@ public final class IntCombinationsWithPermutations
      * Constructs the iterator with the desired n and k
      */
     public IntCombinationsWithPermutations(int n, int k) {
-        this.k = k;
-        this.combinationsGenerator = new IntCombinations(n, k);
-        this.combination = this.combinationsGenerator.combination;
-        this.permutationsGenerator = new IntPermutations(k);
-        this.permutation = this.permutationsGenerator.permutation;
-        this.combinationPermutation = new int[k];
+        this(new IntCombinations(n, k), new IntPermutations(k));
         combinationsGenerator.next();
         System.arraycopy(combination, 0, combinationPermutation, 0, k);
     }
 
+    private IntCombinationsWithPermutations(IntCombinations combinationsGenerator,
+                                            IntPermutations permutationsGenerator) {
+        if (combinationsGenerator.k != permutationsGenerator.getDimension())
+            throw new IllegalArgumentException();
+        this.k = combinationsGenerator.k;
+        this.combinationsGenerator = combinationsGenerator;
+        this.combination = combinationsGenerator.combination;
+        this.permutationsGenerator = permutationsGenerator;
+        this.permutation = permutationsGenerator.permutation;
+        this.combinationPermutation = new int[k];
+        for (int i = 0; i < k; ++i)
+            combinationPermutation[i] = combination[permutation[i]];
+    }
+
     @Override
     public boolean hasNext() {
         return combinationsGenerator.hasNext() || permutationsGenerator.hasNext();
@@ -66,6 +75,19 @@ public final class IntCombinationsWithPermutations
         return combinationPermutation;
     }
 
+    @Override
+    public boolean advance() {
+        if (!permutationsGenerator.advance()) {
+            if (!combinationsGenerator.advance())
+                return false;
+            permutationsGenerator.reset();
+            permutationsGenerator.advance();
+        }
+        for (int i = 0; i < k; ++i)
+            combinationPermutation[i] = combination[permutation[i]];
+        return true;
+    }
+
     /**
      * Throws UnsupportedOperationException.
      */
@@ -85,4 +107,27 @@ public final class IntCombinationsWithPermutations
     public int[] current() {
         return combinationPermutation;
     }
+
+    @Override
+    public byte[] checkpoint() {
+        Checkpoint.Writer writer = new Checkpoint.Writer(Checkpoint.COMBINATIONS_WITH_PERMUTATIONS);
+        combinationsGenerator.writeState(writer);
+        permutationsGenerator.writeState(writer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Restores the iterator from the token obtained via {@link #checkpoint()}
+     *
+     * @param token checkpoint token
+     * @return iterator which continues the iteration exactly after the last element returned before the checkpoint
+     * @throws IllegalArgumentException if token is malformed or is not a token of this iterator
+     */
+    public static IntCombinationsWithPermutations resume(byte[] token) {
+        Checkpoint.Reader reader = new Checkpoint.Reader(token, Checkpoint.COMBINATIONS_WITH_PERMUTATIONS);
+        IntCombinationsWithPermutations r = new IntCombinationsWithPermutations(
+                IntCombinations.readState(reader), IntPermutations.readState(reader));
+        reader.end();
+        return r;
+    }
 }
@@ -1,6 +1,7 @@
 package cc.redberry.combinatorics;
 
 import java.io.Serializable;
+import java.util.NoSuchElementException;
 
 /**
  * This interface is common for all combinatorial iterators.
@@ -9,7 +10,7 @@ import java.io.Serializable;
  * @author Stanislav Poslavsky
  * @since 1.0
  */
-public interface IntCombinatorialPort extends Serializable {
+public interface IntCombinatorialPort extends Cursor, Serializable {
     /**
      * Resets the iteration
      */
@@ -29,18 +30,78 @@ public interface IntCombinatorialPort extends Serializable {
      */
     int[] take();
 
+    /**
+     * Calculates the next combination; equivalent to {@code take() != null}.
+     *
+     * @return {@code true} if there is the next combination
+     */
+    @Override
+    default boolean advance() {
+        return take() != null;
+    }
+
+    /**
+     * Returns the reference to the current iteration element; equivalent to {@link #getReference()}.
+     *
+     * @return the reference to the current iteration element
+     */
+    @Override
+    default int[] current() {
+        return getReference();
+    }
+
+    /**
+     * Returns a compact versioned token with the state of this port, such that a port restored from this token will
+     * continue the iteration exactly after the last taken element.
+     *
+     * @return checkpoint token
+     * @throws UnsupportedOperationException if port does not support checkpoints
+     * @see Combinatorics#resume(byte[])
+     */
+    default byte[] checkpoint() {
+        throw new UnsupportedOperationException("Checkpoints are not supported.");
+    }
+
+    /**
+     * Iterator over elements of a port. Elements are calculated lazily on the invocation of {@link #hasNext()} (or
+     * {@link #next()}) via {@link Cursor#advance()}.
+     *
+     * <p><b>Note:</b> method {@link #next()} returns the reference returned by the port, which is the same reference
+     * on each invocation for all ports from this package, unless the iterator is created via {@link
+     * #copying(IntCombinatorialPort)}.
+     */
     final class Iterator extends IntCombinatorialIterator {
         final IntCombinatorialPort port;
-        private int[] next;
+        /** whether the port was advanced to the element which was not yet returned */
+        private boolean fetched = false;
+        /** the result of the last advance */
+        private boolean available = false;
+        /** whether {@link #next()} returns a copy of each element */
+        private final boolean copy;
 
         public Iterator(IntCombinatorialPort port) {
+            this(port, false);
+        }
+
+        private Iterator(IntCombinatorialPort port, boolean copy) {
             this.port = port;
-            this.next = port.take();
+            this.copy = copy;
+        }
+
+        /**
+         * Returns iterator over elements of the port, which returns a new array on each invocation of {@link #next()}
+         *
+         * @param port port
+         * @return iterator which copies elements of the port
+         */
+        public static Iterator copying(IntCombinatorialPort port) {
+            return new Iterator(port, true);
         }
 
         @Override
         public void reset() {
             port.reset();
+            fetched = false;
         }
 
         @Override
@@ -50,14 +111,51 @@ public interface IntCombinatorialPort extends Serializable {
 
         @Override
         public boolean hasNext() {
-            return next != null;
+            if (!fetched) {
+                available = port.advance();
+                fetched = true;
+            }
+            return available;
         }
 
         @Override
         public int[] next() {
-            int[] current = next.clone();
-            next = port.take();
-            return current;
+            if (!hasNext())
+                throw new NoSuchElementException();
+            fetched = false;
+            return copy ? port.getReference().clone() : port.getReference();
+        }
+
+        /** states of iterator stored in checkpoint */
+        private static final int EXHAUSTED = 0, PENDING = 1, NOT_FETCHED = 2;
+        /** flag added to the state in checkpoint of iterator which copies elements */
+        private static final int COPY = 4;
+
+        /**
+         * {@inheritDoc} If the port was already advanced to an element which was not yet returned, this is recorded in
+         * the token, so that the element will be returned first by the restored iterator.
+         */
+        @Override
+        public byte[] checkpoint() {
+            return new Checkpoint.Writer(Checkpoint.PORT_ITERATOR)
+                    .putByte((!fetched ? NOT_FETCHED : available ? PENDING : EXHAUSTED) | (copy ? COPY : 0))
+                    .putToken(port.checkpoint())
+                    .toByteArray();
+        }
+
+        static Iterator resume(byte[] token) {
+            Checkpoint.Reader reader = new Checkpoint.Reader(token, Checkpoint.PORT_ITERATOR);
+            int state = reader.getByte();
+            boolean copy = (state & COPY) != 0;
+            state &= ~COPY;
+            if (state != EXHAUSTED && state != PENDING && state != NOT_FETCHED)
+                throw new IllegalArgumentException("Malformed checkpoint token.");
+            IntCombinatorialPort port = Combinatorics.resumePort(reader.getToken());
+            reader.end();
+            Iterator r = new Iterator(port, copy);
+            r.fetched = state != NOT_FETCHED;
+            r.available = state == PENDING;
+            return r;
         }
     }
 }
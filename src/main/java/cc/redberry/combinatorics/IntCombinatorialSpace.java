@@ -0,0 +1,858 @@
+package cc.redberry.combinatorics;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finite space of combinatorial elements with lexicographic ranking. All elements are enumerated in the same order as
+ * by the corresponding iterator from {@link Combinatorics}, and the rank of element is its index in this enumeration.
+ *
+ * <p>Space can be split into non-overlapping contiguous ranges of ranks, which allows to enumerate independent parts
+ * of the space without any coordination. For example, the {@code i}-th of {@code N} processes of a batch job may
+ * enumerate its part of all 5-combinations from 40 via
+ * <code><pre>
+ * for (int[] combination : IntCombinatorialSpace.combinations(40, 5).shard(i, N))
+ *     process(combination);
+ * </pre></code>
+ * The shards are balanced by the number of elements (sizes of any two shards differ at most by one), cover the whole
+ * space and depend only on the space and on {@code i} and {@code N}.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+public abstract class IntCombinatorialSpace implements Serializable {
+    private static final long serialVersionUID = -1863421585734160781L;
+
+    IntCombinatorialSpace() {}
+
+    /**
+     * Returns the length of elements
+     */
+    public abstract int length();
+
+    /**
+     * Returns the total number of elements
+     */
+    public abstract BigInteger count();
+
+    /**
+     * Returns the rank (index in lexicographic enumeration) of the specified element
+     *
+     * @param element element of this space
+     * @return rank of the element
+     * @throws IllegalArgumentException if element does not belong to this space
+     */
+    public abstract BigInteger rank(int[] element);
+
+    /**
+     * Returns the element with the specified rank
+     *
+     * @param rank rank
+     * @return the element with the specified rank
+     * @throws IllegalArgumentException if rank is negative or not less than {@link #count()}
+     */
+    public abstract int[] unrank(BigInteger rank);
+
+    /**
+     * Returns the element with the specified rank
+     *
+     * @param rank rank
+     * @return the element with the specified rank
+     * @throws IllegalArgumentException if rank is negative or not less than {@link #count()}
+     */
+    public final int[] unrank(long rank) {
+        return unrank(BigInteger.valueOf(rank));
+    }
+
+    /**
+     * Iterator over all elements starting with the specified one
+     */
+    abstract CombinatorialIterator<int[]> iteratorFrom(int[] element);
+
+    /**
+     * Returns iterator over all elements of this space
+     *
+     * @return iterator over all elements of this space
+     */
+    public abstract CombinatorialIterator<int[]> iterator();
+
+    /**
+     * Returns iterator over elements with ranks {@code from, from + 1, ..., from + count - 1}.
+     *
+     * <p><b>Note:</b> ranges longer than {@code Long.MAX_VALUE} are truncated.
+     *
+     * @param from  rank of the first element
+     * @param count number of elements
+     * @return iterator over the specified range of elements
+     * @throws IllegalArgumentException if the range is out of bounds
+     */
+    public CombinatorialIterator<int[]> iterator(BigInteger from, BigInteger count) {
+        if (from.signum() < 0 || count.signum() < 0 || from.add(count).compareTo(count()) > 0)
+            throw new IllegalArgumentException("Range is out of bounds.");
+        return new RangeIterator(this, from, count.bitLength() < Long.SIZE ? count.longValue() : Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns iterator over elements with ranks {@code from, from + 1, ..., from + count - 1}.
+     *
+     * @param from  rank of the first element
+     * @param count number of elements
+     * @return iterator over the specified range of elements
+     * @throws IllegalArgumentException if the range is out of bounds
+     */
+    public final CombinatorialIterator<int[]> iterator(long from, long count) {
+        return iterator(BigInteger.valueOf(from), BigInteger.valueOf(count));
+    }
+
+    /**
+     * Returns rank of the first element of the specified shard
+     *
+     * @param index   index of shard
+     * @param nShards total number of shards
+     * @return rank of the first element of the specified shard
+     * @throws IllegalArgumentException if index is out of range
+     */
+    public BigInteger shardStart(int index, int nShards) {
+        if (nShards < 1 || index < 0 || index > nShards)
+            throw new IllegalArgumentException("Shard index is out of range.");
+        return count().multiply(BigInteger.valueOf(index)).divide(BigInteger.valueOf(nShards));
+    }
+
+    /**
+     * Returns iterator over {@code index}-th of {@code nShards} contiguous parts of this space. Sizes of any two shards
+     * differ at most by one.
+     *
+     * @param index   index of shard ({@code 0 <= index < nShards})
+     * @param nShards total number of shards
+     * @return iterator over the specified part of this space
+     * @throws IllegalArgumentException if index is out of range
+     */
+    public CombinatorialIterator<int[]> shard(int index, int nShards) {
+        if (index == nShards)
+            throw new IllegalArgumentException("Shard index is out of range.");
+        BigInteger from = shardStart(index, nShards);
+        return iterator(from, shardStart(index + 1, nShards).subtract(from));
+    }
+
+    final void checkRank(BigInteger rank) {
+        if (rank.signum() < 0 || rank.compareTo(count()) >= 0)
+            throw new IllegalArgumentException("Rank is out of range: " + rank);
+    }
+
+    final void checkLength(int[] element) {
+        if (element.length != length())
+            throw new IllegalArgumentException("Wrong element length.");
+    }
+
+    /**
+     * Space of all k-combinations from {@code n}
+     *
+     * @param n the total
+     * @param k combination length
+     * @see IntCombinations
+     */
+    public static IntCombinatorialSpace combinations(int n, int k) {
+        return new Combinations(n, k);
+    }
+
+    /**
+     * Space of all permutations of the specified dimension
+     *
+     * @param dimension dimension of permutations
+     * @see IntPermutations
+     */
+    public static IntCombinatorialSpace permutations(int dimension) {
+        return new Permutations(dimension);
+    }
+
+    /**
+     * Space of all tuples [e<sub>1</sub>, ..., e<sub>N</sub>] with 0 &lt;= e<sub>i</sub> &lt; bounds<sub>i</sub>
+     *
+     * @param bounds the bounds on the tuple elements
+     * @see IntTuples
+     */
+    public static IntCombinatorialSpace tuples(int... bounds) {
+        return new Tuples(bounds.clone());
+    }
+
+    /**
+     * Space of all compositions of {@code integer} into {@code nPartitions} non-negative parts
+     *
+     * @param integer     the sum
+     * @param nPartitions number of partitions
+     * @see IntCompositions
+     */
+    public static IntCombinatorialSpace compositions(int integer, int nPartitions) {
+        return new Compositions(integer, nPartitions);
+    }
+
+    /**
+     * Space of all perfect matchings of {@code 2 * nPairs} points in the form of flat arrays of pairs
+     *
+     * @param nPairs number of pairs
+     * @see IntPerfectMatchings
+     */
+    public static IntCombinatorialSpace perfectMatchings(int nPairs) {
+        return new PerfectMatchings(nPairs);
+    }
+
+    /**
+     * Space of all permutations with the specified cycle type (conjugacy class of the symmetric group), in the order of
+     * {@link IntPermutationsByCycleType}
+     *
+     * @param cycleType lengths of cycles (in any order, including fixed points)
+     * @see IntPermutationsByCycleType
+     */
+    public static IntCombinatorialSpace permutationsByCycleType(int... cycleType) {
+        return new PermutationsByCycleType(cycleType.clone());
+    }
+
+    /**
+     * Space of concatenations of elements of the specified spaces (Cartesian product). The rank of element of the
+     * product is the mixed-radix number with digits equal to ranks of its parts.
+     *
+     * @param factors factors
+     * @see IntCartesianProduct
+     */
+    public static IntCombinatorialSpace product(IntCombinatorialSpace... factors) {
+        return new Product(factors.clone());
+    }
+
+    /**
+     * Returns binomial coefficient
+     */
+    static BigInteger binomial(int n, int k) {
+        if (k < 0 || k > n)
+            return BigInteger.ZERO;
+        k = Math.min(k, n - k);
+        BigInteger r = BigInteger.ONE;
+        for (int i = 0; i < k; ++i)
+            r = r.multiply(BigInteger.valueOf(n - i)).divide(BigInteger.valueOf(i + 1));
+        return r;
+    }
+
+    /**
+     * Returns factorial
+     */
+    static BigInteger factorial(int n) {
+        BigInteger r = BigInteger.ONE;
+        for (int i = 2; i <= n; ++i)
+            r = r.multiply(BigInteger.valueOf(i));
+        return r;
+    }
+
+    private static final class RangeIterator implements CombinatorialIterator<int[]> {
+        private static final long serialVersionUID = 2093425107725361640L;
+        private final IntCombinatorialSpace space;
+        private final BigInteger from;
+        private final long count;
+        private CombinatorialIterator<int[]> inner;
+        private long remaining;
+
+        RangeIterator(IntCombinatorialSpace space, BigInteger from, long count) {
+            this.space = space;
+            this.from = from;
+            this.count = count;
+            reset();
+        }
+
+        @Override
+        public void reset() {
+            remaining = count;
+            inner = count == 0 ? null : space.iteratorFrom(space.unrank(from));
+        }
+
+        @Override
+        public int[] current() {
+            return inner == null ? null : inner.current();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0 && inner.hasNext();
+        }
+
+        @Override
+        public int[] next() {
+            --remaining;
+            return inner.next();
+        }
+
+        @Override
+        public List<int[]> toList() {
+            List<int[]> list = new ArrayList<>();
+            for (int[] t : this)
+                list.add(t.clone());
+            return list;
+        }
+    }
+
+    private static final class Combinations extends IntCombinatorialSpace {
+        private static final long serialVersionUID = -4004785604447520587L;
+        private final int n, k;
+
+        Combinations(int n, int k) {
+            if (n < k || k < 0)
+                throw new IllegalArgumentException(" n < k ");
+            this.n = n;
+            this.k = k;
+        }
+
+        @Override
+        public int length() {
+            return k;
+        }
+
+        @Override
+        public BigInteger count() {
+            return binomial(n, k);
+        }
+
+        @Override
+        public BigInteger rank(int[] element) {
+            checkLength(element);
+            BigInteger rank = BigInteger.ZERO;
+            int previous = -1;
+            for (int i = 0; i < k; ++i) {
+                if (element[i] <= previous || element[i] > n - k + i)
+                    throw new IllegalArgumentException("Not a combination.");
+                // combinations with the same prefix and smaller i-th element
+                for (int v = previous + 1; v < element[i]; ++v)
+                    rank = rank.add(binomial(n - 1 - v, k - 1 - i));
+                previous = element[i];
+            }
+            return rank;
+        }
+
+        @Override
+        public int[] unrank(BigInteger rank) {
+            checkRank(rank);
+            int[] element = new int[k];
+            int v = 0;
+            for (int i = 0; i < k; ++i, ++v) {
+                BigInteger c;
+                while (rank.compareTo(c = binomial(n - 1 - v, k - 1 - i)) >= 0) {
+                    rank = rank.subtract(c);
+                    ++v;
+                }
+                element[i] = v;
+            }
+            return element;
+        }
+
+        @Override
+        CombinatorialIterator<int[]> iteratorFrom(int[] element) {
+            IntCombinations it = new IntCombinations(n, k);
+            it.setState(element, true);
+            return it;
+        }
+
+        @Override
+        public CombinatorialIterator<int[]> iterator() {
+            return new IntCombinations(n, k);
+        }
+    }
+
+    private static final class Permutations extends IntCombinatorialSpace {
+        private static final long serialVersionUID = 6536214580718016434L;
+        private final int dimension;
+
+        Permutations(int dimension) {
+            if (dimension < 0)
+                throw new IllegalArgumentException("Negative dimension.");
+            this.dimension = dimension;
+        }
+
+        @Override
+        public int length() {
+            return dimension;
+        }
+
+        @Override
+        public BigInteger count() {
+            return factorial(dimension);
+        }
+
+        @Override
+        public BigInteger rank(int[] element) {
+            checkLength(element);
+            boolean[] used = new boolean[dimension];
+            BigInteger rank = BigInteger.ZERO;
+            for (int i = 0; i < dimension; ++i) {
+                int p = element[i];
+                if (p < 0 || p >= dimension || used[p])
+                    throw new IllegalArgumentException("Not a permutation.");
+                int smaller = 0;
+                for (int v = 0; v < p; ++v)
+                    if (!used[v])
+                        ++smaller;
+                used[p] = true;
+                rank = rank.multiply(BigInteger.valueOf(dimension - i)).add(BigInteger.valueOf(smaller));
+            }
+            return rank;
+        }
+
+        @Override
+        public int[] unrank(BigInteger rank) {
+            checkRank(rank);
+            // factorial number system digits
+            int[] digits = new int[dimension];
+            for (int i = dimension - 1; i >= 0; --i) {
+                BigInteger[] qr = rank.divideAndRemainder(BigInteger.valueOf(dimension - i));
+                digits[i] = qr[1].intValue();
+                rank = qr[0];
+            }
+            boolean[] used = new boolean[dimension];
+            int[] element = new int[dimension];
+            for (int i = 0; i < dimension; ++i) {
+                int v = -1;
+                for (int skip = digits[i]; ; ) {
+                    ++v;
+                    if (!used[v] && skip-- == 0)
+                        break;
+                }
+                used[v] = true;
+                element[i] = v;
+            }
+            return element;
+        }
+
+        @Override
+        CombinatorialIterator<int[]> iteratorFrom(int[] element) {
+            IntPermutations it = new IntPermutations(dimension);
+            it.setState(element, true);
+            return it;
+        }
+
+        @Override
+        public CombinatorialIterator<int[]> iterator() {
+            return new IntPermutations(dimension);
+        }
+    }
+
+    private static final class Tuples extends IntCombinatorialSpace {
+        private static final long serialVersionUID = 3297451706014271562L;
+        private final int[] bounds;
+
+        Tuples(int[] bounds) {
+            for (int i : bounds)
+                if (i < 0)
+                    throw new IllegalArgumentException("Upper bound cannot be negative.");
+            this.bounds = bounds;
+        }
+
+        @Override
+        public int length() {
+            return bounds.length;
+        }
+
+        @Override
+        public BigInteger count() {
+            BigInteger r = BigInteger.ONE;
+            for (int i : bounds)
+                r = r.multiply(BigInteger.valueOf(i));
+            return r;
+        }
+
+        @Override
+        public BigInteger rank(int[] element) {
+            checkLength(element);
+            BigInteger rank = BigInteger.ZERO;
+            for (int i = 0; i < bounds.length; ++i) {
+                if (element[i] < 0 || element[i] >= bounds[i])
+                    throw new IllegalArgumentException("Not a tuple.");
+                rank = rank.multiply(BigInteger.valueOf(bounds[i])).add(BigInteger.valueOf(element[i]));
+            }
+            return rank;
+        }
+
+        @Override
+        public int[] unrank(BigInteger rank) {
+            checkRank(rank);
+            int[] element = new int[bounds.length];
+            for (int i = bounds.length - 1; i >= 0; --i) {
+                BigInteger[] qr = rank.divideAndRemainder(BigInteger.valueOf(bounds[i]));
+                element[i] = qr[1].intValue();
+                rank = qr[0];
+            }
+            return element;
+        }
+
+        @Override
+        CombinatorialIterator<int[]> iteratorFrom(int[] element) {
+            IntTuples port = new IntTuples(bounds.clone());
+            port.setState(element);
+            return new IntCombinatorialPort.Iterator(port);
+        }
+
+        @Override
+        public CombinatorialIterator<int[]> iterator() {
+            return new IntCombinatorialPort.Iterator(new IntTuples(bounds.clone()));
+        }
+    }
+
+    private static final class Compositions extends IntCombinatorialSpace {
+        private static final long serialVersionUID = -6201337409846713309L;
+        private final int integer, nPartitions;
+        /** space of combinations of separators */
+        private final Combinations separators;
+
+        Compositions(int integer, int nPartitions) {
+            if (integer < 0 || nPartitions < 1)
+                throw new IllegalArgumentException("integer < 0 or nPartitions < 1");
+            this.integer = integer;
+            this.nPartitions = nPartitions;
+            this.separators = new Combinations(integer + nPartitions - 1, nPartitions - 1);
+        }
+
+        @Override
+        public int length() {
+            return nPartitions;
+        }
+
+        @Override
+        public BigInteger count() {
+            return separators.count();
+        }
+
+        @Override
+        public BigInteger rank(int[] element) {
+            return separators.rank(IntCompositions.separators(integer, element));
+        }
+
+        @Override
+        public int[] unrank(BigInteger rank) {
+            int[] separators = this.separators.unrank(rank);
+            int[] element = new int[nPartitions];
+            int previous = -1;
+            for (int i = 0; i < separators.length; ++i) {
+                element[i] = separators[i] - previous - 1;
+                previous = separators[i];
+            }
+            element[nPartitions - 1] = integer + nPartitions - 2 - previous;
+            return element;
+        }
+
+        @Override
+        CombinatorialIterator<int[]> iteratorFrom(int[] element) {
+            IntCompositions port = new IntCompositions(integer, nPartitions);
+            port.setState(element);
+            return new IntCombinatorialPort.Iterator(port);
+        }
+
+        @Override
+        public CombinatorialIterator<int[]> iterator() {
+            return new IntCombinatorialPort.Iterator(new IntCompositions(integer, nPartitions));
+        }
+    }
+
+    private static final class PerfectMatchings extends IntCombinatorialSpace {
+        private static final long serialVersionUID = 4412708263391522074L;
+        private final int nPairs;
+
+        PerfectMatchings(int nPairs) {
+            if (nPairs < 0)
+                throw new IllegalArgumentException("Negative number of pairs.");
+            this.nPairs = nPairs;
+        }
+
+        @Override
+        public int length() {
+            return 2 * nPairs;
+        }
+
+        @Override
+        public BigInteger count() {
+            BigInteger r = BigInteger.ONE;
+            for (int i = 3; i < 2 * nPairs; i += 2)
+                r = r.multiply(BigInteger.valueOf(i));
+            return r;
+        }
+
+        @Override
+        public BigInteger rank(int[] element) {
+            checkLength(element);
+            // mixed-radix number with digits equal to positions of partners among unmatched points
+            boolean[] matched = new boolean[2 * nPairs];
+            BigInteger rank = BigInteger.ZERO;
+            for (int i = 0; i < nPairs; ++i) {
+                int a = element[2 * i], b = element[2 * i + 1];
+                int first = 0;
+                while (first < matched.length && matched[first])
+                    ++first;
+                if (a != first || b <= a || b >= matched.length || matched[b])
+                    throw new IllegalArgumentException("Not a matching in canonical form.");
+                int digit = 0;
+                for (int p = a + 1; p < b; ++p)
+                    if (!matched[p])
+                        ++digit;
+                matched[a] = matched[b] = true;
+                rank = rank.multiply(BigInteger.valueOf(2 * (nPairs - i) - 1)).add(BigInteger.valueOf(digit));
+            }
+            return rank;
+        }
+
+        @Override
+        public int[] unrank(BigInteger rank) {
+            checkRank(rank);
+            int[] digits = new int[nPairs];
+            for (int i = nPairs - 1; i >= 0; --i) {
+                BigInteger[] qr = rank.divideAndRemainder(BigInteger.valueOf(2 * (nPairs - i) - 1));
+                digits[i] = qr[1].intValue();
+                rank = qr[0];
+            }
+            boolean[] matched = new boolean[2 * nPairs];
+            int[] element = new int[2 * nPairs];
+            for (int i = 0, a = 0; i < nPairs; ++i) {
+                while (matched[a])
+                    ++a;
+                int b = a, digit = digits[i];
+                do
+                    ++b;
+                while (matched[b] || digit-- > 0);
+                matched[a] = matched[b] = true;
+                element[2 * i] = a;
+                element[2 * i + 1] = b;
+            }
+            return element;
+        }
+
+        @Override
+        CombinatorialIterator<int[]> iteratorFrom(int[] element) {
+            IntPerfectMatchings port = new IntPerfectMatchings(nPairs);
+            port.setState(element);
+            return new IntCombinatorialPort.Iterator(port);
+        }
+
+        @Override
+        public CombinatorialIterator<int[]> iterator() {
+            return new IntCombinatorialPort.Iterator(new IntPerfectMatchings(nPairs));
+        }
+    }
+
+    private static final class PermutationsByCycleType extends IntCombinatorialSpace {
+        private static final long serialVersionUID = 5904312867751093418L;
+        private final int[] cycleType;
+        private final int[] lengths, multiplicities;
+        private final int n;
+
+        PermutationsByCycleType(int[] cycleType) {
+            IntPermutationsByCycleType port = new IntPermutationsByCycleType(cycleType);
+            this.cycleType = cycleType;
+            this.lengths = port.lengths();
+            this.multiplicities = port.multiplicities();
+            this.n = port.getDimension();
+        }
+
+        @Override
+        public int length() {
+            return n;
+        }
+
+        @Override
+        public BigInteger count() {
+            return IntPermutationsByCycleType.classSize(lengths, multiplicities);
+        }
+
+        /**
+         * Returns the number of arrangements (a! / (a - k)!)
+         */
+        private static BigInteger arrangements(int a, int k) {
+            BigInteger r = BigInteger.ONE;
+            for (int i = 0; i < k; ++i)
+                r = r.multiply(BigInteger.valueOf(a - i));
+            return r;
+        }
+
+        /**
+         * Returns the number of ways to complete the permutation, if the next cycle of length {@code lengths[l]} is
+         * started when {@code r} points are unused
+         */
+        private BigInteger block(int[] remaining, int l, int r) {
+            --remaining[l];
+            BigInteger block = arrangements(r - 1, lengths[l] - 1)
+                    .multiply(IntPermutationsByCycleType.classSize(lengths, remaining));
+            ++remaining[l];
+            return block;
+        }
+
+        @Override
+        public BigInteger rank(int[] element) {
+            checkLength(element);
+            // each cycle contributes the choice of its length and the arrangement of its points after the first one
+            int[] remaining = multiplicities.clone();
+            boolean[] used = new boolean[n];
+            BigInteger rank = BigInteger.ZERO;
+            for (int start = 0, r = n; r > 0; ) {
+                while (used[start])
+                    ++start;
+                int length = 0;
+                for (int point = start; length == 0 || point != start; point = element[point], ++length)
+                    if (point < 0 || point >= n || used[point] || length == r)
+                        throw new IllegalArgumentException("Not a permutation.");
+                int l = Arrays.binarySearch(lengths, length);
+                if (l < 0 || remaining[l] == 0)
+                    throw new IllegalArgumentException("Permutation has another cycle type.");
+                for (int m = 0; m < l; ++m)
+                    if (remaining[m] != 0)
+                        rank = rank.add(block(remaining, m, r));
+                --remaining[l];
+                BigInteger rest = IntPermutationsByCycleType.classSize(lengths, remaining);
+                used[start] = true;
+                int j = 1;
+                for (int point = element[start]; point != start; point = element[point], ++j) {
+                    int smaller = 0;
+                    for (int q = 0; q < point; ++q)
+                        if (!used[q])
+                            ++smaller;
+                    used[point] = true;
+                    rank = rank.add(arrangements(r - 1 - j, length - 1 - j)
+                            .multiply(rest).multiply(BigInteger.valueOf(smaller)));
+                }
+                r -= length;
+            }
+            return rank;
+        }
+
+        @Override
+        public int[] unrank(BigInteger rank) {
+            checkRank(rank);
+            int[] remaining = multiplicities.clone();
+            boolean[] used = new boolean[n];
+            int[] element = new int[n];
+            for (int start = 0, r = n; r > 0; ) {
+                while (used[start])
+                    ++start;
+                int l = 0;
+                while (true) {
+                    if (remaining[l] != 0) {
+                        BigInteger block = block(remaining, l, r);
+                        if (rank.compareTo(block) < 0)
+                            break;
+                        rank = rank.subtract(block);
+                    }
+                    ++l;
+                }
+                final int length = lengths[l];
+                --remaining[l];
+                BigInteger rest = IntPermutationsByCycleType.classSize(lengths, remaining);
+                used[start] = true;
+                int previous = start;
+                for (int j = 1; j < length; ++j) {
+                    BigInteger[] qr = rank.divideAndRemainder(arrangements(r - 1 - j, length - 1 - j).multiply(rest));
+                    rank = qr[1];
+                    int point = -1;
+                    for (int skip = qr[0].intValue(); skip >= 0; --skip)
+                        do
+                            ++point;
+                        while (used[point]);
+                    used[point] = true;
+                    element[previous] = point;
+                    previous = point;
+                }
+                element[previous] = start;
+                r -= length;
+            }
+            return element;
+        }
+
+        @Override
+        CombinatorialIterator<int[]> iteratorFrom(int[] element) {
+            IntPermutationsByCycleType port = new IntPermutationsByCycleType(cycleType);
+            port.setState(element);
+            return new IntCombinatorialPort.Iterator(port);
+        }
+
+        @Override
+        public CombinatorialIterator<int[]> iterator() {
+            return new IntCombinatorialPort.Iterator(new IntPermutationsByCycleType(cycleType));
+        }
+    }
+
+    private static final class Product extends IntCombinatorialSpace {
+        private static final long serialVersionUID = 6102538476319062208L;
+        private final IntCombinatorialSpace[] factors;
+        private final int length;
+
+        Product(IntCombinatorialSpace[] factors) {
+            if (factors.length == 0)
+                throw new IllegalArgumentException("No factors.");
+            this.factors = factors;
+            int length = 0;
+            for (IntCombinatorialSpace factor : factors)
+                length += factor.length();
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public BigInteger count() {
+            BigInteger r = BigInteger.ONE;
+            for (IntCombinatorialSpace factor : factors)
+                r = r.multiply(factor.count());
+            return r;
+        }
+
+        @Override
+        public BigInteger rank(int[] element) {
+            checkLength(element);
+            BigInteger rank = BigInteger.ZERO;
+            int offset = 0;
+            for (IntCombinatorialSpace factor : factors) {
+                int[] part = new int[factor.length()];
+                System.arraycopy(element, offset, part, 0, part.length);
+                offset += part.length;
+                rank = rank.multiply(factor.count()).add(factor.rank(part));
+            }
+            return rank;
+        }
+
+        @Override
+        public int[] unrank(BigInteger rank) {
+            checkRank(rank);
+            int[] element = new int[length];
+            int offset = length;
+            for (int i = factors.length - 1; i >= 0; --i) {
+                BigInteger[] qr = rank.divideAndRemainder(factors[i].count());
+                int[] part = factors[i].unrank(qr[1]);
+                offset -= part.length;
+                System.arraycopy(part, 0, element, offset, part.length);
+                rank = qr[0];
+            }
+            return element;
+        }
+
+        @Override
+        CombinatorialIterator<int[]> iteratorFrom(int[] element) {
+            CombinatorialIterator<int[]>[] iterators = newArray(factors.length);
+            int offset = 0;
+            for (int i = 0; i < factors.length; ++i) {
+                int[] part = new int[factors[i].length()];
+                System.arraycopy(element, offset, part, 0, part.length);
+                offset += part.length;
+                iterators[i] = factors[i].iteratorFrom(part);
+            }
+            return new IntCombinatorialPort.Iterator(IntCartesianProduct.of(iterators));
+        }
+
+        @Override
+        public CombinatorialIterator<int[]> iterator() {
+            CombinatorialIterator<int[]>[] iterators = newArray(factors.length);
+            for (int i = 0; i < factors.length; ++i)
+                iterators[i] = factors[i].iterator();
+            return new IntCombinatorialPort.Iterator(IntCartesianProduct.of(iterators));
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static CombinatorialIterator<int[]>[] newArray(int length) {
+            return (CombinatorialIterator<int[]>[]) new CombinatorialIterator[length];
+        }
+    }
+}
@@ -14,16 +14,28 @@ public final class IntCompositions implements IntCombinatorialPort {
     private final int nCompositions;
     private final IntCombinations generator;
     private int[] array;
+    /** scratch space for batch generation */
+    private transient int[] separators;
 
     public IntCompositions(int integer, int nCompositions) {
+        this(integer, nCompositions, new IntCombinations(integer + nCompositions - 1, nCompositions - 1));
+    }
+
+    private IntCompositions(int integer, int nCompositions, IntCombinations generator) {
+        if (generator.n != integer + nCompositions - 1 || generator.k != nCompositions - 1)
+            throw new IllegalArgumentException();
         this.integer = integer;
         this.nCompositions = nCompositions;
-        this.generator = new IntCombinations(integer + nCompositions - 1, nCompositions - 1);
+        this.generator = generator;
         this.array = new int[nCompositions];
     }
 
     @Override
-    public void reset() {generator.reset();}
+    public void reset() {
+        generator.reset();
+        if (array == null)
+            array = new int[nCompositions];
+    }
 
     @Override
     public int[] getReference() {
@@ -47,4 +59,115 @@ public final class IntCompositions implements IntCombinatorialPort {
 
         return array;
     }
+
+    /**
+     * Returns length of elements
+     */
+    int length() {
+        return nCompositions;
+    }
+
+    /**
+     * Calculates next {@code rows} compositions and writes them into the flat buffer row by row (composition {@code r}
+     * occupies positions {@code [r * N, (r + 1) * N)} of the buffer). The state of the port is the same as after
+     * {@code rows} invocations of {@link #take()}. On Java 17+ with enabled module {@code jdk.incubator.vector} the
+     * separators are converted into parts with SIMD kernels.
+     *
+     * @param buffer buffer of length at least {@code rows * N}
+     * @param rows   number of compositions
+     * @return number of written compositions (less than {@code rows} only if there are no more compositions)
+     * @throws IllegalArgumentException if rows is negative or the buffer is too small
+     */
+    public int take(int[] buffer, int rows) {
+        final int width = nCompositions;
+        if (rows < 0)
+            throw new IllegalArgumentException("Negative number of rows.");
+        if (buffer.length < (long) rows * width)
+            throw new IllegalArgumentException("Buffer is too small.");
+        if (rows == 0)
+            return 0;
+        int stride = width + 1, size;
+        try {
+            size = Math.multiplyExact(rows, stride);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Too many rows.", e);
+        }
+        if (separators == null || separators.length < size)
+            separators = new int[size];
+        int written = 0;
+        for (; written < rows && generator.hasNext(); ++written) {
+            int offset = written * stride;
+            separators[offset] = -1;
+            System.arraycopy(generator.next(), 0, separators, offset + 1, width - 1);
+            separators[offset + width] = integer + nCompositions - 1;
+        }
+        if (written < rows) {
+            array = null;
+            if (written == 0)
+                return 0;
+        } else if (array == null)
+            array = new int[nCompositions];
+        BatchKernels.separatorsToParts(separators, written, width, buffer, 0);
+        if (array != null)
+            System.arraycopy(buffer, (written - 1) * width, array, 0, width);
+        return written;
+    }
+
+    /**
+     * Returns positions of separators which correspond to the specified composition
+     */
+    static int[] separators(int integer, int[] composition) {
+        int[] separators = new int[composition.length - 1];
+        int sum = 0;
+        for (int i = 0; i < composition.length; ++i) {
+            if (composition[i] < 0)
+                throw new IllegalArgumentException("Not a composition.");
+            sum += composition[i];
+            if (i < separators.length)
+                separators[i] = sum + i;
+        }
+        if (sum != integer)
+            throw new IllegalArgumentException("Not a composition.");
+        return separators;
+    }
+
+    /**
+     * Sets the state of this port, such that the specified composition will be returned by the next invocation of
+     * {@link #take()}
+     */
+    void setState(int[] composition) {
+        if (composition.length != nCompositions)
+            throw new IllegalArgumentException("Wrong composition length.");
+        generator.setState(separators(integer, composition), true);
+        if (array == null)
+            array = new int[nCompositions];
+    }
+
+    @Override
+    public byte[] checkpoint() {
+        Checkpoint.Writer writer = new Checkpoint.Writer(Checkpoint.COMPOSITIONS)
+                .putInt(integer)
+                .putInt(nCompositions);
+        generator.writeState(writer);
+        writer.putBoolean(array != null);
+        if (array != null)
+            writer.putInts(array);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Restores the port from the token obtained via {@link #checkpoint()}
+     *
+     * @param token checkpoint token
+     * @return port which continues the iteration exactly after the last element taken before the checkpoint
+     * @throws IllegalArgumentException if token is malformed or is not a token of this port
+     */
+    public static IntCompositions resume(byte[] token) {
+        Checkpoint.Reader reader = new Checkpoint.Reader(token, Checkpoint.COMPOSITIONS);
+        int integer = reader.getInt(), nCompositions = reader.getInt();
+        IntCompositions r = new IntCompositions(integer, nCompositions, IntCombinations.readState(reader));
+        r.array = reader.getBoolean() ? reader.getInts(r.nCompositions) : null;
+        reader.end();
+        return r;
+    }
 }
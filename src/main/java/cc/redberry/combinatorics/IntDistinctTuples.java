@@ -152,4 +152,45 @@ public final class IntDistinctTuples implements IntCombinatorialPort {
     public int[] getReference() {
         return combination;
     }
+
+    /**
+     * {@inheritDoc} Only the sets and the current tuple are stored in the token; all masks are restored from them.
+     */
+    @Override
+    public byte[] checkpoint() {
+        Checkpoint.Writer writer = new Checkpoint.Writer(Checkpoint.DISTINCT_TUPLES);
+        writer.putInt(setMasks.length);
+        for (BitSet mask : setMasks)
+            writer.putInts(mask.stream().toArray());
+        return writer.putInts(combination)
+                .putInt(state)
+                .toByteArray();
+    }
+
+    /**
+     * Restores the port from the token obtained via {@link #checkpoint()}
+     *
+     * @param token checkpoint token
+     * @return port which continues the iteration exactly after the last element taken before the checkpoint
+     * @throws IllegalArgumentException if token is malformed or is not a token of this port
+     */
+    public static IntDistinctTuples resume(byte[] token) {
+        Checkpoint.Reader reader = new Checkpoint.Reader(token, Checkpoint.DISTINCT_TUPLES);
+        int[][] sets = new int[reader.getSize()][];
+        for (int i = 0; i < sets.length; ++i)
+            sets[i] = reader.getInts();
+        IntDistinctTuples r = new IntDistinctTuples(sets);
+        System.arraycopy(reader.getInts(sets.length), 0, r.combination, 0, sets.length);
+        r.state = (byte) reader.getInt();
+        reader.end();
+        if (r.state != 1) {
+            r.previousMask.set(0, r.previousMask.size());
+            for (int i : r.combination) {
+                if (i < 0 || !r.previousMask.get(i))
+                    throw new IllegalArgumentException("Malformed checkpoint token.");
+                r.previousMask.clear(i);
+            }
+        }
+        return r;
+    }
 }
@@ -0,0 +1,239 @@
+package cc.redberry.combinatorics;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Iterator over N-tuples from {@code N} arrays of the form [0, 1, ..., K<sub>i</sub> - 1] (the same as {@link
+ * IntTuples}), which satisfy the linear constraint
+ * <code><pre>
+ *     L &lt;= w<sub>0</sub> x<sub>0</sub> + ... + w<sub>N-1</sub> x<sub>N-1</sub> &lt;= U
+ * </pre></code>
+ * with integer (possibly negative) weights. Tuples are produced in lexicographic order, i.e. in the same order as
+ * {@link IntTuples} filtered by the constraint.
+ *
+ * <p>Implementation note: the minimal and maximal achievable sums of each suffix are precomputed, so at each position
+ * the range of values for which the constraint can still be satisfied is calculated directly and all values outside
+ * this range (and thus all their suffixes) are skipped. At the last position the range is exact, so no tuple is ever
+ * filtered out after it was generated. Total number of tuples is calculated by dynamic programming over (position,
+ * partial sum) with the same bound propagation, see {@link #count()}.
+ *
+ * <p>Calculation of the next tuple occurs only on the invocation of {@link #take()}.
+ *
+ * <p><b>Note:</b> method {@link #take()} returns the same reference on each invocation.
+ *
+ * @author Stanislav Poslavsky
+ * @see IntTuples
+ * @since 2.2
+ */
+public final class IntLinearTuples implements IntCombinatorialPort {
+    private static final long serialVersionUID = 8326059310298745120L;
+    private final int[] upperBounds;
+    private final int[] weights;
+    private final long lower, upper;
+    /** minimal and maximal sums achievable by positions {@code i, ..., N - 1} */
+    private final long[] suffixMin, suffixMax;
+    /** sum of the first {@code i} positions of the current tuple */
+    private final long[] prefix;
+    /** maximal feasible value at each position for the current prefix */
+    private final int[] high;
+    private int[] tuple;
+    private boolean onFirst = true;
+    private boolean exhausted = false;
+    private int lastUpdateDepth = -1;
+
+    /**
+     * Creates iterator over tuples with weighted sum in {@code [lower, upper]}
+     *
+     * @param upperBounds exclusive upper bounds of tuple elements
+     * @param weights     weights
+     * @param lower       lower bound of weighted sum (inclusive)
+     * @param upper       upper bound of weighted sum (inclusive)
+     * @throws IllegalArgumentException if some upper bound is negative, if lengths of bounds and weights differ, or if
+     *                                  the weighted sums do not fit into long
+     */
+    public IntLinearTuples(int[] upperBounds, int[] weights, long lower, long upper) {
+        if (upperBounds.length != weights.length)
+            throw new IllegalArgumentException("Lengths of bounds and weights differ.");
+        for (int b : upperBounds)
+            if (b < 0)
+                throw new IllegalArgumentException("Upper bound cannot be negative.");
+        final int n = upperBounds.length;
+        this.upperBounds = upperBounds.clone();
+        this.weights = weights.clone();
+        this.lower = lower;
+        this.upper = upper;
+        this.suffixMin = new long[n + 1];
+        this.suffixMax = new long[n + 1];
+        try {
+            for (int i = n - 1; i >= 0; --i) {
+                long extreme = upperBounds[i] == 0 ? 0 : (long) weights[i] * (upperBounds[i] - 1);
+                suffixMin[i] = Math.addExact(suffixMin[i + 1], Math.min(0, extreme));
+                suffixMax[i] = Math.addExact(suffixMax[i + 1], Math.max(0, extreme));
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Weighted sums do not fit into long.", e);
+        }
+        this.prefix = new long[n + 1];
+        this.high = new int[n];
+        this.tuple = new int[n];
+    }
+
+    /**
+     * Returns the number of positions
+     */
+    public int getDimension() {
+        return upperBounds.length;
+    }
+
+    @Override
+    public void reset() {
+        onFirst = true;
+        exhausted = false;
+        lastUpdateDepth = -1;
+        if (tuple == null)
+            tuple = new int[upperBounds.length];
+    }
+
+    @Override
+    public int[] getReference() {
+        return tuple;
+    }
+
+    /**
+     * Returns the leftmost position of the tuple which was changed by the last invocation of {@link #take()}
+     *
+     * @return the leftmost position of the tuple which was changed by the last invocation of {@link #take()}
+     */
+    public int getLastUpdateDepth() {
+        return lastUpdateDepth;
+    }
+
+    @Override
+    public int[] take() {
+        if (exhausted)
+            return null;
+        final int n = upperBounds.length;
+        if (n == 0) {
+            exhausted = true;
+            boolean feasible = onFirst && lower <= 0 && 0 <= upper;
+            onFirst = false;
+            return feasible ? tuple : (tuple = null);
+        }
+        int i = onFirst ? 0 : n - 1;
+        // whether the value at position i should be incremented (otherwise position i is entered for the first time)
+        boolean increment = !onFirst;
+        onFirst = false;
+        int depth = n;
+        while (true) {
+            if (increment) {
+                if (tuple[i] >= high[i]) {
+                    if (--i < 0)
+                        break;
+                    continue;
+                }
+                ++tuple[i];
+            } else if (!enter(i)) {
+                if (--i < 0)
+                    break;
+                increment = true;
+                continue;
+            }
+            depth = Math.min(depth, i);
+            if (i == n - 1) {
+                lastUpdateDepth = depth;
+                return tuple;
+            }
+            prefix[i + 1] = prefix[i] + (long) weights[i] * tuple[i];
+            ++i;
+            increment = false;
+        }
+        exhausted = true;
+        return tuple = null;
+    }
+
+    /**
+     * Calculates the range of feasible values at position i and sets the smallest one; returns false if there are no
+     * feasible values
+     */
+    private boolean enter(int i) {
+        final long s = prefix[i], w = weights[i];
+        // w * x should lie in [c1, c2]; sums of the prefix and suffix bounds always fit into long, while the bounds of
+        // the constraint may be arbitrary (e.g. Long.MIN_VALUE for an open lower bound)
+        final long c1 = clampedDifference(lower, s + suffixMax[i + 1]),
+                c2 = clampedDifference(upper, s + suffixMin[i + 1]);
+        long lo, hi;
+        if (w > 0) {
+            lo = ceilDiv(c1, w);
+            hi = Math.floorDiv(c2, w);
+        } else if (w < 0) {
+            lo = ceilDiv(c2, w);
+            hi = Math.floorDiv(c1, w);
+        } else if (c1 <= 0 && 0 <= c2) {
+            lo = 0;
+            hi = Long.MAX_VALUE;
+        } else
+            return false;
+        lo = Math.max(lo, 0);
+        hi = Math.min(hi, upperBounds[i] - 1);
+        if (lo > hi)
+            return false;
+        tuple[i] = (int) lo;
+        high[i] = (int) hi;
+        return true;
+    }
+
+    /** bound of differences used in {@link #enter(int)}: quotients by int weights exceed any upper bound beyond it */
+    private static final long DIFFERENCE_LIMIT = 1L << 62;
+
+    /**
+     * Returns {@code a - b} clamped to {@code [-DIFFERENCE_LIMIT, DIFFERENCE_LIMIT]} (without overflow)
+     */
+    private static long clampedDifference(long a, long b) {
+        long r = a - b;
+        if (((a ^ b) & (a ^ r)) < 0)
+            // overflow: the sign of the difference is the sign of a
+            return a < 0 ? -DIFFERENCE_LIMIT : DIFFERENCE_LIMIT;
+        return Math.max(-DIFFERENCE_LIMIT, Math.min(DIFFERENCE_LIMIT, r));
+    }
+
+    private static long ceilDiv(long a, long b) {
+        // a is within DIFFERENCE_LIMIT, so the negation does not overflow
+        return -Math.floorDiv(-a, b);
+    }
+
+    /**
+     * Returns the total number of tuples satisfying the constraint
+     *
+     * @return the total number of tuples satisfying the constraint
+     */
+    public BigInteger count() {
+        final int n = upperBounds.length;
+        // number of all tuples of each suffix
+        BigInteger[] all = new BigInteger[n + 1];
+        all[n] = BigInteger.ONE;
+        for (int i = n - 1; i >= 0; --i)
+            all[i] = all[i + 1].multiply(BigInteger.valueOf(upperBounds[i]));
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Map<Long, BigInteger>[] memo = new Map[n];
+        for (int i = 0; i < n; ++i)
+            memo[i] = new HashMap<>();
+        return count(0, 0, all, memo);
+    }
+
+    private BigInteger count(int i, long sum, BigInteger[] all, Map<Long, BigInteger>[] memo) {
+        if (sum + suffixMin[i] > upper || sum + suffixMax[i] < lower)
+            return BigInteger.ZERO;
+        if (sum + suffixMin[i] >= lower && sum + suffixMax[i] <= upper)
+            return all[i];
+        BigInteger r = memo[i].get(sum);
+        if (r != null)
+            return r;
+        r = BigInteger.ZERO;
+        for (int x = 0; x < upperBounds[i]; ++x)
+            r = r.add(count(i + 1, sum + (long) weights[i] * x, all, memo));
+        memo[i].put(sum, r);
+        return r;
+    }
+}
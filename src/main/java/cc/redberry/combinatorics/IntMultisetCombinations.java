@@ -0,0 +1,183 @@
+package cc.redberry.combinatorics;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Iterator over all distinct k-submultisets of the multiset, in which value {@code i} occurs {@code multiplicities[i]}
+ * times. Each submultiset is returned once as the sorted array of its values, and submultisets are produced in
+ * lexicographic order of these arrays. For example, 2-submultisets of {@code {0, 0, 1, 2}} (multiplicities {@code [2,
+ * 1, 1]}) are
+ * <code><pre>
+ * [0, 0]
+ * [0, 1]
+ * [0, 2]
+ * [1, 2]
+ * </pre></code>
+ * If all multiplicities are equal to one, this iterator produces the same sequence as {@link IntCombinations}.
+ *
+ * <p>Implementation note: the next submultiset is obtained by incrementing the rightmost position which can be
+ * incremented (using precomputed numbers of elements greater or equal to each value) and refilling the suffix with the
+ * smallest available values, so the work per step is proportional to the number of changed positions (see {@link
+ * #getLastUpdateDepth()}), no duplicates are ever generated and nothing is allocated during the iteration. The total
+ * number of submultisets is the coefficient of {@code x^k} in &prod; (1 + x + ... + x<sup>m<sub>i</sub></sup>), see
+ * {@link #count()}.
+ *
+ * <p>Calculation of the next submultiset occurs only on the invocation of {@link #take()}.
+ *
+ * <p><b>Note:</b> method {@link #take()} returns the same reference on each invocation.
+ *
+ * @author Stanislav Poslavsky
+ * @see IntCombinations
+ * @since 2.2
+ */
+public final class IntMultisetCombinations implements IntCombinatorialPort {
+    private static final long serialVersionUID = 3170459826631047825L;
+    private final int[] multiplicities;
+    private final int k;
+    /** number of elements of the multiset with values greater or equal to each value */
+    private final int[] tail;
+    /** the smallest value greater or equal to each value which has non-zero multiplicity */
+    private final int[] nextPresent;
+    /** number of occurrences of each value in the current submultiset */
+    private final int[] used;
+    private int[] combination;
+    private boolean onFirst = true;
+    private boolean exhausted = false;
+    private int lastUpdateDepth = -1;
+
+    /**
+     * Creates iterator over all k-submultisets of the multiset with specified multiplicities
+     *
+     * @param multiplicities multiplicities of values {@code 0, 1, ..., multiplicities.length - 1}
+     * @param k              size of submultisets
+     * @throws IllegalArgumentException if some multiplicity is negative, if k is negative or if k is greater than the
+     *                                  size of the multiset
+     */
+    public IntMultisetCombinations(int[] multiplicities, int k) {
+        final int d = multiplicities.length;
+        this.multiplicities = multiplicities.clone();
+        this.tail = new int[d + 1];
+        this.nextPresent = new int[d + 1];
+        nextPresent[d] = d;
+        for (int i = d - 1; i >= 0; --i) {
+            if (multiplicities[i] < 0)
+                throw new IllegalArgumentException("Negative multiplicity.");
+            tail[i] = Math.addExact(tail[i + 1], multiplicities[i]);
+            nextPresent[i] = multiplicities[i] == 0 ? nextPresent[i + 1] : i;
+        }
+        if (k < 0 || k > tail[0])
+            throw new IllegalArgumentException(" k < 0 or k > size of multiset ");
+        this.k = k;
+        this.used = new int[d];
+        this.combination = new int[k];
+    }
+
+    /**
+     * Returns the size of submultisets
+     */
+    public int getDimension() {
+        return k;
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(used, 0);
+        onFirst = true;
+        exhausted = false;
+        lastUpdateDepth = -1;
+        if (combination == null)
+            combination = new int[k];
+    }
+
+    @Override
+    public int[] getReference() {
+        return combination;
+    }
+
+    /**
+     * Returns the leftmost position which was changed by the last invocation of {@link #take()}
+     *
+     * @return the leftmost position which was changed by the last invocation of {@link #take()}
+     */
+    public int getLastUpdateDepth() {
+        return lastUpdateDepth;
+    }
+
+    @Override
+    public int[] take() {
+        if (exhausted)
+            return null;
+        if (onFirst) {
+            onFirst = false;
+            fill(0, nextPresent[0]);
+            lastUpdateDepth = 0;
+            return combination;
+        }
+        for (int i = k - 1; i >= 0; --i) {
+            --used[combination[i]];
+            int v = nextPresent[combination[i] + 1];
+            // values greater than combination[i] are not used by the prefix
+            if (tail[v] >= k - i) {
+                fill(i, v);
+                lastUpdateDepth = i;
+                return combination;
+            }
+        }
+        exhausted = true;
+        return combination = null;
+    }
+
+    /**
+     * Fills positions starting from {@code from} with the smallest available values starting from {@code value}
+     */
+    private void fill(int from, int value) {
+        for (int i = from; i < k; ++i) {
+            while (used[value] == multiplicities[value])
+                value = nextPresent[value + 1];
+            combination[i] = value;
+            ++used[value];
+        }
+    }
+
+    /**
+     * Returns the total number of k-submultisets
+     *
+     * @return the total number of k-submultisets
+     */
+    public BigInteger count() {
+        return count(multiplicities, k);
+    }
+
+    /**
+     * Returns the number of k-submultisets of the multiset with specified multiplicities (the coefficient of {@code
+     * x^k} in the product of polynomials {@code 1 + x + ... + x^m} over all multiplicities {@code m})
+     *
+     * @param multiplicities multiplicities
+     * @param k              size of submultisets
+     * @return the number of k-submultisets
+     */
+    public static BigInteger count(int[] multiplicities, int k) {
+        if (k < 0)
+            return BigInteger.ZERO;
+        BigInteger[] poly = new BigInteger[k + 1], next = new BigInteger[k + 1];
+        Arrays.fill(poly, BigInteger.ZERO);
+        poly[0] = BigInteger.ONE;
+        for (int m : multiplicities) {
+            if (m < 0)
+                throw new IllegalArgumentException("Negative multiplicity.");
+            // next[j] = poly[j] + poly[j - 1] + ... + poly[j - m] (sliding window)
+            BigInteger window = BigInteger.ZERO;
+            for (int j = 0; j <= k; ++j) {
+                window = window.add(poly[j]);
+                if (j - m - 1 >= 0)
+                    window = window.subtract(poly[j - m - 1]);
+                next[j] = window;
+            }
+            BigInteger[] t = poly;
+            poly = next;
+            next = t;
+        }
+        return poly[k];
+    }
+}
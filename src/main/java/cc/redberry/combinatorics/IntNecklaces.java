@@ -0,0 +1,446 @@
+package cc.redberry.combinatorics;
+
+import java.math.BigInteger;
+
+/**
+ * Iterator over k-ary necklaces, Lyndon words or bracelets of length n, optionally with fixed content (the number of
+ * occurrences of each letter). Each necklace (equivalence class of words under rotation) is represented by its
+ * lexicographically smallest rotation; Lyndon words are aperiodic necklaces; each bracelet (equivalence class under
+ * rotation and reflection) is represented by its lexicographically smallest word. Elements are produced in
+ * lexicographic order. For example, binary necklaces of length 4 are
+ * <code><pre>
+ * [0, 0, 0, 0]
+ * [0, 0, 0, 1]
+ * [0, 0, 1, 1]
+ * [0, 1, 0, 1]
+ * [0, 1, 1, 1]
+ * [1, 1, 1, 1]
+ * </pre></code>
+ *
+ * <p>Implementation note: elements are generated with the Fredricksen-Kessler-Maiorana (FKM) algorithm, which
+ * enumerates prenecklaces in lexicographic order in constant amortized time and keeps track of the length of the
+ * longest Lyndon prefix. With fixed content the branches are restricted by the remaining letters and prefixes are pruned
+ * as in Sawada's algorithm: a prefix which can be completed only by the smallest letter is never a prefix of a necklace,
+ * while a prefix which can be completed only by the largest letter is accepted or rejected at once by comparing the
+ * length of the tail with the length of the run of largest letters in the preceding period; thus no prefix is extended
+ * unless it is a prefix of some prenecklace with the remaining content. Bracelets are necklaces which are not greater than the smallest rotation of their reversal, which is checked in O(n). Total
+ * number of elements is calculated by Burnside's lemma and M&ouml;bius inversion, see {@link #count()}.
+ *
+ * <p>Calculation of the next element occurs only on the invocation of {@link #take()}.
+ *
+ * <p><b>Note:</b> method {@link #take()} returns the same reference on each invocation.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+public final class IntNecklaces implements IntCombinatorialPort {
+    private static final long serialVersionUID = 5203829163920486105L;
+
+    /**
+     * Kind of generated objects
+     */
+    public enum Kind {
+        /** necklaces: words which are the smallest among their rotations */
+        NECKLACES,
+        /** Lyndon words: aperiodic necklaces */
+        LYNDON_WORDS,
+        /** bracelets: words which are the smallest among their rotations and rotations of their reversal */
+        BRACELETS
+    }
+
+    private final int length;
+    private final int arity;
+    private final Kind kind;
+    /** number of occurrences of each of used letters (null if content is not fixed) */
+    private final int[] content;
+    /** used letters (null if content is not fixed) */
+    private final int[] letters;
+    /** current prenecklace a[1..n], a[0] = 0 is a sentinel; -1 means that position is not yet filled */
+    private final int[] word;
+    /** length of the longest Lyndon prefix of a[1..t-1] */
+    private final int[] periods;
+    /** remaining number of occurrences of letters (null if content is not fixed) */
+    private final int[] remaining;
+    /** start of the run of the largest letter which contains each position (null if content is not fixed) */
+    private final int[] runStart;
+    /** end of the run of the largest letter which starts at each position (null if content is not fixed) */
+    private final int[] runEnd;
+    private final int[] reversed;
+    /** position which should be advanced by the next invocation of {@link #take()} */
+    private int depth = 0;
+    private boolean onFirst = true;
+    private boolean exhausted = false;
+    private int[] element;
+
+    /**
+     * Creates iterator over all {@code arity}-ary necklaces (Lyndon words or bracelets) of specified length
+     *
+     * @param length length of words
+     * @param arity  number of letters
+     * @param kind   kind of generated objects
+     * @throws IllegalArgumentException if length or arity is not positive
+     */
+    public IntNecklaces(int length, int arity, Kind kind) {
+        if (length < 1)
+            throw new IllegalArgumentException("Length should be positive.");
+        if (arity < 1)
+            throw new IllegalArgumentException("Arity should be positive.");
+        this.length = length;
+        this.arity = arity;
+        this.kind = kind;
+        this.content = null;
+        this.letters = null;
+        this.remaining = null;
+        this.runStart = null;
+        this.runEnd = null;
+        this.word = new int[length + 1];
+        this.periods = new int[length + 1];
+        this.reversed = new int[length];
+        this.element = new int[length];
+    }
+
+    /**
+     * Creates iterator over all necklaces (Lyndon words or bracelets) with fixed content: letter {@code i} occurs
+     * exactly {@code content[i]} times in each word
+     *
+     * @param content number of occurrences of each letter
+     * @param kind    kind of generated objects
+     * @throws IllegalArgumentException if some number is negative or the total length is zero
+     */
+    public IntNecklaces(int[] content, Kind kind) {
+        int length = 0, used = 0;
+        for (int c : content) {
+            if (c < 0)
+                throw new IllegalArgumentException("Negative number of occurrences.");
+            length += c;
+            if (c > 0)
+                ++used;
+        }
+        if (length < 1)
+            throw new IllegalArgumentException("Length should be positive.");
+        this.length = length;
+        this.arity = content.length;
+        this.kind = kind;
+        this.letters = new int[used];
+        this.content = new int[used];
+        for (int i = 0, j = 0; i < content.length; ++i)
+            if (content[i] > 0) {
+                this.letters[j] = i;
+                this.content[j++] = content[i];
+            }
+        this.remaining = this.content.clone();
+        this.runStart = new int[length + 1];
+        this.runEnd = new int[length + 1];
+        this.word = new int[length + 1];
+        this.periods = new int[length + 1];
+        this.reversed = new int[length];
+        this.element = new int[length];
+    }
+
+    /**
+     * Returns length of words
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns number of letters
+     */
+    public int getArity() {
+        return arity;
+    }
+
+    /**
+     * Returns kind of generated objects
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    @Override
+    public void reset() {
+        depth = 0;
+        onFirst = true;
+        exhausted = false;
+        if (remaining != null)
+            System.arraycopy(content, 0, remaining, 0, content.length);
+        if (element == null)
+            element = new int[length];
+    }
+
+    @Override
+    public int[] getReference() {
+        return element;
+    }
+
+    @Override
+    public int[] take() {
+        if (exhausted)
+            return null;
+        int t;
+        if (onFirst) {
+            onFirst = false;
+            t = 1;
+            word[1] = -1;
+            periods[1] = 1;
+        } else if ((t = depth) == 0) {
+            exhausted = true;
+            return element = null;
+        }
+        final int nLetters = letters == null ? arity : letters.length, last = nLetters - 1;
+        while (true) {
+            int previous = word[t];
+            int j;
+            if (previous < 0) {
+                if (remaining != null) {
+                    int free = length - t + 1;
+                    if (remaining[last] == free) {
+                        // the tail consists of the largest letter only
+                        int period = t == 1 ? 1 : completedPeriod(t, free, last);
+                        depth = t - 1;
+                        if (length % period == 0) {
+                            for (int i = t; i <= length; ++i)
+                                word[i] = last;
+                            if (accept(period))
+                                return write();
+                        }
+                        if (--t == 0) {
+                            exhausted = true;
+                            return element = null;
+                        }
+                        continue;
+                    }
+                    if (t > 1 && remaining[0] == free) {
+                        // the tail consists of the smallest letter only
+                        if (--t == 0) {
+                            exhausted = true;
+                            return element = null;
+                        }
+                        continue;
+                    }
+                }
+                j = word[t - periods[t]];
+            } else {
+                if (remaining != null)
+                    ++remaining[previous];
+                j = previous + 1;
+            }
+            // with fixed content the first letter is the smallest one
+            int limit = remaining != null && t == 1 ? 1 : nLetters;
+            if (remaining != null)
+                while (j < limit && remaining[j] == 0)
+                    ++j;
+            if (j >= limit) {
+                word[t] = -1;
+                if (--t == 0) {
+                    exhausted = true;
+                    return element = null;
+                }
+                continue;
+            }
+            word[t] = j;
+            if (remaining != null) {
+                --remaining[j];
+                if (j == last)
+                    runStart[t] = t > 1 && word[t - 1] == last ? runStart[t - 1] : t;
+                else if (t > 1 && word[t - 1] == last)
+                    runEnd[runStart[t - 1]] = t - 1;
+            }
+            int p = j == word[t - periods[t]] ? periods[t] : t;
+            if (t == length) {
+                depth = t;
+                if (accept(p))
+                    return write();
+            } else {
+                periods[++t] = p;
+                word[t] = -1;
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the longest Lyndon prefix of the word obtained by filling the last {@code free} positions
+     * (starting from {@code t > 1}) by the largest letter
+     */
+    private int completedPeriod(int t, int free, int last) {
+        int p = periods[t], start = t - p;
+        // the run of the largest letter at position t - p ends before t - 1, since the word contains other letters
+        int run = word[start] == last ? runEnd[runStart[start]] - start + 1 : 0;
+        return free > run ? length : p;
+    }
+
+    private int[] write() {
+        for (int i = 0; i < length; ++i)
+            element[i] = letters == null ? word[i + 1] : letters[word[i + 1]];
+        return element;
+    }
+
+    private boolean accept(int period) {
+        switch (kind) {
+            case NECKLACES:
+                return length % period == 0;
+            case LYNDON_WORDS:
+                return period == length;
+            default:
+                return length % period == 0 && notGreaterThanReversal();
+        }
+    }
+
+    /**
+     * Returns whether the current word is not greater than the smallest rotation of its reversal
+     */
+    private boolean notGreaterThanReversal() {
+        final int n = length;
+        for (int i = 0; i < n; ++i)
+            reversed[i] = word[n - i];
+        // the smallest rotation of the reversal
+        int i = 0, j = 1, k = 0;
+        while (i < n && j < n && k < n) {
+            int a = reversed[(i + k) % n], b = reversed[(j + k) % n];
+            if (a == b)
+                ++k;
+            else {
+                if (a > b)
+                    i += k + 1;
+                else
+                    j += k + 1;
+                if (i == j)
+                    ++j;
+                k = 0;
+            }
+        }
+        int start = Math.min(i, j);
+        for (k = 0; k < n; ++k) {
+            int a = word[k + 1], b = reversed[(start + k) % n];
+            if (a != b)
+                return a < b;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the total number of elements produced by this iterator
+     *
+     * @return the total number of elements
+     */
+    public BigInteger count() {
+        BigInteger necklaces = BigInteger.ZERO, lyndon = BigInteger.ZERO;
+        int g = content == null ? length : 0;
+        if (content != null)
+            for (int c : content)
+                g = gcd(g, c);
+        // Burnside's lemma over rotations and Moebius inversion: sums over divisors of gcd
+        for (int d = 1; d <= g; ++d) {
+            if (g % d != 0)
+                continue;
+            BigInteger fixed = content == null
+                    ? BigInteger.valueOf(arity).pow(length / d)
+                    : multinomial(divide(content, d));
+            necklaces = necklaces.add(fixed.multiply(BigInteger.valueOf(phi(d))));
+            lyndon = lyndon.add(fixed.multiply(BigInteger.valueOf(mobius(d))));
+        }
+        BigInteger n = BigInteger.valueOf(length);
+        switch (kind) {
+            case NECKLACES:
+                return necklaces.divide(n);
+            case LYNDON_WORDS:
+                return lyndon.divide(n);
+            default:
+                // Burnside's lemma over the dihedral group
+                return necklaces.add(reflectionsFixed()).divide(n.shiftLeft(1));
+        }
+    }
+
+    /**
+     * Returns the total number of words fixed by all reflections
+     */
+    private BigInteger reflectionsFixed() {
+        final int n = length;
+        if (content == null) {
+            BigInteger k = BigInteger.valueOf(arity);
+            if (n % 2 == 1)
+                return k.pow((n + 1) / 2).multiply(BigInteger.valueOf(n));
+            return k.pow(n / 2 + 1).add(k.pow(n / 2)).multiply(BigInteger.valueOf(n / 2));
+        }
+        int[] halves = new int[content.length];
+        int odd = 0;
+        for (int i = 0; i < content.length; ++i) {
+            halves[i] = content[i] / 2;
+            odd += content[i] % 2;
+        }
+        if (n % 2 == 1)
+            // reflections through one position: the letter at the fixed position occurs odd number of times
+            return odd == 1 ? multinomial(halves).multiply(BigInteger.valueOf(n)) : BigInteger.ZERO;
+
+        // reflections through two opposite edges
+        BigInteger fixed = odd == 0 ? multinomial(halves) : BigInteger.ZERO;
+        // reflections through two opposite positions
+        if (odd == 2)
+            fixed = fixed.add(multinomial(halves).shiftLeft(1));
+        else if (odd == 0)
+            for (int i = 0; i < content.length; ++i) {
+                --halves[i];
+                fixed = fixed.add(multinomial(halves));
+                ++halves[i];
+            }
+        return fixed.multiply(BigInteger.valueOf(n / 2));
+    }
+
+    private static int[] divide(int[] content, int d) {
+        int[] r = new int[content.length];
+        for (int i = 0; i < content.length; ++i)
+            r[i] = content[i] / d;
+        return r;
+    }
+
+    private static BigInteger multinomial(int[] parts) {
+        int sum = 0;
+        BigInteger denominator = BigInteger.ONE;
+        for (int p : parts) {
+            sum += p;
+            denominator = denominator.multiply(IntCombinatorialSpace.factorial(p));
+        }
+        return IntCombinatorialSpace.factorial(sum).divide(denominator);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Euler's totient function
+     */
+    private static long phi(int n) {
+        long r = n;
+        for (int p = 2; (long) p * p <= n; ++p)
+            if (n % p == 0) {
+                while (n % p == 0)
+                    n /= p;
+                r -= r / p;
+            }
+        if (n > 1)
+            r -= r / n;
+        return r;
+    }
+
+    /**
+     * M&ouml;bius function
+     */
+    private static int mobius(int n) {
+        int r = 1;
+        for (int p = 2; (long) p * p <= n; ++p)
+            if (n % p == 0) {
+                n /= p;
+                if (n % p == 0)
+                    return 0;
+                r = -r;
+            }
+        return n > 1 ? -r : r;
+    }
+}
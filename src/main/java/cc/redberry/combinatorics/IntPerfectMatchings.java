@@ -0,0 +1,257 @@
+package cc.redberry.combinatorics;
+
+import java.util.Arrays;
+
+/**
+ * Iterator over all perfect matchings (pairings) of {@code 2n} points {@code 0, 1, ..., 2n - 1}, optionally
+ * restricted to allowed pairs. Each matching is represented by the flat array of its pairs {@code [a_0, b_0, a_1, b_1,
+ * ..., a_(n-1), b_(n-1)]}, where {@code a_i} is the smallest point which is not matched by the previous pairs and
+ * {@code a_i < b_i}; matchings are produced in lexicographic order of these arrays. For example, matchings of 4 points
+ * are
+ * <code><pre>
+ *      pairs       lastUpdatePair
+ * [0, 1, 2, 3]          0
+ * [0, 2, 1, 3]          0
+ * [0, 3, 1, 2]          0
+ * </pre></code>
+ * Without restrictions there are (2n - 1)!! = 1 * 3 * 5 * ... * (2n - 1) matchings; their ranks are available via
+ * {@link IntCombinatorialSpace#perfectMatchings(int)}.
+ *
+ * <p>Implementation note: unmatched points are kept in a doubly linked list, from which points are removed and
+ * restored in constant time (dancing links), so without restrictions each matching is produced in constant amortized
+ * time. If there are forbidden pairs, a branch is pruned as soon as some unmatched point has no allowed unmatched
+ * partner.
+ *
+ * <p>Calculation of the next matching occurs only on the invocation of {@link #take()}.
+ *
+ * <p><b>Note:</b> method {@link #take()} returns the same reference on each invocation.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+public final class IntPerfectMatchings implements IntCombinatorialPort {
+    private static final long serialVersionUID = 2690163285416013357L;
+    private final int nPairs;
+    /** allowed[i * 2n + j] is whether pair (i, j) is allowed (null if all pairs are allowed) */
+    private final boolean[] allowed;
+    /** linked list of unmatched points; node 2n is the head */
+    private final int[] next, previous;
+    private final int head;
+    private int[] pairs;
+    private boolean onFirst = true;
+    /** whether the current state should be returned by the next take (after {@link #setState(int[])}) */
+    private boolean pending = false;
+    private boolean exhausted = false;
+    private int lastUpdatePair = -1;
+
+    /**
+     * Creates iterator over all perfect matchings of {@code 2 * nPairs} points
+     *
+     * @param nPairs number of pairs
+     * @throws IllegalArgumentException if nPairs is negative
+     */
+    public IntPerfectMatchings(int nPairs) {
+        this(nPairs, null);
+    }
+
+    /**
+     * Creates iterator over perfect matchings of {@code 2 * nPairs} points, which do not contain the specified pairs
+     *
+     * @param nPairs         number of pairs
+     * @param forbiddenPairs forbidden pairs (each is an array of two distinct points; order of points is irrelevant)
+     * @throws IllegalArgumentException if nPairs is negative or some forbidden pair is malformed
+     */
+    public IntPerfectMatchings(int nPairs, int[][] forbiddenPairs) {
+        if (nPairs < 0)
+            throw new IllegalArgumentException("Negative number of pairs.");
+        this.nPairs = nPairs;
+        final int size = 2 * nPairs;
+        if (forbiddenPairs == null || forbiddenPairs.length == 0)
+            this.allowed = null;
+        else {
+            this.allowed = new boolean[size * size];
+            Arrays.fill(allowed, true);
+            for (int[] pair : forbiddenPairs) {
+                if (pair.length != 2 || pair[0] == pair[1]
+                        || pair[0] < 0 || pair[0] >= size || pair[1] < 0 || pair[1] >= size)
+                    throw new IllegalArgumentException("Malformed pair.");
+                allowed[pair[0] * size + pair[1]] = allowed[pair[1] * size + pair[0]] = false;
+            }
+        }
+        this.head = size;
+        this.next = new int[size + 1];
+        this.previous = new int[size + 1];
+        this.pairs = new int[size];
+        initList();
+    }
+
+    private void initList() {
+        for (int i = 0; i < head; ++i) {
+            next[i] = i + 1;
+            previous[i] = i - 1;
+        }
+        if (head != 0)
+            previous[0] = head;
+        next[head] = head == 0 ? head : 0;
+        previous[head] = head == 0 ? head : head - 1;
+    }
+
+    private void remove(int point) {
+        next[previous[point]] = next[point];
+        previous[next[point]] = previous[point];
+    }
+
+    /**
+     * Restores point removed by {@link #remove(int)} (points should be restored in the reverse order)
+     */
+    private void restore(int point) {
+        next[previous[point]] = point;
+        previous[next[point]] = point;
+    }
+
+    /**
+     * Returns the number of pairs
+     */
+    public int getNumberOfPairs() {
+        return nPairs;
+    }
+
+    @Override
+    public void reset() {
+        initList();
+        onFirst = true;
+        pending = false;
+        exhausted = false;
+        lastUpdatePair = -1;
+        if (pairs == null)
+            pairs = new int[2 * nPairs];
+    }
+
+    @Override
+    public int[] getReference() {
+        return pairs;
+    }
+
+    /**
+     * Returns the index of the leftmost pair which was changed by the last invocation of {@link #take()} (pairs with
+     * greater indices may be changed as well)
+     *
+     * @return the index of the leftmost pair which was changed by the last invocation of {@link #take()}
+     */
+    public int getLastUpdatePair() {
+        return lastUpdatePair;
+    }
+
+    @Override
+    public int[] take() {
+        if (exhausted)
+            return null;
+        if (pending) {
+            pending = false;
+            lastUpdatePair = 0;
+            return pairs;
+        }
+        if (nPairs == 0) {
+            exhausted = !onFirst;
+            onFirst = false;
+            lastUpdatePair = 0;
+            return exhausted ? (pairs = null) : pairs;
+        }
+        int i = onFirst ? 0 : nPairs - 1;
+        // whether pair i should be chosen from scratch (otherwise its second point is advanced)
+        boolean enter = onFirst;
+        onFirst = false;
+        int depth = nPairs;
+        while (true) {
+            if (enter) {
+                int a = next[head];
+                remove(a);
+                pairs[2 * i] = a;
+                if (!choose(i, a, next[a])) {
+                    restore(a);
+                    if (--i < 0)
+                        break;
+                    enter = false;
+                    continue;
+                }
+            } else {
+                int b = pairs[2 * i + 1];
+                restore(b);
+                if (!choose(i, pairs[2 * i], next[b])) {
+                    restore(pairs[2 * i]);
+                    if (--i < 0)
+                        break;
+                    continue;
+                }
+            }
+            depth = Math.min(depth, i);
+            if (i == nPairs - 1) {
+                lastUpdatePair = depth;
+                return pairs;
+            }
+            ++i;
+            enter = true;
+        }
+        exhausted = true;
+        return pairs = null;
+    }
+
+    /**
+     * Chooses the partner of {@code a} among unmatched points starting from {@code from} and removes it
+     */
+    private boolean choose(int i, int a, int from) {
+        final int size = 2 * nPairs;
+        for (int b = from; b != head; b = next[b]) {
+            if (allowed != null && !allowed[a * size + b])
+                continue;
+            remove(b);
+            if (allowed == null || feasible()) {
+                pairs[2 * i + 1] = b;
+                return true;
+            }
+            restore(b);
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether each unmatched point has at least one allowed unmatched partner
+     */
+    private boolean feasible() {
+        final int size = 2 * nPairs;
+        OUTER:
+        for (int u = next[head]; u != head; u = next[u]) {
+            for (int v = next[head]; v != head; v = next[v])
+                if (v != u && allowed[u * size + v])
+                    continue OUTER;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sets the state of this port, such that the next invocation of {@link #take()} returns the specified matching
+     *
+     * @param matching matching in the form of flat array of pairs
+     */
+    void setState(int[] matching) {
+        if (matching.length != 2 * nPairs)
+            throw new IllegalArgumentException("Wrong matching length.");
+        initList();
+        if (pairs == null)
+            pairs = new int[2 * nPairs];
+        boolean[] matched = new boolean[2 * nPairs];
+        for (int i = 0; i < matching.length; i += 2) {
+            int a = matching[i], b = matching[i + 1];
+            if (a != next[head] || b <= a || b >= 2 * nPairs || matched[b])
+                throw new IllegalArgumentException("Not a matching in canonical form.");
+            matched[a] = matched[b] = true;
+            remove(a);
+            remove(b);
+        }
+        System.arraycopy(matching, 0, pairs, 0, matching.length);
+        onFirst = false;
+        exhausted = false;
+        pending = true;
+    }
+}
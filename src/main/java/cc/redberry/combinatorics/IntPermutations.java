@@ -23,6 +23,10 @@ package cc.redberry.combinatorics;
  * <p>The iterator is implemented such that each next combination will be calculated only on the invocation of method
  * {@link #next()}.
  *
+ * <p>The sign of the current permutation is maintained incrementally and is available via {@link #getSign()}; the
+ * inverse permutation is maintained incrementally if iterator was created with {@link #IntPermutations(int,
+ * boolean)}. Both are updated in time proportional to the number of elements changed by each step.
+ *
  * <p><b>Note:</b> method {@link #next()} returns the same reference on each invocation.
  *
  * @author Dmitry Bolotin
@@ -30,11 +34,21 @@ package cc.redberry.combinatorics;
  * @since 1.0
  */
 public final class IntPermutations
-        implements CombinatorialIterator<int[]> {
+        implements CombinatorialIterator<int[]>, Cursor {
     private static final long serialVersionUID = 783197504482907083L;
     final int[] permutation;
     private boolean onFirst = true;
     private final int size;
+    /**
+     * start of the longest decreasing suffix of the current permutation (permutation is the last one iff it is 0),
+     * valid only if {@code pivotKnown}
+     */
+    private transient int pivot;
+    private transient boolean pivotKnown = false;
+    /** inverse of the current permutation (null if not tracked) */
+    private final int[] inverse;
+    /** sign of the current permutation */
+    private int sign = 1;
 
     /**
      * Construct iterator over all permutations with specified dimension starting with identity.
@@ -42,10 +56,22 @@ public final class IntPermutations
      * @param dimension dimension of permutations
      */
     public IntPermutations(int dimension) {
+        this(dimension, false);
+    }
+
+    /**
+     * Construct iterator over all permutations with specified dimension starting with identity, which optionally
+     * maintains the inverse of the current permutation.
+     *
+     * @param dimension    dimension of permutations
+     * @param trackInverse whether to maintain the inverse permutation (see {@link #getInverse()})
+     */
+    public IntPermutations(int dimension, boolean trackInverse) {
         permutation = new int[dimension];
         for (int i = 0; i < dimension; ++i)
             permutation[i] = i;
         this.size = dimension;
+        this.inverse = trackInverse ? permutation.clone() : null;
     }
 
     /**
@@ -62,19 +88,29 @@ public final class IntPermutations
     public IntPermutations(int[] permutation) {
         this.permutation = permutation;
         this.size = permutation.length;
-        for (int i = 0; i < size - 1; ++i) {
-            if (permutation[i] >= size || permutation[i] < 0)
-                throw new IllegalArgumentException("Wrong permutation input: image of " + i + " element"
-                        + " greater then degree");
-            for (int j = i + 1; j < size; ++j)
-                if (permutation[i] == permutation[j])
-                    throw new IllegalArgumentException("Wrong permutation input: to elemets have the same image");
-        }
+        if (!Permutations.isPermutation(permutation))
+            throw new IllegalArgumentException("Wrong permutation input: not a permutation in one-line notation.");
+        this.inverse = null;
+        this.sign = Permutations.sign(permutation);
     }
 
     @Override
     public boolean hasNext() {
-        return !isLast() || onFirst;
+        return onFirst || pivot() > 0;
+    }
+
+    /**
+     * Returns the start of the longest decreasing suffix (computed in amortized constant time and cached until the
+     * next step, which uses it as well)
+     */
+    private int pivot() {
+        if (pivotKnown)
+            return pivot;
+        int p = size - 1;
+        while ((p > 0) && (permutation[p] < permutation[p - 1]))
+            p--;
+        pivotKnown = true;
+        return pivot = Math.max(p, 0);
     }
 
     /**
@@ -87,13 +123,6 @@ public final class IntPermutations
         return !isFirst();
     }
 
-    private boolean isLast() {
-        for (int i = 0; i < size; i++)
-            if (permutation[i] != size - 1 - i)
-                return false;
-        return true;
-    }
-
     private boolean isFirst() {
         for (int i = 0; i < size; i++)
             if (permutation[i] != i)
@@ -112,10 +141,31 @@ public final class IntPermutations
             onFirst = false;
             return permutation;
         }
+        step(pivot());
+        return permutation;
+    }
+
+    @Override
+    public boolean advance() {
+        if (onFirst) {
+            onFirst = false;
+            return true;
+        }
+        int p = pivot();
+        if (p == 0)
+            return false;
+        step(p);
+        return true;
+    }
+
+    /**
+     * Moves to the next permutation; p is the start of the longest decreasing suffix
+     */
+    private void step(int p) {
+        pivotKnown = false;
         final int end = size - 1;
-        int p = end, low, high, med, s;
-        while ((p > 0) && (permutation[p] < permutation[p - 1]))
-            p--;
+        update(p);
+        int low, high, med, s;
         if (p > 0) //if p==0 then it's the last one
         {
             s = permutation[p - 1];
@@ -135,6 +185,7 @@ public final class IntPermutations
             permutation[p - 1] = permutation[low];
             permutation[low] = s;
         }
+        final int from = p;
         high = end;
         while (high > p) {
             med = permutation[high];
@@ -143,7 +194,7 @@ public final class IntPermutations
             p++;
             high--;
         }
-        return permutation;
+        updateInverse(from);
     }
 
     /**
@@ -152,10 +203,13 @@ public final class IntPermutations
      * @return the previous element in the iteration
      */
     public int[] previous() {
+        pivotKnown = false;
         int Nm1 = size - 1;
         int p = Nm1, low, high, s, m;
         while ((p > 0) && (permutation[p] > permutation[p - 1]))
             p--;
+        final int from = p;
+        update(p);
         if (p > 0) {
             s = permutation[p - 1];
             if (permutation[Nm1] < s)
@@ -182,14 +236,37 @@ public final class IntPermutations
             p++;
             high--;
         }
+        updateInverse(from);
         return permutation;
     }
 
+    /**
+     * Updates sign before a step which swaps {@code p - 1} with some other position (if p > 0) and then reverses
+     * the suffix starting at p
+     */
+    private void update(int p) {
+        if ((((p > 0 ? 1 : 0) + ((size - p) >> 1)) & 1) != 0)
+            sign = -sign;
+    }
+
+    /**
+     * Updates inverse after a step which changed positions starting from {@code p - 1}
+     */
+    private void updateInverse(int p) {
+        if (inverse != null)
+            for (int i = Math.max(p - 1, 0); i < size; ++i)
+                inverse[permutation[i]] = i;
+    }
+
     @Override
     public void reset() {
         onFirst = true;
+        pivotKnown = false;
         for (int i = 0; i < size; ++i)
             permutation[i] = i;
+        sign = 1;
+        if (inverse != null)
+            Permutations.identity(inverse);
     }
 
     /**
@@ -213,4 +290,78 @@ public final class IntPermutations
     public int[] current() {
         return permutation;
     }
+
+    /**
+     * Returns sign of the current permutation: 1 for even and -1 for odd permutations
+     *
+     * @return sign of the current permutation
+     */
+    public int getSign() {
+        return sign;
+    }
+
+    /**
+     * Returns the reference to the inverse of the current permutation
+     *
+     * @return the reference to the inverse of the current permutation
+     * @throws IllegalStateException if iterator does not track the inverse permutation
+     */
+    public int[] getInverse() {
+        if (inverse == null)
+            throw new IllegalStateException("Inverse permutation is not tracked.");
+        return inverse;
+    }
+
+    /**
+     * Sets the state of this iterator
+     *
+     * @param permutation the current permutation
+     * @param onFirst     whether the specified permutation should be returned by the next invocation of {@link
+     *                    #next()}
+     */
+    void setState(int[] permutation, boolean onFirst) {
+        if (permutation.length != size)
+            throw new IllegalArgumentException("Wrong permutation length.");
+        System.arraycopy(permutation, 0, this.permutation, 0, size);
+        this.onFirst = onFirst;
+        this.pivotKnown = false;
+        this.sign = Permutations.sign(permutation);
+        if (inverse != null)
+            Permutations.inverse(permutation, inverse);
+    }
+
+    void writeState(Checkpoint.Writer writer) {
+        writer.putBoolean(onFirst).putBoolean(inverse != null).putInts(permutation);
+    }
+
+    static IntPermutations readState(Checkpoint.Reader reader) {
+        boolean onFirst = reader.getBoolean(), trackInverse = reader.getBoolean();
+        int[] permutation = reader.getInts();
+        if (!Permutations.isPermutation(permutation))
+            throw new IllegalArgumentException("Malformed checkpoint token.");
+        IntPermutations r = new IntPermutations(permutation.length, trackInverse);
+        r.setState(permutation, onFirst);
+        return r;
+    }
+
+    @Override
+    public byte[] checkpoint() {
+        Checkpoint.Writer writer = new Checkpoint.Writer(Checkpoint.PERMUTATIONS);
+        writeState(writer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Restores the iterator from the token obtained via {@link #checkpoint()}
+     *
+     * @param token checkpoint token
+     * @return iterator which continues the iteration exactly after the last element returned before the checkpoint
+     * @throws IllegalArgumentException if token is malformed or is not a token of this iterator
+     */
+    public static IntPermutations resume(byte[] token) {
+        Checkpoint.Reader reader = new Checkpoint.Reader(token, Checkpoint.PERMUTATIONS);
+        IntPermutations r = readState(reader);
+        reader.end();
+        return r;
+    }
 }
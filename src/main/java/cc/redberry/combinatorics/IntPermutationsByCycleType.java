@@ -0,0 +1,287 @@
+package cc.redberry.combinatorics;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Iterator over all permutations with the specified cycle type (i.e. over the conjugacy class of the symmetric
+ * group). Cycle type is the multiset of lengths of cycles (including fixed points), for example {@code [2, 2, 2]} gives
+ * all fixed-point-free involutions of 6 points and {@code [5]} gives all 5-cycles. Permutations are in one-line
+ * notation.
+ *
+ * <p>Each permutation is built cycle by cycle: each next cycle starts with the smallest point which is not yet used;
+ * the generator chooses the length of this cycle (among remaining lengths in increasing order) and then the ordered
+ * sequence of other points of the cycle (in increasing order). Thus each permutation of the class is produced exactly
+ * once, and the total number of permutations is given by the class size formula n! / &prod; (l<sup>m<sub>l</sub></sup>
+ * m<sub>l</sub>!), where m<sub>l</sub> is the number of cycles of length l. Ranks of permutations in this order are
+ * available via {@link IntCombinatorialSpace#permutationsByCycleType(int...)}.
+ *
+ * <p>Implementation note: unused points are kept in a doubly linked list (dancing links), and only the part of the
+ * permutation starting from the leftmost changed cycle is rewritten on each step.
+ *
+ * <p>Calculation of the next permutation occurs only on the invocation of {@link #take()}.
+ *
+ * <p><b>Note:</b> method {@link #take()} returns the same reference on each invocation.
+ *
+ * @author Stanislav Poslavsky
+ * @see IntPermutations
+ * @since 2.2
+ */
+public final class IntPermutationsByCycleType implements IntCombinatorialPort {
+    private static final long serialVersionUID = 7714593040156873612L;
+    private final int n;
+    /** distinct lengths of cycles in increasing order */
+    private final int[] lengths;
+    /** number of cycles of each distinct length */
+    private final int[] multiplicities;
+    /** number of cycles of each distinct length which are not yet used */
+    private final int[] remaining;
+    /** points in the order of cycle notation */
+    private final int[] sequence;
+    /** position of the start of the cycle which contains each position */
+    private final int[] cycleStart;
+    /** index of length of cycle (for positions which start cycles) */
+    private final int[] lengthIndex;
+    /** linked list of unused points; node n is the head */
+    private final int[] next, previous;
+    private int[] permutation;
+    private boolean onFirst = true;
+    /** whether the current state should be returned by the next take (after {@link #setState(int[])}) */
+    private boolean pending = false;
+    private boolean exhausted = false;
+
+    /**
+     * Creates iterator over all permutations with specified cycle type
+     *
+     * @param cycleType lengths of cycles (in any order, including fixed points)
+     * @throws IllegalArgumentException if some length is not positive
+     */
+    public IntPermutationsByCycleType(int... cycleType) {
+        int[] sorted = cycleType.clone();
+        Arrays.sort(sorted);
+        int n = 0, distinct = 0;
+        for (int i = 0; i < sorted.length; ++i) {
+            if (sorted[i] < 1)
+                throw new IllegalArgumentException("Length of cycle should be positive.");
+            n += sorted[i];
+            if (i == 0 || sorted[i] != sorted[i - 1])
+                ++distinct;
+        }
+        this.n = n;
+        this.lengths = new int[distinct];
+        this.multiplicities = new int[distinct];
+        for (int i = 0, j = -1; i < sorted.length; ++i) {
+            if (i == 0 || sorted[i] != sorted[i - 1])
+                lengths[++j] = sorted[i];
+            ++multiplicities[j];
+        }
+        this.remaining = multiplicities.clone();
+        this.sequence = new int[n];
+        this.cycleStart = new int[n];
+        this.lengthIndex = new int[n];
+        this.next = new int[n + 1];
+        this.previous = new int[n + 1];
+        this.permutation = new int[n];
+        initList();
+    }
+
+    private void initList() {
+        for (int i = 0; i <= n; ++i) {
+            next[i] = i == n ? 0 : i + 1;
+            previous[i] = i == 0 ? n : i - 1;
+        }
+        if (n == 0)
+            next[n] = previous[n] = n;
+    }
+
+    private void remove(int point) {
+        next[previous[point]] = next[point];
+        previous[next[point]] = previous[point];
+    }
+
+    private void restore(int point) {
+        next[previous[point]] = point;
+        previous[next[point]] = point;
+    }
+
+    /**
+     * Returns the degree of permutations
+     */
+    public int getDimension() {
+        return n;
+    }
+
+    /**
+     * Returns the total number of permutations with this cycle type
+     *
+     * @return the total number of permutations with this cycle type
+     */
+    public BigInteger count() {
+        return classSize(lengths, multiplicities);
+    }
+
+    /**
+     * Returns the number of permutations with the specified numbers of cycles of each length
+     */
+    static BigInteger classSize(int[] lengths, int[] multiplicities) {
+        int n = 0;
+        BigInteger denominator = BigInteger.ONE;
+        for (int i = 0; i < lengths.length; ++i) {
+            n += lengths[i] * multiplicities[i];
+            denominator = denominator
+                    .multiply(BigInteger.valueOf(lengths[i]).pow(multiplicities[i]))
+                    .multiply(IntCombinatorialSpace.factorial(multiplicities[i]));
+        }
+        return IntCombinatorialSpace.factorial(n).divide(denominator);
+    }
+
+    @Override
+    public void reset() {
+        initList();
+        System.arraycopy(multiplicities, 0, remaining, 0, remaining.length);
+        onFirst = true;
+        pending = false;
+        exhausted = false;
+        if (permutation == null)
+            permutation = new int[n];
+    }
+
+    @Override
+    public int[] getReference() {
+        return permutation;
+    }
+
+    @Override
+    public int[] take() {
+        if (exhausted)
+            return null;
+        if (pending) {
+            pending = false;
+            return permutation;
+        }
+        if (n == 0) {
+            exhausted = !onFirst;
+            onFirst = false;
+            return exhausted ? (permutation = null) : permutation;
+        }
+        int p = onFirst ? 0 : n - 1;
+        // whether position p is filled for the first time (otherwise its choice is advanced)
+        boolean enter = onFirst;
+        onFirst = false;
+        int depth = n;
+        while (true) {
+            if (enter) {
+                int point = next[n];
+                remove(point);
+                sequence[p] = point;
+                if (p == 0 || p - cycleStart[p - 1] == lengths[lengthIndex[cycleStart[p - 1]]]) {
+                    // start of a new cycle: the smallest unused point and the smallest remaining length
+                    cycleStart[p] = p;
+                    int l = 0;
+                    while (remaining[l] == 0)
+                        ++l;
+                    --remaining[l];
+                    lengthIndex[p] = l;
+                } else
+                    cycleStart[p] = cycleStart[p - 1];
+            } else if (cycleStart[p] == p) {
+                int l = lengthIndex[p];
+                ++remaining[l++];
+                while (l < lengths.length && remaining[l] == 0)
+                    ++l;
+                if (l == lengths.length) {
+                    restore(sequence[p]);
+                    if (--p < 0)
+                        break;
+                    continue;
+                }
+                --remaining[l];
+                lengthIndex[p] = l;
+            } else {
+                int point = sequence[p];
+                restore(point);
+                point = next[point];
+                if (point == n) {
+                    if (--p < 0)
+                        break;
+                    continue;
+                }
+                remove(point);
+                sequence[p] = point;
+            }
+            depth = Math.min(depth, p);
+            if (p == n - 1) {
+                write(cycleStart[depth]);
+                return permutation;
+            }
+            ++p;
+            enter = true;
+        }
+        exhausted = true;
+        return permutation = null;
+    }
+
+    /**
+     * Writes images of points at positions starting from the specified one into the permutation
+     */
+    private void write(int from) {
+        for (int i = from; i < n; ++i) {
+            int start = cycleStart[i];
+            boolean last = i == start + lengths[lengthIndex[start]] - 1;
+            permutation[sequence[i]] = last ? sequence[start] : sequence[i + 1];
+        }
+    }
+
+    /**
+     * Sets the state of this port, such that the next invocation of {@link #take()} returns the specified permutation
+     *
+     * @param permutation permutation with the cycle type of this iterator
+     */
+    void setState(int[] permutation) {
+        if (permutation.length != n)
+            throw new IllegalArgumentException("Wrong permutation length.");
+        initList();
+        System.arraycopy(multiplicities, 0, remaining, 0, remaining.length);
+        if (this.permutation == null)
+            this.permutation = new int[n];
+        boolean[] used = new boolean[n];
+        int p = 0;
+        while (p < n) {
+            int start = next[n];
+            int length = 0;
+            for (int point = start; !used[point]; point = permutation[point]) {
+                if (p + length >= n)
+                    throw new IllegalArgumentException("Not a permutation.");
+                used[point] = true;
+                remove(point);
+                sequence[p + length] = point;
+                cycleStart[p + length] = p;
+                ++length;
+            }
+            int l = Arrays.binarySearch(lengths, length);
+            if (l < 0 || remaining[l] == 0 || permutation[sequence[p + length - 1]] != start)
+                throw new IllegalArgumentException("Permutation has another cycle type.");
+            --remaining[l];
+            lengthIndex[p] = l;
+            p += length;
+        }
+        write(0);
+        onFirst = false;
+        exhausted = false;
+        pending = true;
+    }
+
+    /**
+     * Returns distinct lengths of cycles in increasing order
+     */
+    int[] lengths() {
+        return lengths.clone();
+    }
+
+    /**
+     * Returns numbers of cycles of each distinct length
+     */
+    int[] multiplicities() {
+        return multiplicities.clone();
+    }
+}
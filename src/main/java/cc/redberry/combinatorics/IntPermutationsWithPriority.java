@@ -1,11 +1,16 @@
 package cc.redberry.combinatorics;
 
-import java.util.*;
+import java.util.Arrays;
 
 /**
  * Iterator over all possible permutations of specified that allows to adjust the "niceness" of particular permutations,
  * such they will appear earlier in the iteration if iterator was reset via {@link #reset()}.
  *
+ * <p>Implementation note: learned permutations are kept in an array sorted by priority, so increasing the priority of
+ * a permutation takes O(log m) time (binary search of its new position), where m is the number of learned
+ * permutations. Lookup of learned permutations is performed via primitive hash set keyed by the packed permutation
+ * rank and does not allocate.
+ *
  * @author Dmitry Bolotin
  * @author Stanislav Poslavsky
  * @see IntPermutations
@@ -14,34 +19,40 @@ import java.util.*;
 public final class IntPermutationsWithPriority implements IntCombinatorialPort {
     private static final long serialVersionUID = -8335112838485172963L;
     private final IntPermutations generator;
-    private final List<PermutationPriorityTuple> tuples = new ArrayList<>();
-    private final Set<PermutationPriorityTuple> set = new HashSet<>();
+    private final PermutationSet set;
+    /** learned permutations sorted by priority in descending order */
+    private int[][] permutations = new int[16][];
+    private int[] priorities = new int[16];
+    private int size = 0;
     private int[] last = null;
     private int lastTuplePointer = 0;
 
     public IntPermutationsWithPriority(int dimension) {
-        generator = new IntPermutations(dimension);
+        this(new IntPermutations(dimension));
     }
 
     public IntPermutationsWithPriority(int[] initialPermutation) {
-        generator = new IntPermutations(initialPermutation);
+        this(new IntPermutations(initialPermutation));
+    }
+
+    private IntPermutationsWithPriority(IntPermutations generator) {
+        this.generator = generator;
+        this.set = new PermutationSet(generator.getDimension());
     }
 
     @Override
     public int[] take() {
-        if (lastTuplePointer == tuples.size()) {
-            if (!generator.hasNext())
-                return null;
+        if (lastTuplePointer == size) {
             int[] next;
             do {
                 if (!generator.hasNext())
                     return null;
                 next = generator.next();
-            } while (set.contains(new PermutationPriorityTuple(next)));
+            } while (set.contains(next));
             last = next;
             return next;
         }
-        return tuples.get(lastTuplePointer++).permutation;
+        return permutations[lastTuplePointer++];
     }
 
     /**
@@ -50,17 +61,32 @@ public final class IntPermutationsWithPriority implements IntCombinatorialPort {
     public void nice() {
         if (last == null) {
             int index = lastTuplePointer - 1;
-            int nPriority = ++tuples.get(index).priority;
-            int position = index;
-            while (--position >= 0 && tuples.get(position).priority < nPriority) ;
-            ++position;
-            swap(position, index);
+            int nPriority = ++priorities[index];
+            // the first position with priority less than the new one (priorities are sorted in descending order)
+            int low = 0, high = index;
+            while (low < high) {
+                int med = (low + high) >>> 1;
+                if (priorities[med] < nPriority)
+                    high = med;
+                else
+                    low = med + 1;
+            }
+            swap(low, index);
             return;
         }
-        PermutationPriorityTuple tuple = new PermutationPriorityTuple(last.clone());
-        set.add(tuple);
-        tuples.add(tuple);
+        add(last.clone(), 1);
         ++lastTuplePointer;
+        last = null;
+    }
+
+    private void add(int[] permutation, int priority) {
+        if (size == permutations.length) {
+            permutations = Arrays.copyOf(permutations, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        set.add(permutation);
+        permutations[size] = permutation;
+        priorities[size++] = priority;
     }
 
     @Override
@@ -72,44 +98,56 @@ public final class IntPermutationsWithPriority implements IntCombinatorialPort {
 
     @Override
     public int[] getReference() {
-        return tuples.get(lastTuplePointer - 1).permutation;
+        return last != null ? last : permutations[lastTuplePointer - 1];
     }
 
-    private void swap(int i, int j) {
-        PermutationPriorityTuple permutationPriorityTuple = tuples.get(i);
-        tuples.set(i, tuples.get(j));
-        tuples.set(j, permutationPriorityTuple);
+    /**
+     * {@inheritDoc} The token also contains all learned permutations and their priorities.
+     */
+    @Override
+    public byte[] checkpoint() {
+        Checkpoint.Writer writer = new Checkpoint.Writer(Checkpoint.PERMUTATIONS_WITH_PRIORITY);
+        generator.writeState(writer);
+        writer.putInt(size);
+        for (int i = 0; i < size; ++i)
+            writer.putInts(permutations[i]).putInt(priorities[i]);
+        return writer.putInt(lastTuplePointer)
+                .putBoolean(last != null)
+                .toByteArray();
     }
 
-    private static class PermutationPriorityTuple {
-        final int[] permutation;
-        int priority;
-
-        PermutationPriorityTuple(int[] permutation) {
-            this.permutation = permutation;
-            this.priority = 1;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == null)
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            final PermutationPriorityTuple other = (PermutationPriorityTuple) obj;
-            return Arrays.equals(this.permutation, other.permutation);
-        }
-
-        @Override
-        public int hashCode() {
-            int hash = 3;
-            hash = 89 * hash + Arrays.hashCode(this.permutation);
-            return hash;
+    /**
+     * Restores the port from the token obtained via {@link #checkpoint()}
+     *
+     * @param token checkpoint token
+     * @return port which continues the iteration exactly after the last element taken before the checkpoint
+     * @throws IllegalArgumentException if token is malformed or is not a token of this port
+     */
+    public static IntPermutationsWithPriority resume(byte[] token) {
+        Checkpoint.Reader reader = new Checkpoint.Reader(token, Checkpoint.PERMUTATIONS_WITH_PRIORITY);
+        IntPermutationsWithPriority r = new IntPermutationsWithPriority(IntPermutations.readState(reader));
+        for (int i = reader.getSize(); i > 0; --i) {
+            int[] permutation = reader.getInts(r.generator.getDimension());
+            int priority = reader.getInt();
+            if (priority < 1 || (r.size > 0 && r.priorities[r.size - 1] < priority) || r.set.contains(permutation))
+                throw new IllegalArgumentException("Malformed checkpoint token.");
+            r.add(permutation, priority);
         }
+        r.lastTuplePointer = reader.getInt();
+        if (r.lastTuplePointer < 0 || r.lastTuplePointer > r.size)
+            throw new IllegalArgumentException("Malformed checkpoint token.");
+        if (reader.getBoolean())
+            r.last = r.generator.current();
+        reader.end();
+        return r;
+    }
 
-        @Override
-        public String toString() {
-            return Arrays.toString(permutation) + " : " + priority;
-        }
+    private void swap(int i, int j) {
+        int[] permutation = permutations[i];
+        permutations[i] = permutations[j];
+        permutations[j] = permutation;
+        int priority = priorities[i];
+        priorities[i] = priorities[j];
+        priorities[j] = priority;
     }
 }
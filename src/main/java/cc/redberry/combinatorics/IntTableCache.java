@@ -0,0 +1,314 @@
+package cc.redberry.combinatorics;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide cache of precomputed enumerations of small dimensions. When the cache is enabled (via {@link
+ * #enable(long)}), factory methods {@link Combinatorics#permutations(int)} and {@link Combinatorics#combinations(int,
+ * int)} return iterators which read elements directly from the shared table, instead of calculating each next element.
+ *
+ * <p>Each table is stored flattened, one byte per number. Only enumerations with at most {@value #MAX_ROWS} elements
+ * and numbers below 256 are cached. The total size of tables is bounded: tables larger than the bound are never
+ * computed (the factory methods fall back to ordinary iterators), and when the bound is exceeded, the least recently
+ * used tables are evicted.
+ *
+ * <p>The cache is thread-safe; the tables are immutable and shared by all iterators. Lookups of cached tables are
+ * lock-free: a hit only reads the concurrent map, increments a striped counter and stamps the table with the current
+ * epoch (which advances on each insertion), so recency is tracked with the granularity of insertions and all LRU
+ * bookkeeping is done by insertions under the lock.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+public final class IntTableCache {
+    private IntTableCache() {}
+
+    /** Maximal number of rows in a cached table */
+    public static final int MAX_ROWS = 1 << 20;
+    private static final int MAX_NUMBER = 1 << 8;
+
+    private static final byte PERMUTATIONS = 0, COMBINATIONS = 1;
+
+    private static final ConcurrentHashMap<Key, Entry> tables = new ConcurrentHashMap<>();
+    /** guards insertions, evictions and changes of configuration */
+    private static final Object lock = new Object();
+    private static volatile boolean enabled = false;
+    private static volatile long maxBytes = 0, bytes = 0;
+    /** incremented on each insertion; entries are stamped with the epoch of their last use */
+    private static volatile long epoch = 0;
+    private static final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+    /**
+     * Enables caching with the specified bound on the total size of cached tables.
+     *
+     * @param maxBytes bound on the total size of cached tables in bytes
+     */
+    public static void enable(long maxBytes) {
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("Non-positive cache size.");
+        synchronized (lock) {
+            IntTableCache.maxBytes = maxBytes;
+            evict();
+            enabled = true;
+        }
+    }
+
+    /**
+     * Disables caching and clears the cache (iterators created from the cache remain valid).
+     */
+    public static void disable() {
+        synchronized (lock) {
+            enabled = false;
+            clear();
+        }
+    }
+
+    /**
+     * Returns whether caching is enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Removes all tables from the cache and resets statistics
+     */
+    public static void clear() {
+        synchronized (lock) {
+            tables.clear();
+            bytes = 0;
+            hits.reset();
+            misses.reset();
+            evictions.reset();
+        }
+    }
+
+    /**
+     * Returns the number of requests served from the cache
+     */
+    public static long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of requests of cacheable enumerations which were not found in the cache
+     */
+    public static long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of tables evicted from the cache
+     */
+    public static long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the total size of the cached tables in bytes
+     */
+    public static long sizeInBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns iterator over all permutations of the specified dimension backed by the shared table, or {@code null} if
+     * caching is disabled or permutations of this dimension are too many to be cached
+     */
+    static CombinatorialIterator<int[]> permutations(int n) {
+        // 9! < MAX_ROWS < 10!
+        if (!enabled || n > 9)
+            return null;
+        return iterator(new Key(PERMUTATIONS, n, n));
+    }
+
+    /**
+     * Returns iterator over all k-combinations from {@code n} backed by the shared table, or {@code null} if caching is
+     * disabled or combinations are too many to be cached
+     */
+    static CombinatorialIterator<int[]> combinations(int n, int k) {
+        if (!enabled || n > MAX_NUMBER || binomialExceeds(n, k, MAX_ROWS))
+            return null;
+        return iterator(new Key(COMBINATIONS, n, k));
+    }
+
+    private static boolean binomialExceeds(int n, int k, long max) {
+        k = Math.min(k, n - k);
+        long r = 1;
+        for (int i = 1; i <= k; ++i) {
+            // r * (n - k + i) / i is exact and r <= max < 2^21, so no overflow
+            r = r * (n - k + i) / i;
+            if (r > max)
+                return true;
+        }
+        return false;
+    }
+
+    private static CombinatorialIterator<int[]> iterator(Key key) {
+        Entry entry = tables.get(key);
+        if (entry != null) {
+            hits.increment();
+            long epoch = IntTableCache.epoch;
+            if (entry.lastUsed != epoch)
+                entry.lastUsed = epoch;
+            return new CachedIterator(key, entry.table);
+        }
+        // tables which cannot be stored are not computed at all
+        if (count(key) * key.k > maxBytes)
+            return null;
+        misses.increment();
+        // computed outside the lock; concurrent misses on the same key compute the same table
+        byte[] table = compute(key);
+        synchronized (lock) {
+            if (enabled && table.length <= maxBytes) {
+                Entry previous = tables.put(key, new Entry(table, ++epoch));
+                if (previous != null)
+                    bytes -= previous.table.length;
+                bytes += table.length;
+                evict();
+            }
+        }
+        return new CachedIterator(key, table);
+    }
+
+    /**
+     * Evicts the least recently used tables until the total size is within the bound (should be invoked under the
+     * lock)
+     */
+    private static void evict() {
+        while (bytes > maxBytes && !tables.isEmpty()) {
+            Map.Entry<Key, Entry> eldest = null;
+            for (Map.Entry<Key, Entry> e : tables.entrySet())
+                if (eldest == null || e.getValue().lastUsed < eldest.getValue().lastUsed)
+                    eldest = e;
+            tables.remove(eldest.getKey());
+            bytes -= eldest.getValue().table.length;
+            evictions.increment();
+        }
+    }
+
+    private static byte[] compute(Key key) {
+        CombinatorialIterator<int[]> it = key.kind == PERMUTATIONS
+                ? new IntPermutations(key.n)
+                : new IntCombinations(key.n, key.k);
+        byte[] table = new byte[Math.toIntExact(count(key) * key.k)];
+        int position = 0;
+        while (it.hasNext())
+            for (int e : it.next())
+                table[position++] = (byte) e;
+        return table;
+    }
+
+    private static long count(Key key) {
+        long r = 1;
+        if (key.kind == PERMUTATIONS)
+            for (int i = 2; i <= key.n; ++i)
+                r *= i;
+        else
+            for (int i = 1; i <= key.k; ++i)
+                r = r * (key.n - key.k + i) / i;
+        return r;
+    }
+
+    private static final class Entry {
+        final byte[] table;
+        /** epoch of the last use (written without synchronization, so it is only a hint for eviction) */
+        volatile long lastUsed;
+
+        Entry(byte[] table, long lastUsed) {
+            this.table = table;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private static final class Key implements Serializable {
+        private static final long serialVersionUID = -1961734651220377394L;
+        final byte kind;
+        final int n, k;
+
+        Key(byte kind, int n, int k) {
+            this.kind = kind;
+            this.n = n;
+            this.k = k;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return kind == key.kind && n == key.n && k == key.k;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * kind + n) + k;
+        }
+    }
+
+    private static final class CachedIterator extends IntCombinatorialIterator implements Cursor {
+        private static final long serialVersionUID = 6250880616744383129L;
+        private final Key key;
+        private final byte[] table;
+        private final int[] current;
+        private int position = 0;
+
+        CachedIterator(Key key, byte[] table) {
+            this.key = key;
+            this.table = table;
+            this.current = new int[key.k];
+            for (int i = 0; i < key.k; ++i)
+                current[i] = i;
+        }
+
+        @Override
+        public void reset() {
+            position = 0;
+            for (int i = 0; i < current.length; ++i)
+                current[i] = i;
+        }
+
+        @Override
+        public int[] current() {
+            return current;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < table.length || (position == 0 && current.length == 0);
+        }
+
+        @Override
+        public int[] next() {
+            if (current.length == 0)
+                // single empty element
+                position = 1;
+            for (int i = 0; i < current.length; ++i)
+                current[i] = table[position++] & 0xFF;
+            return current;
+        }
+
+        @Override
+        public boolean advance() {
+            if (!hasNext())
+                return false;
+            next();
+            return true;
+        }
+
+        @Override
+        public byte[] checkpoint() {
+            if (key.kind == PERMUTATIONS) {
+                IntPermutations it = new IntPermutations(key.n);
+                it.setState(current, position == 0);
+                return it.checkpoint();
+            }
+            IntCombinations it = new IntCombinations(key.n, key.k);
+            it.setState(current, position == 0);
+            return it.checkpoint();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package cc.redberry.combinatorics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary file with a precomputed enumeration stored as a table of fixed-width rows, and memory-mapped random-access
+ * reader of such files.
+ *
+ * <p>The table is written once via {@link #write(Path, CombinatorialIterator, int)} and then can be opened via {@link
+ * #open(Path)} by any number of processes: the file is mapped into memory (read-only), so all readers share the same
+ * page-cached data, and access to row {@code i} does not involve any copying.
+ *
+ * <p>Example
+ * <code><pre>
+ * IntTableFile.write(path, Combinatorics.permutations(10), 10);
+ * try (IntTableFile table = IntTableFile.open(path)) {
+ *     int[] permutation = table.get(123456, new int[table.width()]);
+ * }
+ * </pre></code>
+ *
+ * <p>File layout: header of {@value #HEADER_SIZE} bytes (magic, format version, element width, row width, number of
+ * rows, bound of elements) followed by rows of {@code width} elements each. Each element is packed into 1, 2 or 4
+ * bytes (see {@link ElementWidth}) depending on the bound of elements specified on writing. All numbers are in
+ * little-endian byte order.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+public final class IntTableFile implements Closeable {
+    /** Size of the file header in bytes */
+    public static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x54434252; // "RBCT"
+    private static final byte VERSION = 1;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ElementWidth elementWidth;
+    private final int width, bound, rowBytes;
+    private final long size, rowsPerChunk;
+    private final ByteBuffer[] chunks;
+
+    private IntTableFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+        while (header.hasRemaining())
+            if (channel.read(header, header.position()) < 0)
+                throw new IOException("Not a table file: header is truncated.");
+        if (header.getInt(0) != MAGIC)
+            throw new IOException("Not a table file: wrong magic.");
+        if (header.get(4) != VERSION)
+            throw new IOException("Unsupported table file version: " + header.get(4));
+        if (header.get(5) < 0 || header.get(5) >= ElementWidth.values().length)
+            throw new IOException("Not a table file: wrong element width.");
+        this.elementWidth = ElementWidth.values()[header.get(5)];
+        this.width = header.getInt(8);
+        this.size = header.getLong(12);
+        this.bound = header.getInt(20);
+        this.rowBytes = width * elementWidth.bytes;
+        if (channel.size() != HEADER_SIZE + size * rowBytes)
+            throw new IOException("Table file is truncated.");
+
+        this.rowsPerChunk = rowBytes == 0 ? Math.max(size, 1) : Integer.MAX_VALUE / rowBytes;
+        int nChunks = (int) ((size + rowsPerChunk - 1) / rowsPerChunk);
+        this.chunks = new ByteBuffer[nChunks];
+        for (int i = 0; i < nChunks; ++i) {
+            long rows = Math.min(rowsPerChunk, size - i * rowsPerChunk);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + i * rowsPerChunk * rowBytes,
+                    rows * rowBytes).order(ORDER);
+        }
+    }
+
+    /**
+     * Opens table file and maps it into memory
+     *
+     * @param file the file
+     * @return random-access reader of the table
+     * @throws IOException if an I/O error occurs or file is not a table file
+     */
+    public static IntTableFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new IntTableFile(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes all remaining elements of the iterator into the specified file. All elements should have the same length,
+     * and all numbers should be in the range {@code [0, bound)}.
+     *
+     * @param file     the file (will be overwritten if exists)
+     * @param iterator iterator
+     * @param bound    exclusive upper bound of all numbers in the enumeration (e.g. {@code n} for permutations or
+     *                 combinations from {@code n}), which defines the packing of elements
+     * @return number of written rows
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if elements have different lengths or some number is out of range
+     */
+    public static long write(Path file, CombinatorialIterator<int[]> iterator, int bound) throws IOException {
+        if (bound < 0)
+            throw new IllegalArgumentException("Negative bound.");
+        ElementWidth elementWidth = ElementWidth.forBound(bound);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ORDER);
+            channel.position(HEADER_SIZE);
+            long size = 0;
+            int width = -1;
+            while (iterator.hasNext()) {
+                int[] row = iterator.next();
+                if (width == -1) {
+                    width = row.length;
+                    if ((long) width * elementWidth.bytes > WRITE_BUFFER_SIZE)
+                        buffer = ByteBuffer.allocateDirect(width * elementWidth.bytes).order(ORDER);
+                } else if (row.length != width)
+                    throw new IllegalArgumentException("Elements have different lengths.");
+                if (buffer.remaining() < width * elementWidth.bytes)
+                    flush(channel, buffer);
+                for (int e : row) {
+                    if (e < 0 || e >= bound)
+                        throw new IllegalArgumentException("Element is out of bound: " + e);
+                    elementWidth.put(buffer, e);
+                }
+                ++size;
+            }
+            flush(channel, buffer);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+            header.putInt(0, MAGIC)
+                    .put(4, VERSION)
+                    .put(5, (byte) elementWidth.ordinal())
+                    .putInt(8, Math.max(width, 0))
+                    .putLong(12, size)
+                    .putInt(20, bound);
+            while (header.hasRemaining())
+                channel.write(header, header.position());
+            return size;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Returns the number of rows in the table
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the length of each row
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns the exclusive upper bound of numbers specified on writing
+     */
+    public int bound() {
+        return bound;
+    }
+
+    /**
+     * Returns the packing of elements
+     */
+    public ElementWidth elementWidth() {
+        return elementWidth;
+    }
+
+    private void checkRow(long row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    }
+
+    /**
+     * Returns the specified element of the specified row
+     *
+     * @param row    row index
+     * @param column position in the row
+     * @return the element
+     */
+    public int get(long row, int column) {
+        checkRow(row);
+        if (column < 0 || column >= width)
+            throw new IndexOutOfBoundsException("Column " + column + " of " + width);
+        return elementWidth.get(chunks[(int) (row / rowsPerChunk)],
+                (int) (row % rowsPerChunk) * rowBytes + column * elementWidth.bytes);
+    }
+
+    /**
+     * Reads the specified row into the specified array
+     *
+     * @param row    row index
+     * @param result array of length at least {@link #width()}
+     * @return {@code result}
+     */
+    public int[] get(long row, int[] result) {
+        checkRow(row);
+        ByteBuffer chunk = chunks[(int) (row / rowsPerChunk)];
+        int position = (int) (row % rowsPerChunk) * rowBytes;
+        for (int i = 0; i < width; ++i, position += elementWidth.bytes)
+            result[i] = elementWidth.get(chunk, position);
+        return result;
+    }
+
+    /**
+     * Returns read-only view of the raw bytes of the specified row (without copying)
+     *
+     * @param row row index
+     * @return read-only view of the raw bytes of the specified row
+     */
+    public ByteBuffer row(long row) {
+        checkRow(row);
+        ByteBuffer view = chunks[(int) (row / rowsPerChunk)].asReadOnlyBuffer();
+        int position = (int) (row % rowsPerChunk) * rowBytes;
+        view.limit(position + rowBytes).position(position);
+        return view.slice().order(ORDER);
+    }
+
+    /**
+     * Returns iterator over all rows of the table
+     *
+     * <p><b>Note:</b> method {@link CombinatorialIterator#next()} of the returned iterator returns the same reference on
+     * each invocation.
+     *
+     * @return iterator over all rows of the table
+     */
+    public CombinatorialIterator<int[]> iterator() {
+        return new RowIterator(this);
+    }
+
+    /**
+     * Closes the underlying channel. The mapping remains valid until the reader is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Iterator over rows of the table. It is not serializable, since it reads rows from the mapped file.
+     */
+    private static final class RowIterator extends IntCombinatorialIterator {
+        private static final long serialVersionUID = 8352067187043160652L;
+        private final IntTableFile table;
+        private final int[] current;
+        private long next = 0;
+
+        RowIterator(IntTableFile table) {
+            this.table = table;
+            this.current = new int[table.width];
+        }
+
+        @Override
+        public void reset() {
+            next = 0;
+        }
+
+        @Override
+        public int[] current() {
+            return current;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < table.size;
+        }
+
+        @Override
+        public int[] next() {
+            return table.get(next++, current);
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            throw new NotSerializableException("Iterator over rows of mapped table is not serializable.");
+        }
+    }
+}
@@ -35,6 +35,7 @@ public final class IntTuples implements IntCombinatorialPort {
     private final int[] upperBounds;
     private int[] current;
     private int lastUpdateDepth = -1;
+    private boolean exhausted = false;
 
     public IntTuples(final int... upperBounds) {
         checkWithException(upperBounds);
@@ -51,6 +52,8 @@ public final class IntTuples implements IntCombinatorialPort {
 
     @Override
     public int[] take() {
+        if (exhausted)
+            return null;
         int pointer = upperBounds.length - 1;
         boolean next = false;
         ++current[pointer];
@@ -70,11 +73,54 @@ public final class IntTuples implements IntCombinatorialPort {
             lastUpdateDepth = pointer;
         else
             lastUpdateDepth = 0;
-        if (next)
+        if (next) {
+            exhausted = true;
             return null;
+        }
         return current;
     }
 
+    /**
+     * Returns length of elements
+     */
+    int length() {
+        return upperBounds.length;
+    }
+
+    /**
+     * Calculates next {@code rows} tuples and writes them into the flat buffer row by row (tuple {@code r} occupies
+     * positions {@code [r * N, (r + 1) * N)} of the buffer). The state of the port is the same as after {@code rows}
+     * invocations of {@link #take()}. On Java 17+ with enabled module {@code jdk.incubator.vector} the rows are
+     * generated with SIMD kernels.
+     *
+     * @param buffer buffer of length at least {@code rows * N}
+     * @param rows   number of tuples
+     * @return number of written tuples (less than {@code rows} only if there are no more tuples)
+     * @throws IllegalArgumentException if rows is negative or the buffer is too small
+     */
+    public int take(int[] buffer, int rows) {
+        final int width = upperBounds.length, last = width - 1;
+        if (rows < 0)
+            throw new IllegalArgumentException("Negative number of rows.");
+        if (buffer.length < (long) rows * width)
+            throw new IllegalArgumentException("Buffer is too small.");
+        int written = 0;
+        while (written < rows) {
+            int[] first = take();
+            if (first == null)
+                break;
+            // rows which differ from the first one only in the last element
+            int run = Math.min(rows - written, upperBounds[last] - first[last]);
+            BatchKernels.tuplesRun(first, width, buffer, written * width, run);
+            if (run > 1) {
+                current[last] += run - 1;
+                lastUpdateDepth = last;
+            }
+            written += run;
+        }
+        return written;
+    }
+
     public int getLastUpdateDepth() {
         return lastUpdateDepth;
     }
@@ -83,6 +129,7 @@ public final class IntTuples implements IntCombinatorialPort {
      * Resets the iteration
      */
     public void reset() {
+        exhausted = false;
         Arrays.fill(current, 0);
         current[upperBounds.length - 1] = -1;
     }
@@ -91,4 +138,46 @@ public final class IntTuples implements IntCombinatorialPort {
     public int[] getReference() {
         return current;
     }
+
+    /**
+     * Sets the state of this port, such that the specified tuple will be returned by the next invocation of {@link
+     * #take()}
+     */
+    void setState(int[] tuple) {
+        if (tuple.length != upperBounds.length)
+            throw new IllegalArgumentException("Wrong tuple length.");
+        System.arraycopy(tuple, 0, current, 0, tuple.length);
+        --current[tuple.length - 1];
+        lastUpdateDepth = -1;
+        exhausted = false;
+    }
+
+    @Override
+    public byte[] checkpoint() {
+        return new Checkpoint.Writer(Checkpoint.TUPLES)
+                .putInts(upperBounds)
+                .putInts(current)
+                .putInt(exhausted ? -2 : lastUpdateDepth)
+                .toByteArray();
+    }
+
+    /**
+     * Restores the port from the token obtained via {@link #checkpoint()}
+     *
+     * @param token checkpoint token
+     * @return port which continues the iteration exactly after the last element taken before the checkpoint
+     * @throws IllegalArgumentException if token is malformed or is not a token of this port
+     */
+    public static IntTuples resume(byte[] token) {
+        Checkpoint.Reader reader = new Checkpoint.Reader(token, Checkpoint.TUPLES);
+        IntTuples r = new IntTuples(reader.getInts());
+        r.current = reader.getInts(r.upperBounds.length);
+        r.lastUpdateDepth = reader.getInt();
+        if (r.lastUpdateDepth == -2) {
+            r.exhausted = true;
+            r.lastUpdateDepth = -1;
+        }
+        reader.end();
+        return r;
+    }
 }
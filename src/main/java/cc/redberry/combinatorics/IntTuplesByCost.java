@@ -0,0 +1,101 @@
+package cc.redberry.combinatorics;
+
+import java.util.Arrays;
+
+/**
+ * Iterator over all N-tuples of the form [x<sub>0</sub>, ..., x<sub>N-1</sub>], 0 &lt;= x<sub>i</sub> &lt;
+ * K<sub>i</sub> (the same as {@link IntTuples}) in the order of increasing cost {@code costs[0][x_0] + ... +
+ * costs[N-1][x_(N-1)]}; tuples with equal costs are returned in unspecified order.
+ *
+ * <p>Implementation note: values of each position are sorted by cost, and each tuple is represented by the ranks of
+ * its values. The parent of a tuple is obtained by decreasing its first non-zero rank, and the children of a tuple
+ * with the first non-zero rank at position {@code j} are obtained by increasing one of the ranks at positions {@code 0,
+ * ..., j}, so the best-first search from the tuple of cheapest values never generates duplicates. Elements are
+ * generated lazily; the priority queue contains at most {@code N} elements per each returned tuple.
+ *
+ * <p><b>Note:</b> method {@link #take()} returns the same reference on each invocation.
+ *
+ * @author Stanislav Poslavsky
+ * @see IntTuples
+ * @see IntCombinationsByCost
+ * @since 2.2
+ */
+public final class IntTuplesByCost extends BestFirstPort {
+    private static final long serialVersionUID = 1924068214775206132L;
+    /** values of each position in the order of increasing cost */
+    private final int[][] orders;
+    /** costs of values of each position in the order of increasing cost */
+    private final double[][] sortedCosts;
+
+    /**
+     * Creates iterator over tuples with specified costs of values: {@code costs[i].length} is the number of values at
+     * position {@code i} and {@code costs[i][x]} is the cost of value {@code x} at position {@code i}
+     *
+     * @param costs costs of values at each position
+     * @throws IllegalArgumentException if some cost is NaN
+     */
+    public IntTuplesByCost(double[]... costs) {
+        super(costs.length);
+        this.orders = new int[costs.length][];
+        this.sortedCosts = new double[costs.length][];
+        for (int i = 0; i < costs.length; ++i) {
+            orders[i] = sortedIndices(costs[i]);
+            sortedCosts[i] = new double[costs[i].length];
+            for (int r = 0; r < orders[i].length; ++r)
+                sortedCosts[i][r] = costs[i][orders[i][r]];
+        }
+    }
+
+    /**
+     * Returns indices of array sorted by the values of array (stable)
+     */
+    static int[] sortedIndices(double[] values) {
+        Integer[] order = new Integer[values.length];
+        for (int i = 0; i < values.length; ++i) {
+            if (Double.isNaN(values[i]))
+                throw new IllegalArgumentException("NaN cost.");
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        int[] r = new int[values.length];
+        for (int i = 0; i < values.length; ++i)
+            r[i] = order[i];
+        return r;
+    }
+
+    @Override
+    int[] root() {
+        for (int[] order : orders)
+            if (order.length == 0)
+                return null;
+        return new int[orders.length];
+    }
+
+    @Override
+    void children(Node node) {
+        final int[] ranks = node.ranks;
+        int first = 0;
+        while (first < ranks.length && ranks[first] == 0)
+            ++first;
+        for (int m = 0; m <= first && m < ranks.length; ++m)
+            if (ranks[m] + 1 < orders[m].length) {
+                int[] child = ranks.clone();
+                ++child[m];
+                push(child);
+            }
+    }
+
+    @Override
+    double cost(int[] ranks) {
+        double cost = 0;
+        for (int i = 0; i < ranks.length; ++i)
+            cost += sortedCosts[i][ranks[i]];
+        return cost;
+    }
+
+    @Override
+    void write(int[] ranks) {
+        for (int i = 0; i < ranks.length; ++i)
+            element[i] = orders[i][ranks[i]];
+    }
+}
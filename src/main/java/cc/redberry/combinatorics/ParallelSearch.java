@@ -0,0 +1,333 @@
+package cc.redberry.combinatorics;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Parallel short-circuit search of element satisfying a predicate in a combinatorial space. The space is split into
+ * contiguous ranges of ranks, which are processed by several workers in the order of increasing ranks.
+ *
+ * <p>In the default ("find any") mode all workers are cancelled as soon as some worker finds a matching element. In
+ * the {@link #lexicographicallyFirst()} mode the search returns the matching element with the smallest rank: when a
+ * hit is found, only ranges above it are cancelled, while ranges below it are searched until completion.
+ *
+ * <p>The search may be limited by wall-clock time ({@link #timeout(long, TimeUnit)}) and by the total number of
+ * tested elements ({@link #maxElements(long)}); cancellation and limits are checked every {@value #CHECK_INTERVAL}
+ * elements.
+ *
+ * <p>Example:
+ * <code><pre>
+ * ParallelSearch.Result r = new ParallelSearch()
+ *         .lexicographicallyFirst()
+ *         .timeout(10, TimeUnit.SECONDS)
+ *         .search(IntCombinatorialSpace.permutations(12), p -&gt; isGood(p));
+ * if (r.getStatus() == ParallelSearch.Status.FOUND)
+ *     System.out.println(Arrays.toString(r.getElement()));
+ * </pre></code>
+ *
+ * @author Stanislav Poslavsky
+ * @see IntCombinatorialSpace
+ * @see Combinatorics#search(IntCombinatorialSpace, Predicate)
+ * @since 2.2
+ */
+public final class ParallelSearch {
+    /** number of elements between checks of cancellation and limits */
+    static final int CHECK_INTERVAL = 1024;
+    /** number of ranges per worker */
+    private static final int RANGES_PER_WORKER = 64;
+
+    /**
+     * Outcome of the search
+     */
+    public enum Status {
+        /** matching element is found (and it is the first one in the lexicographically first mode) */
+        FOUND,
+        /** the whole space was searched and there are no matching elements */
+        NOT_FOUND,
+        /** the search was stopped by timeout */
+        TIMEOUT,
+        /** the search was stopped because the maximal number of elements was tested */
+        BUDGET_EXHAUSTED
+    }
+
+    /**
+     * Result of the search
+     */
+    public static final class Result {
+        private final Status status;
+        private final int[] element;
+        private final BigInteger rank;
+        private final long examined;
+
+        Result(Status status, int[] element, BigInteger rank, long examined) {
+            this.status = status;
+            this.element = element;
+            this.rank = rank;
+            this.examined = examined;
+        }
+
+        /**
+         * Returns the outcome of the search
+         */
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns the found element or null. If the search was stopped by a limit in the lexicographically first mode,
+         * this is the best element found so far (which is not necessarily the first one).
+         */
+        public int[] getElement() {
+            return element == null ? null : element.clone();
+        }
+
+        /**
+         * Returns the rank of the found element or null
+         */
+        public BigInteger getRank() {
+            return rank;
+        }
+
+        /**
+         * Returns the number of tested elements
+         */
+        public long getExamined() {
+            return examined;
+        }
+
+        @Override
+        public String toString() {
+            return status + (element == null ? "" : " " + Arrays.toString(element) + " at " + rank)
+                    + " (" + examined + " examined)";
+        }
+    }
+
+    private Executor executor = ForkJoinPool.commonPool();
+    private int parallelism = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+    private long timeoutNanos = -1;
+    private long maxElements = Long.MAX_VALUE;
+    private boolean first = false;
+
+    /**
+     * Creates search which runs in the common fork-join pool without limits in the "find any" mode
+     */
+    public ParallelSearch() {}
+
+    /**
+     * Sets the executor and the number of workers
+     *
+     * @param executor    executor for workers (one of the workers is always run in the calling thread)
+     * @param parallelism number of workers
+     * @return this
+     */
+    public ParallelSearch executor(Executor executor, int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism should be positive.");
+        this.executor = executor;
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the wall-clock time limit
+     *
+     * @param timeout timeout
+     * @param unit    time unit
+     * @return this
+     */
+    public ParallelSearch timeout(long timeout, TimeUnit unit) {
+        if (timeout < 0)
+            throw new IllegalArgumentException("Negative timeout.");
+        this.timeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * Sets the maximal number of elements to be tested
+     *
+     * @param maxElements maximal number of elements
+     * @return this
+     */
+    public ParallelSearch maxElements(long maxElements) {
+        if (maxElements < 0)
+            throw new IllegalArgumentException("Negative number of elements.");
+        this.maxElements = maxElements;
+        return this;
+    }
+
+    /**
+     * Switches to the mode which finds the matching element with the smallest rank
+     *
+     * @return this
+     */
+    public ParallelSearch lexicographicallyFirst() {
+        this.first = true;
+        return this;
+    }
+
+    /**
+     * Searches for element satisfying the predicate. The predicate is invoked concurrently from several threads and
+     * receives arrays which may be reused by the underlying iterators, so it should neither modify nor store them.
+     *
+     * @param space     space
+     * @param predicate predicate
+     * @return search result
+     */
+    public Result search(IntCombinatorialSpace space, Predicate<int[]> predicate) {
+        return new Task(space, predicate).run();
+    }
+
+    private final class Task {
+        final IntCombinatorialSpace space;
+        final Predicate<int[]> predicate;
+        final int nRanges;
+        final boolean timed = timeoutNanos >= 0;
+        final long deadline = System.nanoTime() + timeoutNanos;
+        final AtomicInteger nextRange = new AtomicInteger();
+        final AtomicLong budget = new AtomicLong(maxElements);
+        final LongAdder examined = new LongAdder();
+        volatile boolean stopped = false;
+        volatile Status stopReason = null;
+        volatile Throwable error = null;
+        /** the best hit: range and index within range */
+        volatile int bestRange = Integer.MAX_VALUE;
+        long bestIndex = Long.MAX_VALUE;
+        int[] bestElement = null;
+
+        Task(IntCombinatorialSpace space, Predicate<int[]> predicate) {
+            this.space = space;
+            this.predicate = predicate;
+            BigInteger count = space.count();
+            BigInteger maxRanges = BigInteger.valueOf((long) parallelism * RANGES_PER_WORKER);
+            this.nRanges = count.min(maxRanges).intValue();
+        }
+
+        Result run() {
+            int nWorkers = Math.min(parallelism, Math.max(1, nRanges));
+            CountDownLatch latch = new CountDownLatch(nWorkers - 1);
+            for (int i = 1; i < nWorkers; ++i)
+                executor.execute(() -> {
+                    try {
+                        work();
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            work();
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                stopped = true;
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted.", e);
+            }
+            if (error instanceof RuntimeException)
+                throw (RuntimeException) error;
+            if (error instanceof Error)
+                throw (Error) error;
+
+            synchronized (this) {
+                BigInteger rank = bestElement == null ? null
+                        : space.shardStart(bestRange, nRanges).add(BigInteger.valueOf(bestIndex));
+                Status status;
+                if (stopReason != null && (first || bestElement == null))
+                    status = stopReason;
+                else
+                    status = bestElement == null ? Status.NOT_FOUND : Status.FOUND;
+                return new Result(status, bestElement, rank, examined.sum());
+            }
+        }
+
+        private void stop(Status reason) {
+            if (stopReason == null)
+                stopReason = reason;
+            stopped = true;
+        }
+
+        private synchronized void offer(int range, long index, int[] element) {
+            if (range < bestRange || (range == bestRange && index < bestIndex)) {
+                bestIndex = index;
+                bestElement = element.clone();
+                bestRange = range;
+            }
+            if (!first)
+                stopped = true;
+        }
+
+        /**
+         * Reserves the next portion of elements from the budget
+         */
+        private long reserve() {
+            long current, take;
+            do {
+                current = budget.get();
+                take = Math.min(current, CHECK_INTERVAL);
+                if (take == 0)
+                    return 0;
+            } while (!budget.compareAndSet(current, current - take));
+            return take;
+        }
+
+        private void work() {
+            try {
+                int range;
+                while (!stopped && (range = nextRange.getAndIncrement()) < nRanges) {
+                    // ranges are taken in increasing order, so all remaining ranges are above the best hit
+                    if (range > bestRange)
+                        return;
+                    if (!searchRange(range))
+                        return;
+                }
+            } catch (Throwable e) {
+                synchronized (this) {
+                    if (error == null)
+                        error = e;
+                }
+                stopped = true;
+            }
+        }
+
+        /**
+         * Returns false if the search should be stopped
+         */
+        private boolean searchRange(int range) {
+            CombinatorialIterator<int[]> it = space.shard(range, nRanges);
+            long index = 0, allowance = 0;
+            try {
+                while (it.hasNext()) {
+                    if (allowance == 0) {
+                        if (stopped || range > bestRange)
+                            return false;
+                        if (timed && System.nanoTime() - deadline > 0) {
+                            stop(Status.TIMEOUT);
+                            return false;
+                        }
+                        if ((allowance = reserve()) == 0) {
+                            stop(Status.BUDGET_EXHAUSTED);
+                            return false;
+                        }
+                    }
+                    --allowance;
+                    int[] element = it.next();
+                    ++index;
+                    if (predicate.test(element)) {
+                        offer(range, index - 1, element);
+                        return first;
+                    }
+                }
+                return true;
+            } finally {
+                examined.add(index);
+                budget.addAndGet(allowance);
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package cc.redberry.combinatorics;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Permutation group defined by its generators. On construction the stabilizer chain with respect to the base {@code
+ * [0, 1, ..., degree - 1]} is computed via the deterministic Schreier-Sims algorithm, which gives the group order and
+ * orbits of the pointwise stabilizers.
+ *
+ * <p>Permutations are in one-line notation; the product of permutations is {@code (a*b)[i] = a[b[i]]}.
+ *
+ * @author Stanislav Poslavsky
+ * @see IntCanonicalPermutations
+ * @since 2.2
+ */
+public final class PermutationGroup implements Serializable {
+    private static final long serialVersionUID = -4415624880591470271L;
+    private final int degree;
+    private final List<int[]> strongGenerators = new ArrayList<>();
+    /**
+     * transversals[i][x] is a permutation from the stabilizer of {@code 0, ..., i - 1}, which maps {@code i} to {@code
+     * x}, or {@code null} if {@code x} is not in the orbit of {@code i}
+     */
+    private final int[][][] transversals;
+
+    /**
+     * Constructs the group generated by the specified permutations.
+     *
+     * @param degree     degree of the group
+     * @param generators generators of the group in one-line notation
+     * @throws IllegalArgumentException if some generator is not a permutation of the specified degree
+     */
+    public PermutationGroup(int degree, int[]... generators) {
+        this.degree = degree;
+        for (int[] generator : generators) {
+            checkPermutation(degree, generator);
+            if (!Permutations.isIdentity(generator))
+                strongGenerators.add(generator.clone());
+        }
+        this.transversals = new int[degree][][];
+        schreierSims();
+    }
+
+    private static void checkPermutation(int degree, int[] permutation) {
+        if (permutation.length != degree)
+            throw new IllegalArgumentException("Wrong permutation degree.");
+        if (!Permutations.isPermutation(permutation))
+            throw new IllegalArgumentException("Wrong permutation input.");
+    }
+
+    private int[] compose(int[] a, int[] b) {
+        return Permutations.compose(a, b, new int[degree]);
+    }
+
+    /**
+     * Returns {@code a^(-1) * b}
+     */
+    private int[] leftDivide(int[] a, int[] b) {
+        return compose(Permutations.inverse(a, new int[degree]), b);
+    }
+
+    private void schreierSims() {
+        OUTER:
+        while (true) {
+            for (int i = 0; i < degree; ++i)
+                computeOrbit(i);
+            for (int i = 0; i < degree; ++i) {
+                List<int[]> generators = levelGenerators(i);
+                for (int beta = 0; beta < degree; ++beta) {
+                    int[] u = transversals[i][beta];
+                    if (u == null)
+                        continue;
+                    for (int[] s : generators) {
+                        // Schreier generator of the stabilizer of i
+                        int[] h = leftDivide(transversals[i][s[beta]], compose(s, u));
+                        int[] residue = sift(h, i + 1);
+                        if (residue != null) {
+                            strongGenerators.add(residue);
+                            continue OUTER;
+                        }
+                    }
+                }
+            }
+            return;
+        }
+    }
+
+    /**
+     * Strong generators fixing {@code 0, ..., level - 1}
+     */
+    private List<int[]> levelGenerators(int level) {
+        List<int[]> r = new ArrayList<>();
+        OUTER:
+        for (int[] s : strongGenerators) {
+            for (int i = 0; i < level; ++i)
+                if (s[i] != i)
+                    continue OUTER;
+            r.add(s);
+        }
+        return r;
+    }
+
+    private void computeOrbit(int level) {
+        List<int[]> generators = levelGenerators(level);
+        int[][] transversal = new int[degree][];
+        transversal[level] = Permutations.identity(new int[degree]);
+        int[] queue = new int[degree];
+        int head = 0, tail = 0;
+        queue[tail++] = level;
+        while (head < tail) {
+            int y = queue[head++];
+            for (int[] s : generators) {
+                int z = s[y];
+                if (transversal[z] == null) {
+                    transversal[z] = compose(s, transversal[y]);
+                    queue[tail++] = z;
+                }
+            }
+        }
+        transversals[level] = transversal;
+    }
+
+    /**
+     * Sifts permutation fixing {@code 0, ..., from - 1} through the stabilizer chain; returns null if it sifts to
+     * identity, or the residue otherwise
+     */
+    private int[] sift(int[] h, int from) {
+        for (int j = from; j < degree; ++j) {
+            int x = h[j];
+            if (x == j)
+                continue;
+            int[] u = transversals[j][x];
+            if (u == null)
+                return h;
+            h = leftDivide(u, h);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the degree of the group
+     */
+    public int degree() {
+        return degree;
+    }
+
+    /**
+     * Returns the order of the group
+     */
+    public BigInteger order() {
+        BigInteger order = BigInteger.ONE;
+        for (int i = 0; i < degree; ++i)
+            order = order.multiply(BigInteger.valueOf(orbit(i).length));
+        return order;
+    }
+
+    /**
+     * Returns whether the specified permutation belongs to this group
+     *
+     * @param permutation permutation in one-line notation
+     * @return whether the specified permutation belongs to this group
+     */
+    public boolean contains(int[] permutation) {
+        checkPermutation(degree, permutation);
+        return sift(permutation.clone(), 0) == null;
+    }
+
+    /**
+     * Returns the sorted orbit of point {@code i} under the pointwise stabilizer of points {@code 0, ..., i - 1}
+     *
+     * @param i point
+     * @return the sorted orbit of point {@code i} under the pointwise stabilizer of points {@code 0, ..., i - 1}
+     */
+    public int[] orbit(int i) {
+        int size = 0;
+        int[] r = new int[degree];
+        for (int x = 0; x < degree; ++x)
+            if (transversals[i][x] != null)
+                r[size++] = x;
+        return Arrays.copyOf(r, size);
+    }
+}
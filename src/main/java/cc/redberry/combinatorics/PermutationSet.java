@@ -0,0 +1,110 @@
+package cc.redberry.combinatorics;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of permutations of fixed dimension. Permutations of dimension at most {@value
+ * #MAX_PACKED_DIMENSION} are keyed by their lexicographic rank packed into {@code long}, so probes do not touch the
+ * stored arrays at all; permutations of higher dimensions are keyed by a 64-bit hash and compared element-wise on
+ * collision. Lookups do not allocate.
+ *
+ * <p>Added arrays are stored by reference and should not be modified afterwards.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+final class PermutationSet implements Serializable {
+    private static final long serialVersionUID = 3146210386447245601L;
+    /** 20! < 2^63 */
+    static final int MAX_PACKED_DIMENSION = 20;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int dimension;
+    private final boolean packed;
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[][] permutations = new int[INITIAL_CAPACITY][];
+    private int size = 0;
+
+    PermutationSet(int dimension) {
+        this.dimension = dimension;
+        this.packed = dimension <= MAX_PACKED_DIMENSION;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the key of permutation: its lexicographic rank for small dimensions and a hash otherwise
+     */
+    long key(int[] permutation) {
+        if (packed)
+            return rank(permutation);
+        long hash = 0x9e3779b97f4a7c15L;
+        for (int i : permutation)
+            hash = RandomCombinatorics.mix64(hash + i);
+        return hash;
+    }
+
+    /**
+     * Lexicographic rank of permutation of dimension at most {@value #MAX_PACKED_DIMENSION}
+     */
+    static long rank(int[] permutation) {
+        long rank = 0, unused = (1L << permutation.length) - 1;
+        for (int i = 0; i < permutation.length; ++i) {
+            int p = permutation[i];
+            // number of unused values less than p
+            rank = rank * (permutation.length - i) + Long.bitCount(unused & ((1L << p) - 1));
+            unused &= ~(1L << p);
+        }
+        return rank;
+    }
+
+    private int slot(long key) {
+        return (int) RandomCombinatorics.mix64(key) & (keys.length - 1);
+    }
+
+    boolean contains(int[] permutation) {
+        long key = key(permutation);
+        for (int i = slot(key); permutations[i] != null; i = (i + 1) & (keys.length - 1))
+            if (keys[i] == key && (packed || Arrays.equals(permutations[i], permutation)))
+                return true;
+        return false;
+    }
+
+    /**
+     * Adds permutation to the set (by reference)
+     *
+     * @return whether the set did not already contain the permutation
+     */
+    boolean add(int[] permutation) {
+        if (permutation.length != dimension)
+            throw new IllegalArgumentException("Wrong permutation dimension.");
+        if (contains(permutation))
+            return false;
+        if (2 * (size + 1) > keys.length)
+            resize();
+        insert(key(permutation), permutation);
+        ++size;
+        return true;
+    }
+
+    private void insert(long key, int[] permutation) {
+        int i = slot(key);
+        while (permutations[i] != null)
+            i = (i + 1) & (keys.length - 1);
+        keys[i] = key;
+        permutations[i] = permutation;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[][] oldPermutations = permutations;
+        keys = new long[oldKeys.length * 2];
+        permutations = new int[oldKeys.length * 2][];
+        for (int i = 0; i < oldKeys.length; ++i)
+            if (oldPermutations[i] != null)
+                insert(oldKeys[i], oldPermutations[i]);
+    }
+}
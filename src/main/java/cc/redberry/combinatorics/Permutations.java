@@ -0,0 +1,396 @@
+package cc.redberry.combinatorics;
+
+/**
+ * Primitive operations on permutations in one-line notation ({@code int[]}) and in packed form ({@code long}). All
+ * methods which take an output array write the result into it and do not allocate; output arrays should not coincide
+ * with the arguments unless explicitly allowed. Methods which compute cycle structure do not allocate auxiliary arrays
+ * for degrees up to 64 (only the returned arrays are allocated).
+ *
+ * <p>The product of permutations is {@code (a*b)[i] = a[b[i]]} (the same as in {@link PermutationGroup}), and
+ * permutation {@code p} acts on arrays as {@code target[i] = source[p[i]]}, so that permuting by {@code a*b} is the
+ * same as permuting by {@code a} and then by {@code b}.
+ *
+ * <p>Packed form stores permutations of degree at most {@value #MAX_PACKED_DEGREE} in a single {@code long}, four
+ * bits per image (image of {@code i} occupies bits {@code [4i, 4i + 4)}).
+ *
+ * @author Stanislav Poslavsky
+ * @see IntPermutations
+ * @since 2.2
+ */
+public final class Permutations {
+    /** maximal degree of packed permutations */
+    public static final int MAX_PACKED_DEGREE = 16;
+
+    private Permutations() {}
+
+    /**
+     * Writes identity permutation into the array
+     *
+     * @param out output
+     * @return out
+     */
+    public static int[] identity(int[] out) {
+        for (int i = 0; i < out.length; ++i)
+            out[i] = i;
+        return out;
+    }
+
+    /**
+     * Returns whether permutation is identity
+     */
+    public static boolean isIdentity(int[] permutation) {
+        for (int i = 0; i < permutation.length; ++i)
+            if (permutation[i] != i)
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns whether array is a permutation in one-line notation
+     */
+    public static boolean isPermutation(int[] array) {
+        long[] seen = new long[(array.length + 63) >>> 6];
+        for (int i : array) {
+            if (i < 0 || i >= array.length || (seen[i >>> 6] & (1L << i)) != 0)
+                return false;
+            seen[i >>> 6] |= 1L << i;
+        }
+        return true;
+    }
+
+    /**
+     * Writes product {@code a*b} ({@code out[i] = a[b[i]]}) into the output; output may coincide with {@code b}
+     *
+     * @param a   first permutation
+     * @param b   second permutation
+     * @param out output
+     * @return out
+     */
+    public static int[] compose(int[] a, int[] b, int[] out) {
+        for (int i = 0; i < b.length; ++i)
+            out[i] = a[b[i]];
+        return out;
+    }
+
+    /**
+     * Writes product {@code a*b^(-1)} into the output (output should not coincide with {@code a} or {@code b})
+     *
+     * @param a   first permutation
+     * @param b   second permutation
+     * @param out output
+     * @return out
+     */
+    public static int[] rightDivide(int[] a, int[] b, int[] out) {
+        for (int i = 0; i < b.length; ++i)
+            out[b[i]] = a[i];
+        return out;
+    }
+
+    /**
+     * Writes the inverse permutation into the output
+     *
+     * @param permutation permutation
+     * @param out         output
+     * @return out
+     */
+    public static int[] inverse(int[] permutation, int[] out) {
+        for (int i = 0; i < permutation.length; ++i)
+            out[permutation[i]] = i;
+        return out;
+    }
+
+    /**
+     * Inverts permutation in place (by reversing its cycles)
+     *
+     * @param permutation permutation
+     * @return permutation
+     */
+    public static int[] inverseInPlace(int[] permutation) {
+        for (int i = 0; i < permutation.length; ++i) {
+            if (permutation[i] < 0)
+                continue;
+            // walk the cycle, reversing its arrows and marking visited elements with ~
+            int previous = i, current = permutation[i];
+            while (current != i) {
+                int next = permutation[current];
+                permutation[current] = ~previous;
+                previous = current;
+                current = next;
+            }
+            permutation[i] = ~previous;
+        }
+        for (int i = 0; i < permutation.length; ++i)
+            permutation[i] = ~permutation[i];
+        return permutation;
+    }
+
+    /**
+     * Permutes array: {@code target[i] = source[permutation[i]]} (target should not coincide with source)
+     *
+     * @param permutation permutation
+     * @param source      source array
+     * @param target      target array
+     * @return target
+     */
+    public static int[] permute(int[] permutation, int[] source, int[] target) {
+        for (int i = 0; i < permutation.length; ++i)
+            target[i] = source[permutation[i]];
+        return target;
+    }
+
+    /**
+     * Permutes array: {@code target[i] = source[permutation[i]]} (target should not coincide with source)
+     *
+     * @param permutation permutation
+     * @param source      source array
+     * @param target      target array
+     * @return target
+     */
+    public static <T> T[] permute(int[] permutation, T[] source, T[] target) {
+        for (int i = 0; i < permutation.length; ++i)
+            target[i] = source[permutation[i]];
+        return target;
+    }
+
+    /**
+     * Permutes array in place, so that new {@code data[i]} is equal to old {@code data[permutation[i]]}. Permutation
+     * is temporarily modified during the invocation, but is restored on return.
+     *
+     * @param permutation permutation
+     * @param data        array
+     * @return data
+     */
+    public static int[] permuteInPlace(int[] permutation, int[] data) {
+        for (int i = 0; i < permutation.length; ++i) {
+            if (permutation[i] < 0)
+                continue;
+            int first = data[i], current = i;
+            while (permutation[current] != i) {
+                int next = permutation[current];
+                data[current] = data[next];
+                permutation[current] = ~next;
+                current = next;
+            }
+            data[current] = first;
+            permutation[current] = ~i;
+        }
+        for (int i = 0; i < permutation.length; ++i)
+            permutation[i] = ~permutation[i];
+        return data;
+    }
+
+    /**
+     * Returns the number of cycles of permutation (including fixed points)
+     */
+    public static int cycleCount(int[] permutation) {
+        final int n = permutation.length;
+        int count = 0;
+        if (n <= 64) {
+            long visited = 0;
+            for (int i = 0; i < n; ++i) {
+                if ((visited & (1L << i)) != 0)
+                    continue;
+                ++count;
+                for (int j = i; (visited & (1L << j)) == 0; j = permutation[j])
+                    visited |= 1L << j;
+            }
+            return count;
+        }
+        long[] visited = new long[(n + 63) >>> 6];
+        for (int i = 0; i < n; ++i) {
+            if ((visited[i >>> 6] & (1L << i)) != 0)
+                continue;
+            ++count;
+            for (int j = i; (visited[j >>> 6] & (1L << j)) == 0; j = permutation[j])
+                visited[j >>> 6] |= 1L << j;
+        }
+        return count;
+    }
+
+    /**
+     * Returns sign of permutation: 1 for even and -1 for odd permutations
+     */
+    public static int sign(int[] permutation) {
+        return ((permutation.length - cycleCount(permutation)) & 1) == 0 ? 1 : -1;
+    }
+
+    /**
+     * Returns the lengths of cycles of permutation (including fixed points) in the order of their smallest elements
+     */
+    public static int[] cycleLengths(int[] permutation) {
+        final int n = permutation.length;
+        int[] r = new int[cycleCount(permutation)];
+        long[] visited = n <= 64 ? null : new long[(n + 63) >>> 6];
+        long small = 0;
+        for (int i = 0, c = 0; i < n; ++i) {
+            if (visited == null ? (small & (1L << i)) != 0 : (visited[i >>> 6] & (1L << i)) != 0)
+                continue;
+            for (int j = i; ; j = permutation[j], ++r[c]) {
+                if (visited == null) {
+                    if ((small & (1L << j)) != 0)
+                        break;
+                    small |= 1L << j;
+                } else {
+                    if ((visited[j >>> 6] & (1L << j)) != 0)
+                        break;
+                    visited[j >>> 6] |= 1L << j;
+                }
+            }
+            ++c;
+        }
+        return r;
+    }
+
+    /**
+     * Returns disjoint cycles of permutation (excluding fixed points); each cycle starts with its smallest element and
+     * cycles are ordered by their first elements
+     */
+    public static int[][] cycles(int[] permutation) {
+        final int n = permutation.length;
+        int[] lengths = cycleLengths(permutation);
+        int nonTrivial = 0;
+        for (int l : lengths)
+            if (l > 1)
+                ++nonTrivial;
+        int[][] r = new int[nonTrivial][];
+        long[] visited = n <= 64 ? null : new long[(n + 63) >>> 6];
+        long small = 0;
+        for (int i = 0, c = 0, k = 0; i < n; ++i) {
+            if (visited == null ? (small & (1L << i)) != 0 : (visited[i >>> 6] & (1L << i)) != 0)
+                continue;
+            int length = lengths[k++];
+            int[] cycle = length == 1 ? null : (r[c++] = new int[length]);
+            for (int j = i, m = 0; m < length; j = permutation[j], ++m) {
+                if (visited == null)
+                    small |= 1L << j;
+                else
+                    visited[j >>> 6] |= 1L << j;
+                if (cycle != null)
+                    cycle[m] = j;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Returns order of permutation (the least common multiple of lengths of its cycles)
+     *
+     * @throws ArithmeticException if order does not fit into long
+     */
+    public static long order(int[] permutation) {
+        final int n = permutation.length;
+        long order = 1;
+        long[] visited = n <= 64 ? null : new long[(n + 63) >>> 6];
+        long small = 0;
+        for (int i = 0; i < n; ++i) {
+            if (visited == null ? (small & (1L << i)) != 0 : (visited[i >>> 6] & (1L << i)) != 0)
+                continue;
+            int length = 0;
+            for (int j = i; ; j = permutation[j], ++length) {
+                if (visited == null) {
+                    if ((small & (1L << j)) != 0)
+                        break;
+                    small |= 1L << j;
+                } else {
+                    if ((visited[j >>> 6] & (1L << j)) != 0)
+                        break;
+                    visited[j >>> 6] |= 1L << j;
+                }
+            }
+            order = Math.multiplyExact(order / gcd(order, length), length);
+        }
+        return order;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Packs permutation of degree at most {@value #MAX_PACKED_DEGREE} into long
+     *
+     * @param permutation permutation
+     * @return packed permutation
+     * @throws IllegalArgumentException if degree is greater than {@value #MAX_PACKED_DEGREE}
+     */
+    public static long pack(int[] permutation) {
+        if (permutation.length > MAX_PACKED_DEGREE)
+            throw new IllegalArgumentException("Degree is too large: " + permutation.length);
+        long r = 0;
+        for (int i = 0; i < permutation.length; ++i)
+            r |= (long) permutation[i] << (i << 2);
+        return r;
+    }
+
+    /**
+     * Unpacks permutation; degree is the length of the output
+     *
+     * @param packed packed permutation
+     * @param out    output
+     * @return out
+     */
+    public static int[] unpack(long packed, int[] out) {
+        for (int i = 0; i < out.length; ++i)
+            out[i] = (int) (packed >>> (i << 2)) & 0xF;
+        return out;
+    }
+
+    /**
+     * Returns image of {@code i} under packed permutation
+     */
+    public static int image(long packed, int i) {
+        return (int) (packed >>> (i << 2)) & 0xF;
+    }
+
+    /**
+     * Returns packed identity permutation of specified degree
+     */
+    public static long identityPacked(int degree) {
+        if (degree > MAX_PACKED_DEGREE)
+            throw new IllegalArgumentException("Degree is too large: " + degree);
+        long r = 0;
+        for (int i = 0; i < degree; ++i)
+            r |= (long) i << (i << 2);
+        return r;
+    }
+
+    /**
+     * Returns packed product {@code a*b} of packed permutations of specified degree
+     */
+    public static long composePacked(long a, long b, int degree) {
+        long r = 0;
+        for (int i = 0; i < degree; ++i)
+            r |= (long) image(a, image(b, i)) << (i << 2);
+        return r;
+    }
+
+    /**
+     * Returns packed inverse of packed permutation of specified degree
+     */
+    public static long inversePacked(long packed, int degree) {
+        long r = 0;
+        for (int i = 0; i < degree; ++i)
+            r |= (long) i << (image(packed, i) << 2);
+        return r;
+    }
+
+    /**
+     * Returns sign of packed permutation of specified degree: 1 for even and -1 for odd permutations
+     */
+    public static int signPacked(long packed, int degree) {
+        int visited = 0, cycles = 0;
+        for (int i = 0; i < degree; ++i) {
+            if ((visited & (1 << i)) != 0)
+                continue;
+            ++cycles;
+            for (int j = i; (visited & (1 << j)) == 0; j = image(packed, j))
+                visited |= 1 << j;
+        }
+        return ((degree - cycles) & 1) == 0 ? 1 : -1;
+    }
+}
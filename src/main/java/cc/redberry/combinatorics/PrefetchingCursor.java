@@ -0,0 +1,347 @@
+package cc.redberry.combinatorics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cursor which runs a combinatorial port (or iterator) on a background producer thread, so that generation of elements
+ * overlaps with their consumption. The producer copies elements into a pre-allocated flat ring buffer of fixed
+ * capacity (element {@code i} occupies positions {@code [i * length, (i + 1) * length)} of the buffer); the ring
+ * buffer is single-producer/single-consumer and lock-free: each side publishes its position with an ordered store and
+ * reads the position of the other side with a volatile load. Neither side allocates after the buffer was created.
+ *
+ * <p>The consumer may either iterate element by element via {@link #advance()} and {@link #current()}, or take whole
+ * batches of contiguous elements directly from the ring buffer via {@link #nextBatch(int)}, {@link #batchBuffer()} and
+ * {@link #batchOffset()}. Slots of a batch are returned to the producer on the next invocation of {@code nextBatch} or
+ * {@code advance}. Both sides wait for each other according to the specified {@link WaitStrategy}.
+ *
+ * <p>The producer is started on the first request of elements. Exceptions thrown by the source are rethrown to the
+ * consumer after all elements produced before the exception were consumed. All elements should have the same length.
+ *
+ * <p>Example:
+ * <code><pre>
+ * try (PrefetchingCursor cursor = new PrefetchingCursor(new IntDistinctTuples(sets), 1024,
+ *         PrefetchingCursor.WaitStrategy.YIELD)) {
+ *     int n;
+ *     while ((n = cursor.nextBatch(256)) != 0)
+ *         for (int i = 0, offset = cursor.batchOffset(); i &lt; n; ++i, offset += cursor.elementLength())
+ *             process(cursor.batchBuffer(), offset);
+ * }
+ * </pre></code>
+ *
+ * <p>Instances are not thread-safe: all consumer methods should be invoked from a single thread.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+public final class PrefetchingCursor implements Cursor, AutoCloseable {
+    /** maximal time of a single park */
+    private static final long PARK_NANOS = 50_000;
+
+    /**
+     * Strategy of waiting for the other side of the ring buffer
+     */
+    public enum WaitStrategy {
+        /**
+         * busy spinning: the lowest latency, occupies a core while waiting (use only if both threads have dedicated
+         * cores)
+         */
+        SPIN,
+        /** {@link Thread#yield()} between checks */
+        YIELD,
+        /** parking of the waiting thread until it is unparked by the other side */
+        PARK
+    }
+
+    private final IntCombinatorialPort source;
+    private final int capacity;
+    private final WaitStrategy waitStrategy;
+    private final Executor executor;
+
+    /** number of elements published by the producer */
+    private final AtomicLong produced = new AtomicLong();
+    /** number of elements released by the consumer */
+    private final AtomicLong released = new AtomicLong();
+    private volatile boolean finished = false;
+    private volatile boolean stopped = false;
+    private volatile Throwable error = null;
+    /** ring buffer, created by the producer when the length of elements is known */
+    private volatile int[] buffer = null;
+    private volatile int length = -1;
+    private volatile Thread waitingConsumer = null, waitingProducer = null;
+    private CountDownLatch terminated = null;
+
+    /** consumer state */
+    private long consumed = 0;
+    private int batchOffset = 0, batchSize = 0, batchPointer = 0;
+    private int[] element = null;
+
+    /**
+     * Creates cursor over elements of the specified port, which runs the port on a new daemon thread
+     *
+     * @param source       source port (should not be used by other threads)
+     * @param capacity     capacity of the ring buffer (number of elements)
+     * @param waitStrategy wait strategy
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public PrefetchingCursor(IntCombinatorialPort source, int capacity, WaitStrategy waitStrategy) {
+        this(source, capacity, waitStrategy, r -> {
+            Thread thread = new Thread(r, "combinatorics-prefetch");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Creates cursor over elements of the specified port
+     *
+     * @param source       source port (should not be used by other threads)
+     * @param capacity     capacity of the ring buffer (number of elements)
+     * @param waitStrategy wait strategy
+     * @param executor     executor which runs the producer (the producer occupies one thread until all elements are
+     *                     produced or the cursor is closed)
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public PrefetchingCursor(IntCombinatorialPort source, int capacity, WaitStrategy waitStrategy, Executor executor) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity should be positive.");
+        this.source = source;
+        this.capacity = capacity;
+        this.waitStrategy = waitStrategy;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates cursor over elements of the specified iterator, which runs the iterator on a new daemon thread
+     *
+     * @param source       source iterator (should not be used by other threads)
+     * @param capacity     capacity of the ring buffer (number of elements)
+     * @param waitStrategy wait strategy
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public PrefetchingCursor(CombinatorialIterator<int[]> source, int capacity, WaitStrategy waitStrategy) {
+        this(new IntCartesianProduct.IteratorPort(source), capacity, waitStrategy);
+    }
+
+    private void produce() {
+        try {
+            long position = 0;
+            int[] next;
+            while (!stopped && (next = source.take()) != null) {
+                int[] buffer = this.buffer;
+                if (buffer == null) {
+                    length = next.length;
+                    try {
+                        this.buffer = buffer = new int[Math.multiplyExact(capacity, next.length)];
+                    } catch (ArithmeticException e) {
+                        throw new IllegalStateException("Ring buffer is too large.", e);
+                    }
+                } else if (next.length != length)
+                    throw new IllegalStateException("Elements of different lengths.");
+                while (position - released.get() == capacity) {
+                    if (stopped)
+                        return;
+                    waitingProducer = Thread.currentThread();
+                    if (position - released.get() == capacity && !stopped)
+                        await();
+                    waitingProducer = null;
+                }
+                System.arraycopy(next, 0, buffer, (int) (position % capacity) * length, length);
+                produced.lazySet(++position);
+                wake(waitingConsumer);
+            }
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            finished = true;
+            wake(waitingConsumer);
+            terminated.countDown();
+        }
+    }
+
+    private void await() {
+        switch (waitStrategy) {
+            case SPIN:
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            default:
+                LockSupport.parkNanos(this, PARK_NANOS);
+        }
+    }
+
+    private void wake(Thread thread) {
+        if (thread != null && waitStrategy == WaitStrategy.PARK)
+            LockSupport.unpark(thread);
+    }
+
+    private void start() {
+        if (terminated == null) {
+            terminated = new CountDownLatch(1);
+            try {
+                executor.execute(this::produce);
+            } catch (RejectedExecutionException e) {
+                // the producer never runs, so the next request tries to start it again
+                terminated = null;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the slots of the last batch to the producer
+     */
+    private void release() {
+        if (batchSize != 0) {
+            released.lazySet(consumed);
+            batchSize = 0;
+            batchPointer = 0;
+            wake(waitingProducer);
+        }
+    }
+
+    /**
+     * Waits for the next batch of contiguous elements in the ring buffer and returns its size. Elements of the batch
+     * are stored in {@link #batchBuffer()} starting at {@link #batchOffset()}; slots of the previous batch are returned
+     * to the producer.
+     *
+     * @param maxElements maximal number of elements in batch
+     * @return number of elements in the batch or zero if there are no more elements
+     * @throws IllegalArgumentException   if maxElements is not positive
+     * @throws IllegalStateException      if the cursor was closed
+     * @throws RejectedExecutionException if the executor rejected the producer (the cursor remains usable)
+     * @throws RuntimeException           exception thrown by the source
+     */
+    public int nextBatch(int maxElements) {
+        if (maxElements < 1)
+            throw new IllegalArgumentException("Batch size should be positive.");
+        if (stopped)
+            throw new IllegalStateException("Cursor is closed.");
+        release();
+        start();
+        long available;
+        while ((available = produced.get() - consumed) == 0) {
+            if (finished) {
+                if ((available = produced.get() - consumed) != 0)
+                    break;
+                Throwable e = error;
+                if (e instanceof RuntimeException)
+                    throw (RuntimeException) e;
+                if (e instanceof Error)
+                    throw (Error) e;
+                return 0;
+            }
+            waitingConsumer = Thread.currentThread();
+            if (produced.get() == consumed && !finished)
+                await();
+            waitingConsumer = null;
+        }
+        int slot = (int) (consumed % capacity);
+        int size = (int) Math.min(Math.min(available, capacity - slot), maxElements);
+        batchOffset = slot * length;
+        batchSize = size;
+        consumed += size;
+        return size;
+    }
+
+    /**
+     * Returns the ring buffer which contains the current batch (the reference is the same for all batches)
+     *
+     * @return the ring buffer
+     */
+    public int[] batchBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns the position of the first element of the current batch in {@link #batchBuffer()}
+     *
+     * @return the position of the first element of the current batch
+     */
+    public int batchOffset() {
+        return batchOffset;
+    }
+
+    /**
+     * Returns the length of elements (-1 if no elements were produced yet)
+     *
+     * @return the length of elements
+     */
+    public int elementLength() {
+        return length;
+    }
+
+    /**
+     * Moves to the next element, which is copied from the ring buffer and available via {@link #current()}
+     *
+     * @return {@code true} if there is the next element
+     * @throws IllegalStateException if the cursor was closed
+     * @throws RuntimeException      exception thrown by the source
+     */
+    @Override
+    public boolean advance() {
+        if (batchPointer == batchSize && nextBatch(Math.max(1, capacity / 2)) == 0) {
+            element = null;
+            return false;
+        }
+        if (element == null)
+            element = new int[length];
+        System.arraycopy(buffer, batchOffset + batchPointer * length, element, 0, length);
+        ++batchPointer;
+        return true;
+    }
+
+    /**
+     * Returns the reference to the current element (the same reference for all elements)
+     *
+     * @return the reference to the current element
+     */
+    @Override
+    public int[] current() {
+        return element;
+    }
+
+    /**
+     * Stops the producer, waits for its termination, resets the source and restarts the iteration
+     */
+    @Override
+    public void reset() {
+        stopAndAwait();
+        source.reset();
+        produced.set(0);
+        released.set(0);
+        finished = false;
+        stopped = false;
+        error = null;
+        terminated = null;
+        consumed = 0;
+        batchOffset = batchSize = batchPointer = 0;
+        element = null;
+    }
+
+    private void stopAndAwait() {
+        stopped = true;
+        if (terminated == null)
+            return;
+        wake(waitingProducer);
+        try {
+            terminated.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted.", e);
+        }
+    }
+
+    /**
+     * Stops the producer (without waiting for its termination); the cursor cannot be used after that
+     */
+    @Override
+    public void close() {
+        stopped = true;
+        wake(waitingProducer);
+    }
+}
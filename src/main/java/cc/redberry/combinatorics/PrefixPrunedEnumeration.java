@@ -0,0 +1,200 @@
+package cc.redberry.combinatorics;
+
+/**
+ * Branch-and-bound enumeration of permutations, combinations, tuples and compositions. Elements are produced via
+ * depth-first search in the same (lexicographic) order as by {@link IntPermutations}, {@link IntCombinations}, {@link
+ * IntTuples} and {@link IntCompositions}, and the {@link PrefixVisitor} may reject any prefix, so that no elements
+ * starting with this prefix will be generated.
+ *
+ * <p>Example: all tuples [e<sub>1</sub>, e<sub>2</sub>, e<sub>3</sub>] with 0 &lt;= e<sub>i</sub> &lt; 10 and
+ * e<sub>1</sub> + e<sub>2</sub> + e<sub>3</sub> &lt;= 5
+ * <code><pre>
+ * PrefixPrunedEnumeration.tuples(new PrefixVisitor() {
+ *     final int[] sums = new int[3];
+ *
+ *     public boolean acceptPrefix(int[] prefix, int position) {
+ *         sums[position] = (position == 0 ? 0 : sums[position - 1]) + prefix[position];
+ *         return sums[position] &lt;= 5;
+ *     }
+ *
+ *     public boolean visit(int[] element) {
+ *         System.out.println(Arrays.toString(element));
+ *         return true;
+ *     }
+ * }, 10, 10, 10);
+ * </pre></code>
+ *
+ * @author Stanislav Poslavsky
+ * @see PrefixVisitor
+ * @since 2.2
+ */
+public final class PrefixPrunedEnumeration {
+    private PrefixPrunedEnumeration() {}
+
+    /**
+     * Enumerates permutations of the specified dimension.
+     *
+     * @param dimension dimension of permutations
+     * @param visitor   visitor
+     * @return number of visited elements
+     * @see IntPermutations
+     */
+    public static long permutations(int dimension, PrefixVisitor visitor) {
+        final int[] array = new int[dimension];
+        if (dimension == 0) {
+            visitor.visit(array);
+            return 1;
+        }
+        final boolean[] used = new boolean[dimension];
+        long visited = 0;
+        int position = 0;
+        array[0] = -1;
+        while (position >= 0) {
+            if (array[position] >= 0)
+                used[array[position]] = false;
+            int value = array[position] + 1;
+            while (value < dimension && used[value])
+                ++value;
+            if (value == dimension) {
+                --position;
+                continue;
+            }
+            array[position] = value;
+            used[value] = true;
+            if (!visitor.acceptPrefix(array, position))
+                continue;
+            if (position == dimension - 1) {
+                ++visited;
+                if (!visitor.visit(array))
+                    break;
+                continue;
+            }
+            array[++position] = -1;
+        }
+        return visited;
+    }
+
+    /**
+     * Enumerates all k-combinations from {@code n}.
+     *
+     * @param n       the total
+     * @param k       combination length
+     * @param visitor visitor
+     * @return number of visited elements
+     * @see IntCombinations
+     */
+    public static long combinations(int n, int k, PrefixVisitor visitor) {
+        if (n < k)
+            throw new IllegalArgumentException(" n < k ");
+        final int[] array = new int[k];
+        if (k == 0) {
+            visitor.visit(array);
+            return 1;
+        }
+        long visited = 0;
+        int position = 0;
+        array[0] = -1;
+        while (position >= 0) {
+            int value = ++array[position];
+            if (value > n - k + position) {
+                --position;
+                continue;
+            }
+            if (!visitor.acceptPrefix(array, position))
+                continue;
+            if (position == k - 1) {
+                ++visited;
+                if (!visitor.visit(array))
+                    break;
+                continue;
+            }
+            ++position;
+            array[position] = value;
+        }
+        return visited;
+    }
+
+    /**
+     * Enumerates all tuples [e<sub>1</sub>, ..., e<sub>N</sub>] with 0 &lt;= e<sub>i</sub> &lt;
+     * upperBounds<sub>i</sub>.
+     *
+     * @param visitor     visitor
+     * @param upperBounds the bounds on the tuple elements
+     * @return number of visited elements
+     * @see IntTuples
+     */
+    public static long tuples(PrefixVisitor visitor, int... upperBounds) {
+        for (int i : upperBounds)
+            if (i < 0)
+                throw new IllegalArgumentException("Upper bound cannot be negative.");
+        final int length = upperBounds.length;
+        final int[] array = new int[length];
+        if (length == 0) {
+            visitor.visit(array);
+            return 1;
+        }
+        long visited = 0;
+        int position = 0;
+        array[0] = -1;
+        while (position >= 0) {
+            if (++array[position] == upperBounds[position]) {
+                --position;
+                continue;
+            }
+            if (!visitor.acceptPrefix(array, position))
+                continue;
+            if (position == length - 1) {
+                ++visited;
+                if (!visitor.visit(array))
+                    break;
+                continue;
+            }
+            array[++position] = -1;
+        }
+        return visited;
+    }
+
+    /**
+     * Enumerates all compositions of {@code integer} into {@code nPartitions} non-negative parts.
+     *
+     * @param integer     the sum
+     * @param nPartitions number of partitions
+     * @param visitor     visitor
+     * @return number of visited elements
+     * @see IntCompositions
+     */
+    public static long compositions(int integer, int nPartitions, PrefixVisitor visitor) {
+        if (integer < 0 || nPartitions < 1)
+            throw new IllegalArgumentException("integer < 0 or nPartitions < 1");
+        final int[] array = new int[nPartitions];
+        final int last = nPartitions - 1;
+        // remainders[i] = integer - (array[0] + ... + array[i - 1])
+        final int[] remainders = new int[nPartitions];
+        remainders[0] = integer;
+        long visited = 0;
+        int position = 0;
+        array[0] = -1;
+        while (position >= 0) {
+            if (position == last) {
+                // the last part is fixed by the sum
+                array[last] = remainders[last];
+                if (visitor.acceptPrefix(array, last)) {
+                    ++visited;
+                    if (!visitor.visit(array))
+                        break;
+                }
+                --position;
+                continue;
+            }
+            if (++array[position] > remainders[position]) {
+                --position;
+                continue;
+            }
+            if (!visitor.acceptPrefix(array, position))
+                continue;
+            remainders[position + 1] = remainders[position] - array[position];
+            array[++position] = -1;
+        }
+        return visited;
+    }
+}
@@ -0,0 +1,34 @@
+package cc.redberry.combinatorics;
+
+/**
+ * Visitor of combinatorial elements, which is able to reject the current prefix of element, so that the whole subtree
+ * of elements starting with this prefix will be skipped.
+ *
+ * <p>Elements are assigned position by position: {@link #acceptPrefix(int[], int)} is invoked each time position {@code
+ * i} of the array gets a new value; positions {@code 0, ..., i-1} at this moment are the same as at the last accepted
+ * invocation for position {@code i - 1}, and positions after {@code i} are undefined. So the visitor may maintain
+ * incremental bounds (like partial sums) in a stack indexed by position.
+ *
+ * @author Stanislav Poslavsky
+ * @see PrefixPrunedEnumeration
+ * @since 2.2
+ */
+public interface PrefixVisitor {
+    /**
+     * Invoked when position {@code position} of {@code prefix} gets a new value.
+     *
+     * @param prefix   the array with assigned positions {@code 0, ..., position}
+     * @param position the last assigned position
+     * @return {@code false} to skip all elements starting with {@code prefix[0], ..., prefix[position]}, and {@code
+     * true} to continue
+     */
+    boolean acceptPrefix(int[] prefix, int position);
+
+    /**
+     * Invoked for each complete element, all prefixes of which were accepted.
+     *
+     * @param element the element (the same reference is passed on each invocation)
+     * @return {@code false} to stop enumeration and {@code true} to continue
+     */
+    boolean visit(int[] element);
+}
@@ -0,0 +1,373 @@
+package cc.redberry.combinatorics;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Uniform random sampling of combinations, permutations, combinations with permutations, compositions and tuples.
+ * Elements are drawn directly (without enumeration of the whole space), so sampling is applicable to spaces of
+ * arbitrary size.
+ *
+ * <p>All methods take a caller-supplied {@link SplittableRandom}. Methods that accept a {@code result} array write the
+ * sample into it and return the same reference, so the sampling loop may be performed without allocations.
+ *
+ * <p>Stream methods are deterministic for a fixed state of the supplied random: the {@code i}-th element of the stream
+ * is sampled with its own generator seeded from {@code i}, so the stream yields the same elements in the same order
+ * whether it is processed sequentially or in parallel (see {@link Stream#parallel()}).
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+public final class RandomCombinatorics {
+    private RandomCombinatorics() {}
+
+    /**
+     * For {@code k} below this value the sample in Floyd's algorithm is kept sorted by insertion
+     */
+    private static final int FLOYD_INSERTION_THRESHOLD = 64;
+
+    /**
+     * Returns uniformly random k-combination from {@code n} (sorted array of {@code k} distinct numbers from {@code [0,
+     * n)}).
+     *
+     * @param random source of randomness
+     * @param n      the total
+     * @param k      combination length
+     * @return random k-combination from {@code n}
+     */
+    public static int[] combination(SplittableRandom random, int n, int k) {
+        return combination(random, n, k, new int[k]);
+    }
+
+    /**
+     * Writes uniformly random k-combination from {@code n} (sorted array of {@code k} distinct numbers from {@code [0,
+     * n)}) into the first {@code k} elements of {@code result}.
+     *
+     * @param random source of randomness
+     * @param n      the total
+     * @param k      combination length
+     * @param result array to write the combination into
+     * @return {@code result}
+     */
+    public static int[] combination(SplittableRandom random, int n, int k, int[] result) {
+        checkCombination(n, k, result);
+        if (k == 0)
+            return result;
+        if ((long) k * 8 >= n)
+            selectionSampling(random, n, k, result);
+        else if (k < FLOYD_INSERTION_THRESHOLD)
+            floydSorted(random, n, k, result);
+        else
+            floydHashed(random, n, k, result);
+        return result;
+    }
+
+    /**
+     * Returns uniformly random permutation of specified dimension in one-line notation.
+     *
+     * @param random    source of randomness
+     * @param dimension dimension of permutation
+     * @return random permutation
+     */
+    public static int[] permutation(SplittableRandom random, int dimension) {
+        return permutation(random, new int[dimension]);
+    }
+
+    /**
+     * Writes uniformly random permutation of dimension {@code result.length} into {@code result} (inside-out
+     * Fisher-Yates algorithm).
+     *
+     * @param random source of randomness
+     * @param result array to write the permutation into
+     * @return {@code result}
+     */
+    public static int[] permutation(SplittableRandom random, int[] result) {
+        for (int i = 0; i < result.length; ++i) {
+            int j = random.nextInt(i + 1);
+            result[i] = result[j];
+            result[j] = i;
+        }
+        return result;
+    }
+
+    /**
+     * Shuffles the specified array in place (Fisher-Yates algorithm).
+     *
+     * @param random source of randomness
+     * @param array  array to shuffle
+     * @return {@code array}
+     */
+    public static int[] shuffle(SplittableRandom random, int[] array) {
+        return shuffle(random, array, array.length);
+    }
+
+    private static int[] shuffle(SplittableRandom random, int[] array, int length) {
+        for (int i = length - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            int t = array[i];
+            array[i] = array[j];
+            array[j] = t;
+        }
+        return array;
+    }
+
+    /**
+     * Returns uniformly random k-combination with permutations from {@code n} ({@code k} distinct numbers from {@code
+     * [0, n)} in random order).
+     *
+     * @param random source of randomness
+     * @param n      the total
+     * @param k      combination length
+     * @return random k-combination with permutations from {@code n}
+     */
+    public static int[] combinationWithPermutations(SplittableRandom random, int n, int k) {
+        return combinationWithPermutations(random, n, k, new int[k]);
+    }
+
+    /**
+     * Writes uniformly random k-combination with permutations from {@code n} ({@code k} distinct numbers from {@code
+     * [0, n)} in random order) into the first {@code k} elements of {@code result}.
+     *
+     * @param random source of randomness
+     * @param n      the total
+     * @param k      combination length
+     * @param result array to write the combination into
+     * @return {@code result}
+     */
+    public static int[] combinationWithPermutations(SplittableRandom random, int n, int k, int[] result) {
+        combination(random, n, k, result);
+        return shuffle(random, result, k);
+    }
+
+    /**
+     * Returns uniformly random composition of {@code integer} into {@code nPartitions} non-negative parts.
+     *
+     * @param random      source of randomness
+     * @param integer     the sum
+     * @param nPartitions number of partitions
+     * @return random composition
+     * @see IntCompositions
+     */
+    public static int[] composition(SplittableRandom random, int integer, int nPartitions) {
+        return composition(random, integer, nPartitions, new int[nPartitions]);
+    }
+
+    /**
+     * Writes uniformly random composition of {@code integer} into {@code nPartitions} non-negative parts into the first
+     * {@code nPartitions} elements of {@code result}.
+     *
+     * @param random      source of randomness
+     * @param integer     the sum
+     * @param nPartitions number of partitions
+     * @param result      array to write the composition into
+     * @return {@code result}
+     * @see IntCompositions
+     */
+    public static int[] composition(SplittableRandom random, int integer, int nPartitions, int[] result) {
+        if (integer < 0 || nPartitions < 1)
+            throw new IllegalArgumentException("integer < 0 or nPartitions < 1");
+        final int total = integer + nPartitions - 1, last = nPartitions - 1;
+        // positions of separators between parts
+        combination(random, total, last, result);
+        if (last == 0) {
+            result[0] = integer;
+            return result;
+        }
+        result[last] = total - 1 - result[last - 1];
+        for (int i = last - 1; i > 0; --i)
+            result[i] = result[i] - result[i - 1] - 1;
+        return result;
+    }
+
+    /**
+     * Returns uniformly random tuple [e<sub>1</sub>, ..., e<sub>N</sub>] with 0 &lt;= e<sub>i</sub> &lt;
+     * upperBounds<sub>i</sub>.
+     *
+     * @param random      source of randomness
+     * @param upperBounds the bounds on the tuple elements
+     * @return random tuple
+     * @see IntTuples
+     */
+    public static int[] tuple(SplittableRandom random, int... upperBounds) {
+        return tuple(random, upperBounds, new int[upperBounds.length]);
+    }
+
+    /**
+     * Writes uniformly random tuple [e<sub>1</sub>, ..., e<sub>N</sub>] with 0 &lt;= e<sub>i</sub> &lt;
+     * upperBounds<sub>i</sub> into {@code result}.
+     *
+     * @param random      source of randomness
+     * @param upperBounds the bounds on the tuple elements
+     * @param result      array to write the tuple into
+     * @return {@code result}
+     * @see IntTuples
+     */
+    public static int[] tuple(SplittableRandom random, int[] upperBounds, int[] result) {
+        for (int i = 0; i < upperBounds.length; ++i) {
+            if (upperBounds[i] <= 0)
+                throw new IllegalArgumentException("Upper bound should be positive.");
+            result[i] = random.nextInt(upperBounds[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Stream of {@code size} independent uniformly random k-combinations from {@code n}.
+     *
+     * @param random source of randomness (only a single value will be drawn from it)
+     * @param size   number of samples
+     * @param n      the total
+     * @param k      combination length
+     */
+    public static Stream<int[]> combinations(SplittableRandom random, long size, int n, int k) {
+        checkCombination(n, k, null);
+        long seed = random.nextLong();
+        return indices(size).mapToObj(i -> combination(elementRandom(seed, i), n, k));
+    }
+
+    /**
+     * Stream of {@code size} independent uniformly random permutations of specified dimension.
+     *
+     * @param random    source of randomness (only a single value will be drawn from it)
+     * @param size      number of samples
+     * @param dimension dimension of permutations
+     */
+    public static Stream<int[]> permutations(SplittableRandom random, long size, int dimension) {
+        long seed = random.nextLong();
+        return indices(size).mapToObj(i -> permutation(elementRandom(seed, i), dimension));
+    }
+
+    /**
+     * Stream of {@code size} independent uniformly random k-combinations with permutations from {@code n}.
+     *
+     * @param random source of randomness (only a single value will be drawn from it)
+     * @param size   number of samples
+     * @param n      the total
+     * @param k      combination length
+     */
+    public static Stream<int[]> combinationsWithPermutations(SplittableRandom random, long size, int n, int k) {
+        checkCombination(n, k, null);
+        long seed = random.nextLong();
+        return indices(size).mapToObj(i -> combinationWithPermutations(elementRandom(seed, i), n, k));
+    }
+
+    /**
+     * Stream of {@code size} independent uniformly random compositions of {@code integer} into {@code nPartitions}
+     * parts.
+     *
+     * @param random      source of randomness (only a single value will be drawn from it)
+     * @param size        number of samples
+     * @param integer     the sum
+     * @param nPartitions number of partitions
+     */
+    public static Stream<int[]> compositions(SplittableRandom random, long size, int integer, int nPartitions) {
+        long seed = random.nextLong();
+        return indices(size).mapToObj(i -> composition(elementRandom(seed, i), integer, nPartitions));
+    }
+
+    /**
+     * Stream of {@code size} independent uniformly random tuples.
+     *
+     * @param random      source of randomness (only a single value will be drawn from it)
+     * @param size        number of samples
+     * @param upperBounds the bounds on the tuple elements
+     */
+    public static Stream<int[]> tuples(SplittableRandom random, long size, int... upperBounds) {
+        final int[] bounds = upperBounds.clone();
+        long seed = random.nextLong();
+        return indices(size).mapToObj(i -> tuple(elementRandom(seed, i), bounds));
+    }
+
+    private static LongStream indices(long size) {
+        if (size < 0)
+            throw new IllegalArgumentException("Negative stream size.");
+        return LongStream.range(0, size);
+    }
+
+    /** Odd constant used by SplittableRandom to spread seeds */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Random generator for the i-th element of a stream; depends only on the stream seed and the index
+     */
+    static SplittableRandom elementRandom(long seed, long index) {
+        return new SplittableRandom(mix64(seed + GOLDEN_GAMMA * (index + 1)));
+    }
+
+    /** Stafford's variant 13 of the 64-bit finalizer */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static void checkCombination(int n, int k, int[] result) {
+        if (k < 0 || n < k)
+            throw new IllegalArgumentException(" n < k ");
+        if (result != null && result.length < k)
+            throw new IllegalArgumentException("Result array is too short.");
+    }
+
+    /**
+     * Knuth's selection sampling (Algorithm S): a single pass over {@code [0, n)}, produces sorted output
+     */
+    private static void selectionSampling(SplittableRandom random, int n, int k, int[] result) {
+        int needed = k;
+        for (int i = 0; needed > 0; ++i)
+            if (random.nextInt(n - i) < needed)
+                result[k - needed--] = i;
+    }
+
+    /**
+     * Floyd's algorithm; the sample is kept sorted, so membership test is a binary search
+     */
+    private static void floydSorted(SplittableRandom random, int n, int k, int[] result) {
+        int size = 0;
+        for (int j = n - k; j < n; ++j) {
+            int t = random.nextInt(j + 1);
+            int pos = Arrays.binarySearch(result, 0, size, t);
+            if (pos >= 0)
+                // j is greater than all elements of the sample
+                result[size] = j;
+            else {
+                pos = -pos - 1;
+                System.arraycopy(result, pos, result, pos + 1, size - pos);
+                result[pos] = t;
+            }
+            ++size;
+        }
+    }
+
+    /**
+     * Floyd's algorithm with open-addressing hash set for membership test
+     */
+    private static void floydHashed(SplittableRandom random, int n, int k, int[] result) {
+        final int[] table = new int[Integer.highestOneBit(k) << 2];
+        final int shift = Integer.numberOfLeadingZeros(table.length) + 1;
+        Arrays.fill(table, -1);
+        int size = 0;
+        for (int j = n - k; j < n; ++j) {
+            int t = random.nextInt(j + 1);
+            if (!add(table, shift, t)) {
+                t = j;
+                add(table, shift, t);
+            }
+            result[size++] = t;
+        }
+        Arrays.sort(result, 0, k);
+    }
+
+    private static boolean add(int[] table, int shift, int value) {
+        final int mask = table.length - 1;
+        int i = (value * 0x9E3779B9) >>> shift;
+        while (table[i] != -1) {
+            if (table[i] == value)
+                return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = value;
+        return true;
+    }
+}
@@ -0,0 +1,327 @@
+package cc.redberry.combinatorics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe store of permutation priorities which can be shared by many threads. This is a concurrent counterpart of
+ * {@link IntPermutationsWithPriority}: each thread obtains its own {@link SnapshotCursor} via {@link #cursor()}, which
+ * iterates over all permutations starting with the learned ones in the order of decreasing priority, and invocation
+ * of {@link SnapshotCursor#nice()} increases the priority of the last returned permutation for all threads.
+ *
+ * <p>Implementation note: priorities are kept in {@link LongAdder} counters of a {@link ConcurrentHashMap}, so
+ * concurrent updates do not block each other. Cursors iterate over an immutable snapshot of the learned ordering; the
+ * snapshot is re-sorted lazily, when a cursor is created or reset and at least {@code resortInterval} updates occurred
+ * since the last sorting (or on explicit invocation of {@link #refresh()}). Permutations with equal priorities are
+ * ordered by the time they were learned.
+ *
+ * <p>Learned priorities can be exported via {@link #export(DataOutput)} and loaded at startup via {@link
+ * #load(DataInput)}.
+ *
+ * @author Stanislav Poslavsky
+ * @see IntPermutationsWithPriority
+ * @since 2.2
+ */
+public final class SharedPermutationPriorities {
+    private static final int MAGIC = 0x50504252;
+    private static final int VERSION = 1;
+
+    private final int dimension;
+    private final long resortInterval;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder updates = new LongAdder();
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates store of priorities of permutations of specified dimension, which re-sorts learned permutations after
+     * each update
+     *
+     * @param dimension dimension of permutations
+     */
+    public SharedPermutationPriorities(int dimension) {
+        this(dimension, 1);
+    }
+
+    /**
+     * Creates store of priorities of permutations of specified dimension
+     *
+     * @param dimension      dimension of permutations
+     * @param resortInterval minimal number of updates after which the learned ordering will be re-sorted
+     * @throws IllegalArgumentException if dimension is negative or resortInterval is not positive
+     */
+    public SharedPermutationPriorities(int dimension, long resortInterval) {
+        if (dimension < 0)
+            throw new IllegalArgumentException("Negative dimension.");
+        if (resortInterval < 1)
+            throw new IllegalArgumentException("Resort interval should be positive.");
+        this.dimension = dimension;
+        this.resortInterval = resortInterval;
+        this.snapshot = new Snapshot(new int[0][], new PermutationSet(dimension), 0);
+    }
+
+    /**
+     * Returns dimension of permutations
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the number of learned permutations
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the current priority of the specified permutation (zero if it was never learned)
+     *
+     * @param permutation permutation
+     * @return priority of the permutation
+     */
+    public long priority(int[] permutation) {
+        Entry entry = entries.get(new Key(permutation));
+        return entry == null ? 0 : entry.priority.sum();
+    }
+
+    /**
+     * Increases the priority of the specified permutation by one.
+     *
+     * @param permutation permutation (will be copied if it was not learned before)
+     * @throws IllegalArgumentException if permutation has wrong dimension
+     */
+    public void nice(int[] permutation) {
+        nice(permutation, 1);
+    }
+
+    private void nice(int[] permutation, long delta) {
+        if (permutation.length != dimension)
+            throw new IllegalArgumentException("Wrong permutation dimension.");
+        Key key = new Key(permutation);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            key = new Key(permutation.clone());
+            entry = entries.computeIfAbsent(key, k -> new Entry(k.permutation, sequence.getAndIncrement()));
+        }
+        entry.priority.add(delta);
+        updates.increment();
+    }
+
+    /**
+     * Re-sorts learned permutations, so that all updates made so far become visible to cursors created or reset after
+     * this invocation.
+     */
+    public synchronized void refresh() {
+        long nUpdates = updates.sum();
+        if (snapshot.updates == nUpdates)
+            return;
+        List<Entry> list = new ArrayList<>(entries.values());
+        long[] priorities = new long[list.size()];
+        Integer[] order = new Integer[list.size()];
+        for (int i = 0; i < order.length; ++i) {
+            order[i] = i;
+            priorities[i] = list.get(i).priority.sum();
+        }
+        Arrays.sort(order, (a, b) -> {
+            int c = Long.compare(priorities[b], priorities[a]);
+            return c != 0 ? c : Long.compare(list.get(a).sequence, list.get(b).sequence);
+        });
+        int[][] permutations = new int[order.length][];
+        PermutationSet set = new PermutationSet(dimension);
+        for (int i = 0; i < order.length; ++i) {
+            permutations[i] = list.get(order[i]).permutation;
+            set.add(permutations[i]);
+        }
+        snapshot = new Snapshot(permutations, set, nUpdates);
+    }
+
+    private Snapshot currentSnapshot() {
+        if (updates.sum() - snapshot.updates >= resortInterval)
+            refresh();
+        return snapshot;
+    }
+
+    /**
+     * Returns new cursor over all permutations, which starts with the learned ones. Cursors are not thread-safe, so
+     * each thread should use its own cursor.
+     *
+     * @return new cursor
+     */
+    public SnapshotCursor cursor() {
+        return new SnapshotCursor();
+    }
+
+    /**
+     * Writes all learned permutations with their priorities to the specified output.
+     *
+     * @param output output
+     * @throws IOException if an I/O error occurs
+     */
+    public void export(DataOutput output) throws IOException {
+        List<Entry> list = new ArrayList<>(entries.values());
+        list.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(dimension);
+        output.writeInt(list.size());
+        for (Entry entry : list) {
+            for (int i : entry.permutation)
+                output.writeInt(i);
+            output.writeLong(entry.priority.sum());
+        }
+    }
+
+    /**
+     * Reads permutations with their priorities written by {@link #export(DataOutput)} and adds the priorities to the
+     * learned ones.
+     *
+     * @param input input
+     * @throws IOException              if an I/O error occurs or input has wrong format
+     * @throws IllegalArgumentException if dimension of stored permutations differs from the dimension of this store
+     */
+    public void load(DataInput input) throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION)
+            throw new IOException("Not a permutation priorities data.");
+        if (input.readInt() != dimension)
+            throw new IllegalArgumentException("Wrong permutation dimension.");
+        int size = input.readInt();
+        if (size < 0)
+            throw new IOException("Malformed permutation priorities data.");
+        int[] permutation = new int[dimension];
+        boolean[] seen = new boolean[dimension];
+        for (int n = 0; n < size; ++n) {
+            Arrays.fill(seen, false);
+            for (int i = 0; i < dimension; ++i) {
+                int p = input.readInt();
+                if (p < 0 || p >= dimension || seen[p])
+                    throw new IOException("Malformed permutation priorities data.");
+                seen[p] = true;
+                permutation[i] = p;
+            }
+            long priority = input.readLong();
+            if (priority < 0)
+                throw new IOException("Malformed permutation priorities data.");
+            nice(permutation, priority);
+        }
+        refresh();
+    }
+
+    /**
+     * Single-threaded iterator over all permutations, which returns learned permutations first (in the order of
+     * decreasing priority at the moment of creation or the last reset) and then all other permutations in
+     * lexicographic order.
+     *
+     * <p><b>Note:</b> method {@link #take()} returns the same reference on each invocation.
+     *
+     * <p><b>Note:</b> cursor is not serializable, since it refers to the shared store.
+     */
+    public final class SnapshotCursor implements IntCombinatorialPort {
+        private static final long serialVersionUID = -3477913489055734392L;
+        private final IntPermutations generator = new IntPermutations(dimension);
+        private final int[] buffer = new int[dimension];
+        private Snapshot snapshot = currentSnapshot();
+        private int pointer = 0;
+        private int[] last = null;
+
+        private SnapshotCursor() {}
+
+        @Override
+        public int[] take() {
+            if (pointer < snapshot.permutations.length) {
+                System.arraycopy(snapshot.permutations[pointer++], 0, buffer, 0, dimension);
+                return last = buffer;
+            }
+            int[] next;
+            do {
+                if (!generator.hasNext())
+                    return last = null;
+                next = generator.next();
+            } while (snapshot.set.contains(next));
+            return last = next;
+        }
+
+        /**
+         * Increases the priority of the last returned permutation in the shared store.
+         *
+         * @throws IllegalStateException if there is no last returned permutation
+         */
+        public void nice() {
+            if (last == null)
+                throw new IllegalStateException("No permutation was taken.");
+            SharedPermutationPriorities.this.nice(last);
+        }
+
+        /**
+         * Resets the cursor and picks up the latest learned ordering.
+         */
+        @Override
+        public void reset() {
+            generator.reset();
+            snapshot = currentSnapshot();
+            pointer = 0;
+            last = null;
+        }
+
+        @Override
+        public int[] getReference() {
+            return last;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            throw new NotSerializableException("Cursor over shared permutation priorities is not serializable.");
+        }
+    }
+
+    private static final class Snapshot {
+        final int[][] permutations;
+        final PermutationSet set;
+        final long updates;
+
+        Snapshot(int[][] permutations, PermutationSet set, long updates) {
+            this.permutations = permutations;
+            this.set = set;
+            this.updates = updates;
+        }
+    }
+
+    private static final class Entry {
+        final int[] permutation;
+        final long sequence;
+        final LongAdder priority = new LongAdder();
+
+        Entry(int[] permutation, long sequence) {
+            this.permutation = permutation;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class Key {
+        final int[] permutation;
+        final int hash;
+
+        Key(int[] permutation) {
+            this.permutation = permutation;
+            this.hash = Arrays.hashCode(permutation);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(permutation, ((Key) o).permutation);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
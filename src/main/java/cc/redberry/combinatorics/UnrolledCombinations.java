@@ -0,0 +1,156 @@
+package cc.redberry.combinatorics;
+
+import java.util.function.Consumer;
+
+/**
+ * Hand-unrolled loop nests for enumeration of combinations and combinations with permutations for small fixed
+ * {@code k}. The loops hold their state in local variables and feed the consumer directly, so the JIT compiler is able
+ * to inline the whole loop nest together with the consumer. A loop nest cannot be suspended between elements, so these
+ * loops are used only by the {@code forEach} methods of {@link Combinatorics} and never by iterators.
+ *
+ * @author Stanislav Poslavsky
+ * @see Combinatorics#forEachCombination(int, int, Consumer)
+ * @since 2.2
+ */
+final class UnrolledCombinations {
+    private UnrolledCombinations() {}
+
+    /** maximal k for which unrolled loops exist */
+    static final int MAX_K = 6;
+
+    /**
+     * Enumerates k-combinations from n with unrolled loops; returns false if k is not supported
+     */
+    static boolean combinations(int n, int k, Consumer<int[]> consumer) {
+        switch (k) {
+            case 2:
+                combinations2(n, consumer);
+                return true;
+            case 3:
+                combinations3(n, consumer);
+                return true;
+            case 4:
+                combinations4(n, consumer);
+                return true;
+            case 5:
+                combinations5(n, consumer);
+                return true;
+            case 6:
+                combinations6(n, consumer);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Enumerates k-combinations with permutations from n (in the same order as {@link
+     * IntCombinationsWithPermutations}) with unrolled loops; returns false if k is not supported
+     */
+    static boolean combinationsWithPermutations(int n, int k, Consumer<int[]> consumer) {
+        if (k < 2 || k > MAX_K)
+            return false;
+        final int[][] permutations = PERMUTATIONS[k];
+        final int[] e = new int[k];
+        return combinations(n, k, combination -> {
+            for (int[] permutation : permutations) {
+                for (int i = 0; i < permutation.length; ++i)
+                    e[i] = combination[permutation[i]];
+                consumer.accept(e);
+            }
+        });
+    }
+
+    /** all permutations of dimension k in lexicographic order for k <= MAX_K */
+    private static final int[][][] PERMUTATIONS = new int[MAX_K + 1][][];
+
+    static {
+        for (int k = 0; k <= MAX_K; ++k)
+            PERMUTATIONS[k] = new IntCombinationsWithPermutations(k, k).toList().toArray(new int[0][]);
+    }
+
+    static void combinations2(int n, Consumer<int[]> consumer) {
+        final int[] element = new int[2];
+        for (int a = 0; a < n - 1; ++a) {
+            element[0] = a;
+            for (int b = a + 1; b < n; ++b) {
+                element[1] = b;
+                consumer.accept(element);
+            }
+        }
+    }
+
+    static void combinations3(int n, Consumer<int[]> consumer) {
+        final int[] element = new int[3];
+        for (int a = 0; a < n - 2; ++a) {
+            element[0] = a;
+            for (int b = a + 1; b < n - 1; ++b) {
+                element[1] = b;
+                for (int c = b + 1; c < n; ++c) {
+                    element[2] = c;
+                    consumer.accept(element);
+                }
+            }
+        }
+    }
+
+    static void combinations4(int n, Consumer<int[]> consumer) {
+        final int[] element = new int[4];
+        for (int a = 0; a < n - 3; ++a) {
+            element[0] = a;
+            for (int b = a + 1; b < n - 2; ++b) {
+                element[1] = b;
+                for (int c = b + 1; c < n - 1; ++c) {
+                    element[2] = c;
+                    for (int d = c + 1; d < n; ++d) {
+                        element[3] = d;
+                        consumer.accept(element);
+                    }
+                }
+            }
+        }
+    }
+
+    static void combinations5(int n, Consumer<int[]> consumer) {
+        final int[] element = new int[5];
+        for (int a = 0; a < n - 4; ++a) {
+            element[0] = a;
+            for (int b = a + 1; b < n - 3; ++b) {
+                element[1] = b;
+                for (int c = b + 1; c < n - 2; ++c) {
+                    element[2] = c;
+                    for (int d = c + 1; d < n - 1; ++d) {
+                        element[3] = d;
+                        for (int e = d + 1; e < n; ++e) {
+                            element[4] = e;
+                            consumer.accept(element);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    static void combinations6(int n, Consumer<int[]> consumer) {
+        final int[] element = new int[6];
+        for (int a = 0; a < n - 5; ++a) {
+            element[0] = a;
+            for (int b = a + 1; b < n - 4; ++b) {
+                element[1] = b;
+                for (int c = b + 1; c < n - 3; ++c) {
+                    element[2] = c;
+                    for (int d = c + 1; d < n - 2; ++d) {
+                        element[3] = d;
+                        for (int e = d + 1; e < n - 1; ++e) {
+                            element[4] = e;
+                            for (int f = e + 1; f < n; ++f) {
+                                element[5] = f;
+                                consumer.accept(element);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
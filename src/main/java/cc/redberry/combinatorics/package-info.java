@@ -23,8 +23,60 @@
  * <tr> <td>{@link cc.redberry.combinatorics.IntPermutationsWithPriority}</td> <td>Enumerates all permutations of
  * dimension N (N! permutations) and allows to affect on the enumeration order.</td> </tr>
  *
+ * <tr> <td>{@link cc.redberry.combinatorics.SharedPermutationPriorities}</td> <td>Thread-safe store of permutation
+ * priorities, which can be shared by cursors over permutations in many threads.</td> </tr>
+ *
  * <tr> <td>{@link cc.redberry.combinatorics.IntCompositions}</td> <td>Enumerates all integer compositions.</td> </tr>
  *
+ * <tr> <td>{@link cc.redberry.combinatorics.IntCanonicalPermutations}</td> <td>Enumerates canonical representatives of
+ * permutations under a symmetry group of positions (N!/|G| permutations).</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.IntCartesianProduct}</td> <td>Enumerates Cartesian product of arbitrary
+ * combinatorial generators.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.Cursor}</td> <td>Single-call cursor API ({@code advance()} plus {@code
+ * current()}) implemented by all generators.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.IntCombinatorialSpace}</td> <td>Ranking, unranking and deterministic
+ * sharding of combinations, permutations, tuples and compositions.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.CombinatorialPublishers}</td> <td>Reactive publishers of combinatorial
+ * elements with backpressure.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.InstrumentedIterator}</td> <td>Wrapper of iterators which collects
+ * progress metrics (throughput, fraction complete, ETA) available via JMX.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.ParallelSearch}</td> <td>Parallel short-circuit search of elements
+ * satisfying a predicate with cancellation, time and element limits.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.BufferSink}</td> <td>Sink which writes elements of ports directly into
+ * (direct) byte buffers in the specified element width and byte order.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.IntNecklaces}</td> <td>Iterator over necklaces, Lyndon words and
+ * bracelets, optionally with fixed content.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.Permutations}</td> <td>Allocation-free operations on permutations
+ * (composition, inversion, permuting arrays, cycles, sign, order) in one-line and packed forms.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.IntLinearTuples}</td> <td>Iterator over tuples satisfying linear
+ * (weighted-sum) constraint with bound propagation.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.IntCombinationsByCost}, {@link
+ * cc.redberry.combinatorics.IntTuplesByCost}</td> <td>Lazy best-first enumeration of combinations and tuples in the
+ * order of increasing additive cost.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.PrefetchingCursor}</td> <td>Cursor which generates elements on a
+ * background thread into a lock-free single-producer/single-consumer ring buffer.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.IntPerfectMatchings}</td> <td>Iterator over perfect matchings
+ * (pairings) of 2n points with optional forbidden pairs.</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.IntPermutationsByCycleType}</td> <td>Iterator over permutations with
+ * given cycle type (conjugacy class of the symmetric group).</td> </tr>
+ *
+ * <tr> <td>{@link cc.redberry.combinatorics.IntMultisetCombinations}</td> <td>Iterator over distinct
+ * k-submultisets of a multiset given by multiplicities.</td> </tr>
+ *
  * </table> </p>
  *
  * @since 1.0
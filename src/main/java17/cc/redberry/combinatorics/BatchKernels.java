@@ -0,0 +1,53 @@
+package cc.redberry.combinatorics;
+
+/**
+ * Kernels for batch generation of tuples and compositions into flat buffers (Java 17+ version). Delegates to SIMD
+ * kernels from {@code jdk.incubator.vector} if this module is enabled (with {@code --add-modules
+ * jdk.incubator.vector}), and to the scalar code otherwise; the results are exactly the same.
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+final class BatchKernels {
+    private BatchKernels() {}
+
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !Boolean.getBoolean("cc.redberry.combinatorics.noVectorization");
+
+    /**
+     * Whether the SIMD kernels are used
+     */
+    static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Writes {@code run} rows of the specified width starting at {@code offset}; row {@code i} is equal to {@code
+     * first} except the last element which is {@code first[width - 1] + i}.
+     */
+    static void tuplesRun(int[] first, int width, int[] out, int offset, int run) {
+        if (VECTORIZED && run >= VectorKernels.LANES) {
+            VectorKernels.tuplesRun(first, width, out, offset, run);
+            return;
+        }
+        final int last = width - 1, value = first[last];
+        for (int i = 0; i < run; ++i, offset += width) {
+            System.arraycopy(first, 0, out, offset, last);
+            out[offset + last] = value + i;
+        }
+    }
+
+    /**
+     * Converts rows of extended separators [-1, s<sub>1</sub>, ..., s<sub>n-1</sub>, integer + n - 1] (each row of
+     * length {@code width + 1}) into rows of compositions of length {@code width}: part<sub>i</sub> =
+     * s<sub>i+1</sub> - s<sub>i</sub> - 1. The {@code separators} array is used as a scratch space.
+     */
+    static void separatorsToParts(int[] separators, int rows, int width, int[] out, int offset) {
+        final int length = rows * (width + 1) - 1;
+        int j = VECTORIZED ? VectorKernels.differences(separators, length) : 0;
+        for (; j < length; ++j)
+            separators[j] = separators[j + 1] - separators[j] - 1;
+        for (int r = 0; r < rows; ++r)
+            System.arraycopy(separators, r * (width + 1), out, offset + r * width, width);
+    }
+}
@@ -0,0 +1,56 @@
+package cc.redberry.combinatorics;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernels for {@link BatchKernels} (loaded only if module {@code jdk.incubator.vector} is enabled).
+ *
+ * @author Stanislav Poslavsky
+ * @since 2.2
+ */
+final class VectorKernels {
+    private VectorKernels() {}
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    static final int LANES = SPECIES.length();
+    /** 0, 1, 2, ... */
+    private static final IntVector IOTA = IntVector.zero(SPECIES).addIndex(1);
+
+    /**
+     * Column-wise fill of {@code run} tuple rows: constant columns are broadcast and the last column is an arithmetic
+     * progression, each scattered with the row stride
+     */
+    static void tuplesRun(int[] first, int width, int[] out, int offset, int run) {
+        final int last = width - 1, bound = SPECIES.loopBound(run);
+        final int[] stride = new int[LANES];
+        for (int i = 0; i < LANES; ++i)
+            stride[i] = i * width;
+        for (int column = 0; column < width; ++column) {
+            IntVector v = column == last
+                    ? IOTA.add(first[last])
+                    : IntVector.broadcast(SPECIES, first[column]);
+            IntVector step = IntVector.broadcast(SPECIES, column == last ? LANES : 0);
+            int i = 0;
+            for (; i < bound; i += LANES, v = v.add(step))
+                v.intoArray(out, offset + i * width + column, stride, 0);
+            for (; i < run; ++i)
+                out[offset + i * width + column] = column == last ? first[last] + i : first[column];
+        }
+    }
+
+    /**
+     * In-place {@code a[j] = a[j + 1] - a[j] - 1} for the vectorizable prefix of {@code [0, length)}; returns the
+     * index from which the scalar loop should continue
+     */
+    static int differences(int[] a, int length) {
+        final int bound = SPECIES.loopBound(length);
+        int j = 0;
+        for (; j < bound; j += LANES) {
+            IntVector current = IntVector.fromArray(SPECIES, a, j);
+            IntVector next = IntVector.fromArray(SPECIES, a, j + 1);
+            next.sub(current).sub(1).intoArray(a, j);
+        }
+        return j;
+    }
+}
@@ -0,0 +1,115 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class BestFirstPortTest {
+    private static double[] randomWeights(Random rnd, int n) {
+        double[] r = new double[n];
+        for (int i = 0; i < n; ++i)
+            r[i] = rnd.nextInt(20);
+        return r;
+    }
+
+    /**
+     * Checks that port returns all expected elements in order of non-decreasing cost
+     */
+    private static void check(BestFirstPort port, List<int[]> all, double[] expectedCosts,
+                              ToDoubleFunction<int[]> cost) {
+        Arrays.sort(expectedCosts);
+        Set<String> seen = new HashSet<>();
+        int count = 0;
+        int[] element;
+        while ((element = port.take()) != null) {
+            Assert.assertEquals(expectedCosts[count], port.getCost(), 0);
+            Assert.assertEquals(port.getCost(), cost.applyAsDouble(element), 0);
+            Assert.assertTrue(seen.add(Arrays.toString(element)));
+            ++count;
+            Assert.assertTrue(port.frontierSize() <= count * element.length + 1);
+        }
+        Assert.assertEquals(all.size(), count);
+        for (int[] e : all)
+            Assert.assertTrue(seen.contains(Arrays.toString(e)));
+    }
+
+    @Test
+    public void testCombinations() throws Exception {
+        Random rnd = new Random(1);
+        for (int n = 0; n < 9; ++n)
+            for (int k = 0; k <= n; ++k) {
+                double[] weights = randomWeights(rnd, n);
+                List<int[]> all = new IntCombinations(n, k).toList();
+                double[] costs = new double[all.size()];
+                for (int i = 0; i < costs.length; ++i)
+                    for (int e : all.get(i))
+                        costs[i] += weights[e];
+                check(new IntCombinationsByCost(weights, k), all, costs, c -> {
+                    double s = 0;
+                    for (int e : c)
+                        s += weights[e];
+                    return s;
+                });
+            }
+    }
+
+    @Test
+    public void testTuples() throws Exception {
+        Random rnd = new Random(2);
+        for (int t = 0; t < 30; ++t) {
+            int dimension = 1 + rnd.nextInt(4);
+            double[][] costs = new double[dimension][];
+            int[] bounds = new int[dimension];
+            for (int i = 0; i < dimension; ++i) {
+                bounds[i] = 1 + rnd.nextInt(4);
+                costs[i] = randomWeights(rnd, bounds[i]);
+            }
+            List<int[]> all = new IntCombinatorialPort.Iterator(new IntTuples(bounds)).toList();
+            double[] expected = new double[all.size()];
+            for (int i = 0; i < expected.length; ++i)
+                for (int j = 0; j < dimension; ++j)
+                    expected[i] += costs[j][all.get(i)[j]];
+            check(new IntTuplesByCost(costs), all, expected, c -> {
+                double s = 0;
+                for (int j = 0; j < c.length; ++j)
+                    s += costs[j][c[j]];
+                return s;
+            });
+        }
+    }
+
+    @Test
+    public void testLazy() throws Exception {
+        // 10^30 tuples, take only the cheapest ones
+        double[][] costs = new double[30][10];
+        for (int i = 0; i < 30; ++i)
+            for (int j = 0; j < 10; ++j)
+                costs[i][j] = (j * 7 + i) % 10;
+        IntTuplesByCost port = new IntTuplesByCost(costs);
+        List<Double> taken = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            Assert.assertNotNull(port.take());
+            taken.add(port.getCost());
+        }
+        for (int i = 1; i < taken.size(); ++i)
+            Assert.assertTrue(taken.get(i - 1) <= taken.get(i));
+        port.reset();
+        port.take();
+        Assert.assertEquals(taken.get(0), port.getCost(), 0);
+
+        IntCombinationsByCost combinations = new IntCombinationsByCost(new double[]{5, 1, 3, 2}, 2);
+        Assert.assertArrayEquals(new int[]{1, 3}, combinations.take());
+        Assert.assertEquals(3, combinations.getCost(), 0);
+        Assert.assertArrayEquals(new int[]{1, 2}, combinations.take());
+    }
+}
@@ -0,0 +1,91 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class BufferSinkTest {
+    private static List<int[]> readAll(BufferSink sink, int capacity, int length, ByteOrder order) {
+        List<int[]> r = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(capacity).order(order);
+        int written;
+        while ((written = sink.fill(buffer)) != 0) {
+            buffer.flip();
+            Assert.assertEquals(written * length * sink.getElementWidth().bytes, buffer.remaining());
+            for (int i = 0; i < written; ++i) {
+                int[] element = new int[length];
+                for (int j = 0; j < length; ++j)
+                    switch (sink.getElementWidth()) {
+                        case BYTE:
+                            element[j] = buffer.get() & 0xFF;
+                            break;
+                        case SHORT:
+                            element[j] = buffer.getShort() & 0xFFFF;
+                            break;
+                        default:
+                            element[j] = buffer.getInt();
+                    }
+                r.add(element);
+            }
+            buffer.clear();
+        }
+        Assert.assertFalse(sink.hasRemaining());
+        return r;
+    }
+
+    @Test
+    public void testTuples() throws Exception {
+        List<int[]> expected = new IntCombinatorialPort.Iterator(new IntTuples(3, 4, 5)).toList();
+        for (ElementWidth width : ElementWidth.values())
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN})
+                for (int capacity : new int[]{12, 13, 100, 1000, 10000})
+                    TestUtil.assertElementsEqual(expected,
+                            readAll(new BufferSink(new IntTuples(3, 4, 5), width), capacity, 3, order));
+    }
+
+    @Test
+    public void testCompositions() throws Exception {
+        List<int[]> expected = new IntCombinatorialPort.Iterator(new IntCompositions(6, 4)).toList();
+        for (ElementWidth width : ElementWidth.values())
+            for (int capacity : new int[]{16, 31, 1000})
+                TestUtil.assertElementsEqual(expected, readAll(new BufferSink(new IntCompositions(6, 4), width),
+                        capacity, 4, ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    public void testIterator() throws Exception {
+        List<int[]> expected = new IntCombinations(300, 2).toList();
+        TestUtil.assertElementsEqual(expected, readAll(new BufferSink(new IntCombinations(300, 2), ElementWidth.SHORT),
+                1 << 10, 2, ByteOrder.BIG_ENDIAN));
+        TestUtil.assertElementsEqual(expected, readAll(new BufferSink(new IntCombinations(300, 2), ElementWidth.INT),
+                9, 2, ByteOrder.nativeOrder()));
+    }
+
+    @Test
+    public void testByteOrder() throws Exception {
+        BufferSink sink = new BufferSink(new IntTuples(2), ElementWidth.INT);
+        ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals(2, sink.fill(buffer));
+        Assert.assertEquals(1, buffer.get(4));
+        Assert.assertEquals(0, buffer.get(7));
+    }
+
+    @Test
+    public void testSmallBuffer() throws Exception {
+        BufferSink sink = new BufferSink(new IntTuples(2, 2), ElementWidth.INT);
+        Assert.assertEquals(0, sink.fill(ByteBuffer.allocate(7)));
+        Assert.assertTrue(sink.hasRemaining());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOverflow() throws Exception {
+        new BufferSink(new IntCombinations(300, 1), ElementWidth.BYTE).fill(ByteBuffer.allocate(1000));
+    }
+}
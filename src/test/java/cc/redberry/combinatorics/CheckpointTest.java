@@ -0,0 +1,108 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class CheckpointTest {
+
+    @Test
+    public void testIterators() {
+        assertResumes(() -> new IntCombinations(7, 3));
+        assertResumes(() -> new IntCombinations(3, 0));
+        assertResumes(() -> new IntPermutations(4));
+        assertResumes(() -> new IntCombinationsWithPermutations(5, 3));
+        assertResumes(() -> Combinatorics.tuples(2, 3, 2));
+        assertResumes(() -> Combinatorics.compositions(4, 3));
+        assertResumes(() -> Combinatorics.distinctTuples(new int[]{1, 2, 3}, new int[]{2, 3}, new int[]{1, 3, 4}));
+    }
+
+    private static void assertResumes(Supplier<CombinatorialIterator<int[]>> factory) {
+        List<int[]> all = clonedList(factory.get());
+        for (int stop = 0; stop <= all.size(); ++stop) {
+            CombinatorialIterator<int[]> it = factory.get();
+            for (int i = 0; i < stop; ++i)
+                it.next();
+            CombinatorialIterator<int[]> resumed = Combinatorics.resume(it.checkpoint());
+            List<int[]> rest = clonedList(resumed);
+            TestUtil.assertElementsEqual(all.subList(stop, all.size()), rest);
+        }
+    }
+
+    @Test
+    public void testPorts() {
+        assertResumesPort(() -> new IntTuples(3, 1, 2));
+        assertResumesPort(() -> new IntCompositions(5, 3));
+        assertResumesPort(() -> new IntDistinctTuples(new int[]{0, 1, 2}, new int[]{0, 2, 3}, new int[]{9, 8, 7, 2}));
+        assertResumesPort(() -> new IntPermutationsWithPriority(4));
+    }
+
+    private static void assertResumesPort(Supplier<IntCombinatorialPort> factory) {
+        List<int[]> all = clonedList(factory.get());
+        for (int stop = 0; stop <= all.size(); ++stop) {
+            IntCombinatorialPort port = factory.get();
+            for (int i = 0; i < stop; ++i)
+                port.take();
+            List<int[]> rest = clonedList(Combinatorics.resumePort(port.checkpoint()));
+            TestUtil.assertElementsEqual(all.subList(stop, all.size()), rest);
+        }
+    }
+
+    @Test
+    public void testPermutationsWithPriority() {
+        IntPermutationsWithPriority port = new IntPermutationsWithPriority(4);
+        int[] p;
+        while ((p = port.take()) != null)
+            if (p[0] == 2)
+                port.nice();
+        port.reset();
+        port.take();
+        port.take();
+        port.nice();
+        byte[] token = port.checkpoint();
+        List<int[]> expected = clonedList(port);
+        List<int[]> actual = clonedList(IntPermutationsWithPriority.resume(token));
+        TestUtil.assertElementsEqual(expected, actual);
+    }
+
+    @Test
+    public void testCompact() {
+        IntPermutations permutations = new IntPermutations(10);
+        for (int i = 0; i < 1000; ++i)
+            permutations.next();
+        Assert.assertTrue(permutations.checkpoint().length <= 16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongKind() {
+        IntTuples.resume(new IntCombinations(3, 2).checkpoint());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformed() {
+        byte[] token = new IntCombinations(5, 2).checkpoint();
+        Combinatorics.resume(Arrays.copyOf(token, token.length - 1));
+    }
+
+    private static List<int[]> clonedList(CombinatorialIterator<int[]> it) {
+        List<int[]> r = new ArrayList<>();
+        while (it.hasNext())
+            r.add(it.next().clone());
+        return r;
+    }
+
+    private static List<int[]> clonedList(IntCombinatorialPort port) {
+        List<int[]> r = new ArrayList<>();
+        int[] t;
+        while ((t = port.take()) != null)
+            r.add(t.clone());
+        return r;
+    }
+}
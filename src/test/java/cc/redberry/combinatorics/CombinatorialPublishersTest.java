@@ -0,0 +1,148 @@
+package cc.redberry.combinatorics;
+
+import cc.redberry.combinatorics.CombinatorialPublishers.Publisher;
+import cc.redberry.combinatorics.CombinatorialPublishers.Subscriber;
+import cc.redberry.combinatorics.CombinatorialPublishers.Subscription;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class CombinatorialPublishersTest {
+    private static final class TestSubscriber<T> implements Subscriber<T> {
+        final List<T> items = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile Subscription subscription;
+        volatile Throwable error;
+        volatile boolean complete;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            complete = true;
+            completed.countDown();
+        }
+    }
+
+    @Test
+    public void testExactDemand() throws Exception {
+        Publisher<int[]> publisher = CombinatorialPublishers.publisher(() -> new IntPermutations(4), Runnable::run);
+        TestSubscriber<int[]> subscriber = new TestSubscriber<>();
+        publisher.subscribe(subscriber);
+        Assert.assertEquals(0, subscriber.items.size());
+        subscriber.subscription.request(5);
+        Assert.assertEquals(5, subscriber.items.size());
+        subscriber.subscription.request(7);
+        Assert.assertEquals(12, subscriber.items.size());
+        Assert.assertFalse(subscriber.complete);
+        subscriber.subscription.request(100);
+        Assert.assertEquals(24, subscriber.items.size());
+        Assert.assertTrue(subscriber.complete);
+
+        int i = 0;
+        for (int[] permutation : new IntPermutations(4))
+            Assert.assertArrayEquals(permutation, subscriber.items.get(i++));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        Publisher<int[]> publisher = CombinatorialPublishers.publisher(() -> new IntCombinations(10, 3), Runnable::run);
+        TestSubscriber<int[]> subscriber = new TestSubscriber<>();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(3);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(3);
+        Assert.assertEquals(3, subscriber.items.size());
+        Assert.assertFalse(subscriber.complete);
+    }
+
+    @Test
+    public void testInvalidRequest() throws Exception {
+        Publisher<int[]> publisher = CombinatorialPublishers.publisher(() -> new IntCombinations(10, 3), Runnable::run);
+        TestSubscriber<int[]> subscriber = new TestSubscriber<>();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(0);
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        Publisher<int[][]> publisher = CombinatorialPublishers.batchPublisher(
+                () -> Combinatorics.tuples(3, 3, 3), 10, Runnable::run);
+        TestSubscriber<int[][]> subscriber = new TestSubscriber<>();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(2);
+        Assert.assertEquals(2, subscriber.items.size());
+        subscriber.subscription.request(Long.MAX_VALUE);
+        Assert.assertTrue(subscriber.complete);
+        Assert.assertEquals(3, subscriber.items.size());
+        Assert.assertEquals(7, subscriber.items.get(2).length);
+        int rank = 0;
+        for (int[][] batch : subscriber.items)
+            for (int[] tuple : batch) {
+                Assert.assertEquals(rank, tuple[0] * 9 + tuple[1] * 3 + tuple[2]);
+                ++rank;
+            }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        TestSubscriber<int[]> subscriber = new TestSubscriber<>();
+        CombinatorialPublishers.publisher(() -> IntCombinatorialSpace.tuples(2, 0).iterator(0, 0), Runnable::run)
+                .subscribe(subscriber);
+        Assert.assertTrue(subscriber.complete);
+    }
+
+    @Test
+    public void testShards() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            IntCombinatorialSpace space = IntCombinatorialSpace.permutations(7);
+            List<Publisher<int[]>> shards = CombinatorialPublishers.shards(space, 5, executor);
+            List<TestSubscriber<int[]>> subscribers = new ArrayList<>();
+            for (Publisher<int[]> shard : shards) {
+                TestSubscriber<int[]> subscriber = new TestSubscriber<>();
+                shard.subscribe(subscriber);
+                subscribers.add(subscriber);
+            }
+            for (int i = 0; i < 100; ++i)
+                for (TestSubscriber<int[]> subscriber : subscribers)
+                    subscriber.subscription.request(11);
+            for (TestSubscriber<int[]> subscriber : subscribers)
+                Assert.assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+            long rank = 0;
+            for (TestSubscriber<int[]> subscriber : subscribers) {
+                Assert.assertTrue(subscriber.complete);
+                for (int[] element : subscriber.items)
+                    Assert.assertEquals(rank++, space.rank(element).longValue());
+            }
+            Assert.assertEquals(5040, rank);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -3,6 +3,9 @@ package cc.redberry.combinatorics;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Stanislav Poslavsky
  * @since 1.0
@@ -18,4 +21,24 @@ public class CombinatoricsTest {
         Assert.assertEquals(16, Combinatorics.distinctTuples(array, array2).toList().size());
         Assert.assertEquals(20, Combinatorics.tuples(array, array2).toList().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testNewArrays() throws Exception {
+        assertNewArrays(Combinatorics.tuples(2, 3, 2));
+        assertNewArrays(Combinatorics.compositions(4, 3));
+        assertNewArrays(Combinatorics.distinctTuples(new int[]{1, 2, 3}, new int[]{2, 3}, new int[]{1, 3, 4}));
+
+        CombinatorialIterator<int[]> it = Combinatorics.tuples(2, 3, 2);
+        it.next();
+        assertNewArrays(Combinatorics.resume(it.checkpoint()));
+    }
+
+    private static void assertNewArrays(CombinatorialIterator<int[]> it) {
+        List<int[]> all = new ArrayList<>();
+        while (it.hasNext())
+            all.add(it.next());
+        Assert.assertTrue(all.size() > 1);
+        for (int i = 1; i < all.size(); ++i)
+            Assert.assertNotSame(all.get(i - 1), all.get(i));
+    }
+}
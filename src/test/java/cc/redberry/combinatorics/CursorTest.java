@@ -0,0 +1,79 @@
+package cc.redberry.combinatorics;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class CursorTest {
+    @After
+    public void tearDown() throws Exception {
+        IntTableCache.disable();
+    }
+
+    @Test
+    public void testGenerators() throws Exception {
+        for (int n = 0; n < 7; ++n) {
+            TestUtil.assertElementsEqual(new IntCombinationsWithPermutations(n, n).toList(),
+                    TestUtil.drain(new IntPermutations(n)));
+            for (int k = 0; k <= n; ++k) {
+                TestUtil.assertElementsEqual(new IntCombinations(n, k).toList(),
+                        TestUtil.drain(new IntCombinations(n, k)));
+                TestUtil.assertElementsEqual(new IntCombinationsWithPermutations(n, k).toList(),
+                        TestUtil.drain(new IntCombinationsWithPermutations(n, k)));
+            }
+        }
+        TestUtil.assertElementsEqual(Combinatorics.tuples(2, 3, 1).toList(),
+                TestUtil.drain(new IntTuples(2, 3, 1)));
+        TestUtil.assertElementsEqual(Combinatorics.compositions(4, 3).toList(),
+                TestUtil.drain(new IntCompositions(4, 3)));
+    }
+
+    @Test
+    public void testPermutationsToList() throws Exception {
+        List<int[]> expected = new ArrayList<>();
+        IntPermutations it = new IntPermutations(5);
+        while (it.hasNext())
+            expected.add(it.next().clone());
+        Assert.assertEquals(120, expected.size());
+        TestUtil.assertElementsEqual(expected, TestUtil.drain(new IntPermutations(5)));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        IntCombinationsWithPermutations cursor = new IntCombinationsWithPermutations(5, 3);
+        List<int[]> first = TestUtil.drain(cursor);
+        cursor.reset();
+        TestUtil.assertElementsEqual(first, TestUtil.drain(cursor));
+    }
+
+    @Test
+    public void testCached() throws Exception {
+        IntTableCache.enable(1 << 20);
+        CombinatorialIterator<int[]> cached = Combinatorics.combinations(7, 3);
+        Assert.assertTrue(cached instanceof Cursor);
+        TestUtil.assertElementsEqual(new IntCombinations(7, 3).toList(), TestUtil.drain((Cursor) cached));
+    }
+
+    @Test
+    public void testPortIterator() throws Exception {
+        IntTuples port = new IntTuples(2, 2);
+        IntCombinatorialPort.Iterator it = new IntCombinatorialPort.Iterator(port);
+        // lazy
+        Assert.assertArrayEquals(new int[]{0, -1}, port.getReference());
+        Assert.assertTrue(it.hasNext());
+        Assert.assertArrayEquals(new int[]{0, 0}, it.next());
+        Assert.assertSame(port.getReference(), it.next());
+        it.next();
+        it.next();
+        Assert.assertFalse(it.hasNext());
+        Assert.assertFalse(IntCombinatorialPort.Iterator.resume(it.checkpoint()).hasNext());
+        it.reset();
+        Assert.assertEquals(4, it.toList().size());
+    }
+}
@@ -0,0 +1,73 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class InstrumentedIteratorTest {
+    @Test
+    public void testProgress() throws Exception {
+        List<Long> reports = new ArrayList<>();
+        InstrumentedIterator<int[]> it = InstrumentedIterator.of("test", IntCombinatorialSpace.permutations(6),
+                100, metrics -> reports.add(metrics.getEmitted()));
+        Assert.assertEquals(720, it.getTotal());
+        Assert.assertEquals(0.0, it.getFractionComplete(), 0);
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            ++count;
+        }
+        Assert.assertEquals(720, count);
+        Assert.assertTrue(it.isFinished());
+        Assert.assertEquals(720, it.getEmitted());
+        Assert.assertEquals(1.0, it.getFractionComplete(), 0);
+        Assert.assertEquals(0.0, it.getEstimatedSecondsRemaining(), 0);
+        // publish interval is rounded to 128
+        Assert.assertEquals(6, reports.size());
+        for (int i = 0; i < 5; ++i)
+            Assert.assertEquals(128L * (i + 1), (long) reports.get(i));
+        Assert.assertEquals(720L, (long) reports.get(5));
+
+        it.reset();
+        Assert.assertFalse(it.isFinished());
+        Assert.assertEquals(0, it.getEmitted());
+        Assert.assertEquals(720, it.toList().size());
+    }
+
+    @Test
+    public void testUnknownTotal() throws Exception {
+        InstrumentedIterator<int[]> it = new InstrumentedIterator<>("test", new IntCombinations(5, 2), -1, 1, null);
+        it.next();
+        it.next();
+        Assert.assertEquals(2, it.getEmitted());
+        Assert.assertTrue(Double.isNaN(it.getFractionComplete()));
+        Assert.assertTrue(Double.isNaN(it.getEstimatedSecondsRemaining()));
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        InstrumentedIterator<int[]> it = InstrumentedIterator.of("jmx test", IntCombinatorialSpace.combinations(8, 3),
+                1, null);
+        ObjectName name = it.register();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assert.assertTrue(server.isRegistered(name));
+            for (int i = 0; i < 14; ++i)
+                it.next();
+            Assert.assertEquals(56L, server.getAttribute(name, "Total"));
+            Assert.assertEquals(14L, server.getAttribute(name, "Emitted"));
+            Assert.assertEquals(0.25, (Double) server.getAttribute(name, "FractionComplete"), 1e-12);
+        } finally {
+            it.unregister();
+        }
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -0,0 +1,118 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static cc.redberry.combinatorics.Combinatorics.arrayComparator;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class IntCanonicalPermutationsTest {
+
+    @Test
+    public void testGroupOrder() {
+        // S3 x Z2 acting on {0,1,2} and {3,4}
+        PermutationGroup group = new PermutationGroup(5,
+                new int[]{1, 0, 2, 3, 4}, new int[]{1, 2, 0, 3, 4}, new int[]{0, 1, 2, 4, 3});
+        Assert.assertEquals(BigInteger.valueOf(12), group.order());
+        Assert.assertTrue(group.contains(new int[]{2, 1, 0, 4, 3}));
+        Assert.assertFalse(group.contains(new int[]{3, 1, 2, 0, 4}));
+        Assert.assertEquals(BigInteger.valueOf(40320), new PermutationGroup(8,
+                new int[]{1, 0, 2, 3, 4, 5, 6, 7}, new int[]{1, 2, 3, 4, 5, 6, 7, 0}).order());
+    }
+
+    @Test
+    public void testRandomGroups() {
+        SplittableRandom rnd = new SplittableRandom(17);
+        for (int t = 0; t < 30; ++t) {
+            int degree = 1 + rnd.nextInt(6);
+            int[][] generators = new int[rnd.nextInt(3)][];
+            for (int i = 0; i < generators.length; ++i)
+                generators[i] = randomSparsePermutation(rnd, degree);
+            assertCanonical(degree, generators);
+        }
+    }
+
+    @Test
+    public void testSymmetricBlocks() {
+        assertCanonical(6, new int[]{1, 0, 2, 3, 4, 5}, new int[]{0, 1, 3, 2, 4, 5}, new int[]{0, 1, 2, 3, 5, 4});
+        assertCanonical(6, new int[]{2, 3, 0, 1, 4, 5}, new int[]{1, 0, 2, 3, 4, 5});
+        assertCanonical(7, new int[]{1, 2, 3, 4, 5, 6, 0});
+        assertCanonical(0);
+    }
+
+    private static int[] randomSparsePermutation(SplittableRandom rnd, int degree) {
+        int[] p = new int[degree];
+        for (int i = 0; i < degree; ++i)
+            p[i] = i;
+        int nSwaps = rnd.nextInt(3);
+        for (int i = 0; i < nSwaps; ++i) {
+            int a = rnd.nextInt(degree), b = rnd.nextInt(degree);
+            int tmp = p[a];
+            p[a] = p[b];
+            p[b] = tmp;
+        }
+        return p;
+    }
+
+    private static void assertCanonical(int degree, int[]... generators) {
+        PermutationGroup group = new PermutationGroup(degree, generators);
+        List<int[]> elements = closure(degree, generators);
+        Assert.assertEquals(BigInteger.valueOf(elements.size()), group.order());
+
+        TreeSet<int[]> expected = new TreeSet<>(arrayComparator);
+        IntPermutations all = new IntPermutations(degree);
+        while (all.hasNext()) {
+            int[] p = all.next();
+            int[] min = null;
+            for (int[] g : elements) {
+                int[] q = new int[degree];
+                for (int i = 0; i < degree; ++i)
+                    q[i] = p[g[i]];
+                if (min == null || arrayComparator.compare(q, min) < 0)
+                    min = q;
+            }
+            expected.add(min);
+        }
+
+        IntCanonicalPermutations canonical = new IntCanonicalPermutations(group);
+        Assert.assertEquals(BigInteger.valueOf(expected.size()), canonical.count());
+        List<int[]> actual = new ArrayList<>();
+        int[] p;
+        while ((p = canonical.take()) != null)
+            actual.add(p.clone());
+        Assert.assertEquals(expected.size(), actual.size());
+        int i = 0;
+        for (int[] e : expected)
+            Assert.assertArrayEquals(e, actual.get(i++));
+
+        canonical.reset();
+        Assert.assertArrayEquals(actual.get(0), canonical.take());
+    }
+
+    private static List<int[]> closure(int degree, int[]... generators) {
+        TreeSet<int[]> set = new TreeSet<>(arrayComparator);
+        List<int[]> queue = new ArrayList<>();
+        int[] id = new int[degree];
+        for (int i = 0; i < degree; ++i)
+            id[i] = i;
+        set.add(id);
+        queue.add(id);
+        for (int h = 0; h < queue.size(); ++h)
+            for (int[] g : generators) {
+                int[] r = new int[degree];
+                for (int i = 0; i < degree; ++i)
+                    r[i] = g[queue.get(h)[i]];
+                if (set.add(r))
+                    queue.add(r);
+            }
+        return queue;
+    }
+}
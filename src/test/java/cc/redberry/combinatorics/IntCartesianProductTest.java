@@ -0,0 +1,86 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class IntCartesianProductTest {
+    @Test
+    public void test1() throws Exception {
+        IntCartesianProduct product = IntCartesianProduct.of(new IntCombinations(3, 2), new IntPermutations(2));
+        int[][] expected = {
+                {0, 1, 0, 1}, {0, 1, 1, 0},
+                {0, 2, 0, 1}, {0, 2, 1, 0},
+                {1, 2, 0, 1}, {1, 2, 1, 0}};
+        for (int k = 0; k < 2; ++k) {
+            for (int[] e : expected)
+                Assert.assertArrayEquals(e, product.take());
+            Assert.assertNull(product.take());
+            product.reset();
+        }
+    }
+
+    @Test
+    public void testNested() throws Exception {
+        List<int[]> actual = Combinatorics.product(
+                Combinatorics.combinations(5, 3),
+                Combinatorics.permutations(3),
+                Combinatorics.compositions(4, 3)).toList();
+        List<int[]> expected = new ArrayList<>();
+        for (int[] c : Combinatorics.combinations(5, 3).toList())
+            for (int[] p : new IntPermutations(3).stream().map(int[]::clone).toArray(int[][]::new))
+                for (int[] q : Combinatorics.compositions(4, 3).toList()) {
+                    int[] e = new int[9];
+                    System.arraycopy(c, 0, e, 0, 3);
+                    System.arraycopy(p, 0, e, 3, 3);
+                    System.arraycopy(q, 0, e, 6, 3);
+                    expected.add(e);
+                }
+        TestUtil.assertElementsEqual(expected, actual);
+    }
+
+    @Test
+    public void testEmptyFactor() throws Exception {
+        IntCartesianProduct product = new IntCartesianProduct(new IntTuples(2, 2), new IntTuples(0));
+        Assert.assertNull(product.take());
+    }
+
+    @Test
+    public void testLastUpdateFactor() throws Exception {
+        IntCartesianProduct product = new IntCartesianProduct(new IntTuples(2), new IntTuples(3));
+        int[] expected = {0, 1, 1, 0, 1, 1};
+        for (int e : expected) {
+            product.take();
+            Assert.assertEquals(e, product.getLastUpdateFactor());
+        }
+    }
+
+    @Test
+    public void testSpace() throws Exception {
+        IntCombinatorialSpace space = IntCombinatorialSpace.product(
+                IntCombinatorialSpace.combinations(5, 2),
+                IntCombinatorialSpace.permutations(3),
+                IntCombinatorialSpace.product(IntCombinatorialSpace.tuples(2, 3), IntCombinatorialSpace.compositions(3, 2)));
+        Assert.assertEquals(BigInteger.valueOf(10 * 6 * 6 * 4), space.count());
+        Assert.assertEquals(9, space.length());
+        List<int[]> all = space.iterator().toList();
+        Assert.assertEquals(1440, all.size());
+        for (int i = 0; i < all.size(); ++i) {
+            Assert.assertEquals(BigInteger.valueOf(i), space.rank(all.get(i)));
+            Assert.assertArrayEquals(all.get(i), space.unrank(i));
+        }
+        for (int nShards : new int[]{1, 7, 100}) {
+            int rank = 0;
+            for (int s = 0; s < nShards; ++s)
+                for (int[] e : space.shard(s, nShards))
+                    Assert.assertArrayEquals(all.get(rank++), e);
+            Assert.assertEquals(all.size(), rank);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class IntCombinatorialSpaceTest {
+    private static final IntCombinatorialSpace[] spaces = {
+            IntCombinatorialSpace.combinations(9, 4),
+            IntCombinatorialSpace.combinations(5, 0),
+            IntCombinatorialSpace.combinations(6, 6),
+            IntCombinatorialSpace.permutations(6),
+            IntCombinatorialSpace.permutations(1),
+            IntCombinatorialSpace.tuples(3, 1, 4, 2),
+            IntCombinatorialSpace.compositions(5, 4),
+            IntCombinatorialSpace.compositions(4, 1),
+    };
+
+    @Test
+    public void testRankUnrank() throws Exception {
+        for (IntCombinatorialSpace space : spaces) {
+            long rank = 0;
+            for (int[] element : space.iterator()) {
+                Assert.assertEquals(BigInteger.valueOf(rank), space.rank(element));
+                Assert.assertArrayEquals(element, space.unrank(rank));
+                ++rank;
+            }
+            Assert.assertEquals(BigInteger.valueOf(rank), space.count());
+        }
+    }
+
+    @Test
+    public void testShards() throws Exception {
+        for (IntCombinatorialSpace space : spaces) {
+            List<int[]> expected = space.iterator().stream().map(int[]::clone).collect(Collectors.toList());
+            for (int nShards = 1; nShards < 12; ++nShards) {
+                List<int[]> all = new ArrayList<>();
+                int min = Integer.MAX_VALUE, max = 0;
+                for (int i = 0; i < nShards; ++i) {
+                    List<int[]> shard = space.shard(i, nShards).toList();
+                    min = Math.min(min, shard.size());
+                    max = Math.max(max, shard.size());
+                    all.addAll(shard);
+                }
+                Assert.assertTrue(max - min <= 1);
+                Assert.assertEquals(expected.size(), all.size());
+                for (int i = 0; i < all.size(); ++i)
+                    Assert.assertArrayEquals(expected.get(i), all.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testRangeReset() throws Exception {
+        IntCombinatorialSpace space = IntCombinatorialSpace.permutations(5);
+        CombinatorialIterator<int[]> it = space.iterator(17, 30);
+        List<int[]> first = it.toList();
+        it.reset();
+        List<int[]> second = it.toList();
+        Assert.assertEquals(30, first.size());
+        for (int i = 0; i < first.size(); ++i) {
+            Assert.assertArrayEquals(first.get(i), second.get(i));
+            Assert.assertEquals(BigInteger.valueOf(17 + i), space.rank(first.get(i)));
+        }
+    }
+
+    @Test
+    public void testLarge() throws Exception {
+        IntCombinatorialSpace space = IntCombinatorialSpace.permutations(30);
+        BigInteger rank = space.count().subtract(BigInteger.ONE);
+        int[] last = space.unrank(rank);
+        for (int i = 0; i < 30; ++i)
+            Assert.assertEquals(29 - i, last[i]);
+        Assert.assertEquals(rank, space.rank(last));
+
+        space = IntCombinatorialSpace.combinations(100, 50);
+        CombinatorialIterator<int[]> shard = space.shard(7, 13);
+        int[] first = shard.next();
+        Assert.assertEquals(space.shardStart(7, 13), space.rank(first));
+        Assert.assertEquals(space.shardStart(7, 13).add(BigInteger.ONE), space.rank(shard.next()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfRange() throws Exception {
+        IntCombinatorialSpace.tuples(2, 2).unrank(4);
+    }
+}
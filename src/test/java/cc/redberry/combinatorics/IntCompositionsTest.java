@@ -3,6 +3,7 @@ package cc.redberry.combinatorics;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.TreeSet;
 
@@ -106,4 +107,35 @@ public class IntCompositionsTest {
         Assert.assertEquals(count, set.size());
         Assert.assertEquals(10, count);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBatch() throws Exception {
+        int[][] params = {{7, 3}, {5, 1}, {0, 4}, {12, 6}, {3, 20}};
+        for (int[] param : params)
+            for (int rows : new int[]{1, 4, 9, 64}) {
+                IntCompositions single = new IntCompositions(param[0], param[1]),
+                        batch = new IntCompositions(param[0], param[1]);
+                int[] buffer = new int[rows * param[1]];
+                // zero rows do not advance the iteration
+                Assert.assertEquals(0, batch.take(new int[0], 0));
+                int written;
+                while ((written = batch.take(buffer, rows)) > 0) {
+                    Assert.assertEquals(0, batch.take(buffer, 0));
+                    for (int r = 0; r < written; ++r)
+                        Assert.assertArrayEquals(single.take(),
+                                Arrays.copyOfRange(buffer, r * param[1], (r + 1) * param[1]));
+                    if (written < rows)
+                        break;
+                    Assert.assertArrayEquals(single.getReference(), batch.getReference());
+                }
+                Assert.assertNull(single.take());
+                Assert.assertEquals(0, batch.take(buffer, rows));
+                Assert.assertNull(batch.getReference());
+            }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchNegativeRows() throws Exception {
+        new IntCompositions(5, 3).take(new int[9], -1);
+    }
+}
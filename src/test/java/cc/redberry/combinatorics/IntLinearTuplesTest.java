@@ -0,0 +1,116 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class IntLinearTuplesTest {
+    private static List<int[]> bruteForce(int[] bounds, int[] weights, long lower, long upper) {
+        List<int[]> r = new ArrayList<>();
+        for (int[] t : new IntCombinatorialPort.Iterator(new IntTuples(bounds)).toList()) {
+            long sum = 0;
+            for (int i = 0; i < t.length; ++i)
+                sum += (long) weights[i] * t[i];
+            if (lower <= sum && sum <= upper)
+                r.add(t);
+        }
+        return r;
+    }
+
+    private static void assertSame(int[] bounds, int[] weights, long lower, long upper) {
+        List<int[]> expected = bruteForce(bounds, weights, lower, upper);
+        IntLinearTuples tuples = new IntLinearTuples(bounds, weights, lower, upper);
+        List<int[]> actual = new IntCombinatorialPort.Iterator(tuples).toList();
+        TestUtil.assertElementsEqual(expected, actual);
+        Assert.assertEquals(BigInteger.valueOf(expected.size()), tuples.count());
+    }
+
+    @Test
+    public void testSimple() throws Exception {
+        assertSame(new int[]{3, 4, 5}, new int[]{1, 1, 1}, 3, 4);
+        assertSame(new int[]{3, 4, 5}, new int[]{2, -3, 1}, -1, 1);
+        assertSame(new int[]{3, 4, 5}, new int[]{0, 0, 0}, 0, 0);
+        assertSame(new int[]{3, 4, 5}, new int[]{0, 0, 0}, 1, 2);
+        assertSame(new int[]{2, 2, 2}, new int[]{2, 2, 2}, 3, 3);
+
+        IntLinearTuples empty = new IntLinearTuples(new int[]{3, 0, 5}, new int[]{1, 1, 1}, 0, 10);
+        Assert.assertNull(empty.take());
+        Assert.assertEquals(BigInteger.ZERO, empty.count());
+    }
+
+    @Test
+    public void testOpenBounds() throws Exception {
+        assertSame(new int[]{3, 3}, new int[]{1, 1}, Long.MIN_VALUE, 2);
+        assertSame(new int[]{3, 3}, new int[]{-1, 1}, 0, Long.MAX_VALUE);
+        assertSame(new int[]{3, 3}, new int[]{-1, 1}, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertSame(new int[]{3, 4, 5}, new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, -1}, Long.MIN_VALUE, -1);
+        assertSame(new int[]{3, 4, 5}, new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, -1}, 0, Long.MAX_VALUE);
+        assertSame(new int[]{3, 4, 5}, new int[]{Integer.MAX_VALUE, 7, 1}, Long.MAX_VALUE - 1, Long.MAX_VALUE);
+        assertSame(new int[]{3, 4, 5}, new int[]{Integer.MIN_VALUE, 7, 1}, Long.MIN_VALUE, Long.MIN_VALUE + 1);
+        Random rnd = new Random(7);
+        for (int n = 0; n < 100; ++n) {
+            int dimension = 1 + rnd.nextInt(4);
+            int[] bounds = new int[dimension], weights = new int[dimension];
+            for (int i = 0; i < dimension; ++i) {
+                bounds[i] = 1 + rnd.nextInt(4);
+                weights[i] = rnd.nextBoolean() ? rnd.nextInt() : rnd.nextInt(11) - 5;
+            }
+            long bound = rnd.nextInt(21) - 10;
+            if (rnd.nextBoolean())
+                assertSame(bounds, weights, Long.MIN_VALUE, bound);
+            else
+                assertSame(bounds, weights, bound, Long.MAX_VALUE);
+        }
+    }
+
+    @Test
+    public void testRandom() throws Exception {
+        Random rnd = new Random(42);
+        for (int n = 0; n < 300; ++n) {
+            int dimension = 1 + rnd.nextInt(5);
+            int[] bounds = new int[dimension], weights = new int[dimension];
+            for (int i = 0; i < dimension; ++i) {
+                bounds[i] = 1 + rnd.nextInt(5);
+                weights[i] = rnd.nextInt(11) - 5;
+            }
+            long lower = rnd.nextInt(21) - 10;
+            assertSame(bounds, weights, lower, lower + rnd.nextInt(6));
+        }
+    }
+
+    @Test
+    public void testLastUpdateDepth() throws Exception {
+        IntLinearTuples tuples = new IntLinearTuples(new int[]{3, 3, 3}, new int[]{1, 1, 1}, 4, 4);
+        int[] previous = null, t;
+        while ((t = tuples.take()) != null) {
+            if (previous != null) {
+                int depth = 0;
+                while (previous[depth] == t[depth])
+                    ++depth;
+                Assert.assertEquals(depth, tuples.getLastUpdateDepth());
+            }
+            previous = t.clone();
+        }
+    }
+
+    @Test
+    public void testLargeCount() throws Exception {
+        int[] bounds = new int[40], weights = new int[40];
+        for (int i = 0; i < 40; ++i) {
+            bounds[i] = 10;
+            weights[i] = i + 1;
+        }
+        IntLinearTuples tuples = new IntLinearTuples(bounds, weights, 0, 3);
+        Assert.assertEquals(BigInteger.valueOf(7), tuples.count());
+        Assert.assertEquals(7, new IntCombinatorialPort.Iterator(tuples).toList().size());
+        Assert.assertEquals(BigInteger.TEN.pow(40),
+                new IntLinearTuples(bounds, weights, Long.MIN_VALUE, Long.MAX_VALUE).count());
+    }
+}
@@ -0,0 +1,107 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class IntMultisetCombinationsTest {
+    /**
+     * All distinct sorted k-submultisets in lexicographic order via deduplication of ordinary combinations
+     */
+    private static List<int[]> bruteForce(int[] multiplicities, int k) {
+        int[] multiset = new int[Arrays.stream(multiplicities).sum()];
+        for (int v = 0, p = 0; v < multiplicities.length; ++v)
+            for (int j = 0; j < multiplicities[v]; ++j)
+                multiset[p++] = v;
+        TreeSet<int[]> set = new TreeSet<>(Combinatorics.arrayComparator);
+        IntCombinations combinations = new IntCombinations(multiset.length, k);
+        while (combinations.hasNext()) {
+            int[] c = combinations.next();
+            int[] values = new int[k];
+            for (int i = 0; i < k; ++i)
+                values[i] = multiset[c[i]];
+            set.add(values);
+        }
+        return new ArrayList<>(set);
+    }
+
+    private static final int[][] MULTIPLICITIES = {
+            {}, {1}, {3}, {1, 1, 1, 1}, {2, 1, 1}, {0, 2, 0, 3, 0}, {3, 3, 3}, {1, 4, 2, 0, 1}, {5, 1, 2, 2}
+    };
+
+    @Test
+    public void testAll() throws Exception {
+        for (int[] multiplicities : MULTIPLICITIES) {
+            int total = Arrays.stream(multiplicities).sum();
+            for (int k = 0; k <= total; ++k) {
+                List<int[]> expected = bruteForce(multiplicities, k);
+                IntMultisetCombinations port = new IntMultisetCombinations(multiplicities, k);
+                for (int pass = 0; pass < 2; ++pass) {
+                    TestUtil.assertElementsEqual(expected, new IntCombinatorialPort.Iterator(port).toList());
+                    port.reset();
+                }
+                Assert.assertEquals(BigInteger.valueOf(expected.size()), port.count());
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsCombinations() throws Exception {
+        IntMultisetCombinations port = new IntMultisetCombinations(new int[]{1, 1, 1, 1, 1, 1, 1}, 3);
+        IntCombinations combinations = new IntCombinations(7, 3);
+        int[] c;
+        while ((c = port.take()) != null)
+            Assert.assertArrayEquals(combinations.next(), c);
+        Assert.assertFalse(combinations.hasNext());
+    }
+
+    @Test
+    public void testLastUpdateDepth() throws Exception {
+        IntMultisetCombinations port = new IntMultisetCombinations(new int[]{2, 3, 1, 2}, 4);
+        int[] previous = null, current;
+        while ((current = port.take()) != null) {
+            if (previous != null) {
+                int depth = 0;
+                while (previous[depth] == current[depth])
+                    ++depth;
+                Assert.assertTrue(depth >= port.getLastUpdateDepth());
+            }
+            previous = current.clone();
+        }
+    }
+
+    @Test
+    public void testCount() throws Exception {
+        // all multiplicities are 1: binomial coefficient
+        int[] ones = new int[40];
+        Arrays.fill(ones, 1);
+        Assert.assertEquals(IntCombinatorialSpace.binomial(40, 17), IntMultisetCombinations.count(ones, 17));
+        // unbounded multiplicities: multichoose
+        int[] large = new int[10];
+        Arrays.fill(large, 30);
+        Assert.assertEquals(IntCombinatorialSpace.binomial(10 + 30 - 1, 30), IntMultisetCombinations.count(large, 30));
+        Assert.assertEquals(BigInteger.ZERO, IntMultisetCombinations.count(new int[]{1, 2}, 4));
+    }
+
+    @Test
+    public void testGeneric() throws Exception {
+        String[] input = {"b", "a", "b", "c", "a", "b"};
+        List<String> actual = new ArrayList<>();
+        for (String[] c : Combinatorics.multisetCombinations(input, 2))
+            actual.add(String.join("", c));
+        Assert.assertEquals(Arrays.asList("bb", "ba", "bc", "aa", "ac"), actual);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLarge() throws Exception {
+        new IntMultisetCombinations(new int[]{1, 2}, 4);
+    }
+}
@@ -0,0 +1,133 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class IntNecklacesTest {
+    private static int compare(int[] a, int[] b) {
+        for (int i = 0; i < a.length; ++i)
+            if (a[i] != b[i])
+                return Integer.compare(a[i], b[i]);
+        return 0;
+    }
+
+    private static int[] rotate(int[] word, int shift) {
+        int[] r = new int[word.length];
+        for (int i = 0; i < word.length; ++i)
+            r[i] = word[(i + shift) % word.length];
+        return r;
+    }
+
+    private static boolean isRepresentative(int[] word, IntNecklaces.Kind kind) {
+        int[] reversed = new int[word.length];
+        for (int i = 0; i < word.length; ++i)
+            reversed[i] = word[word.length - 1 - i];
+        for (int s = 1; s < word.length; ++s) {
+            int c = compare(word, rotate(word, s));
+            if (c > 0 || (c == 0 && kind == IntNecklaces.Kind.LYNDON_WORDS))
+                return false;
+        }
+        if (kind == IntNecklaces.Kind.BRACELETS)
+            for (int s = 0; s < word.length; ++s)
+                if (compare(word, rotate(reversed, s)) > 0)
+                    return false;
+        return true;
+    }
+
+    private static List<int[]> bruteForce(int length, int arity, int[] content, IntNecklaces.Kind kind) {
+        int[] bounds = new int[length];
+        Arrays.fill(bounds, arity);
+        List<int[]> r = new ArrayList<>();
+        for (int[] word : new IntCombinatorialPort.Iterator(new IntTuples(bounds)).toList()) {
+            if (content != null) {
+                int[] counts = new int[arity];
+                for (int l : word)
+                    ++counts[l];
+                if (!Arrays.equals(counts, content))
+                    continue;
+            }
+            if (isRepresentative(word, kind))
+                r.add(word);
+        }
+        return r;
+    }
+
+    private static void assertSame(List<int[]> expected, IntNecklaces necklaces) {
+        List<int[]> actual = new IntCombinatorialPort.Iterator(necklaces).toList();
+        TestUtil.assertElementsEqual(expected, actual);
+        Assert.assertEquals(BigInteger.valueOf(expected.size()), necklaces.count());
+    }
+
+    @Test
+    public void testExample() throws Exception {
+        List<int[]> list = new IntCombinatorialPort.Iterator(
+                new IntNecklaces(4, 2, IntNecklaces.Kind.NECKLACES)).toList();
+        Assert.assertEquals(6, list.size());
+        Assert.assertArrayEquals(new int[]{0, 1, 0, 1}, list.get(3));
+    }
+
+    @Test
+    public void testAll() throws Exception {
+        for (IntNecklaces.Kind kind : IntNecklaces.Kind.values())
+            for (int arity = 1; arity <= 4; ++arity)
+                for (int length = 1; length <= 7 && Math.pow(arity, length) < 20000; ++length)
+                    assertSame(bruteForce(length, arity, null, kind), new IntNecklaces(length, arity, kind));
+    }
+
+    @Test
+    public void testContent() throws Exception {
+        int[][] contents = {{1}, {3}, {2, 2}, {4, 2}, {3, 3}, {2, 2, 2}, {0, 3, 1}, {1, 2, 3}, {4, 0, 4}, {2, 1, 1, 2},
+                {6, 1}, {1, 6}, {3, 1, 3}, {1, 1, 5}, {2, 3, 2}, {4, 1, 2}, {1, 1, 1, 3}, {3, 2, 1, 1}};
+        for (IntNecklaces.Kind kind : IntNecklaces.Kind.values())
+            for (int[] content : contents) {
+                int length = Arrays.stream(content).sum();
+                assertSame(bruteForce(length, content.length, content, kind), new IntNecklaces(content, kind));
+            }
+    }
+
+    @Test(timeout = 10000)
+    public void testSkewedContent() throws Exception {
+        // prefixes which cannot be completed are pruned, so there is a linear number of steps for a single necklace
+        int n = 1_000_000;
+        for (IntNecklaces.Kind kind : IntNecklaces.Kind.values()) {
+            int[][] contents = {{n - 1, 1}, {1, n - 1}};
+            for (int[] content : contents) {
+                IntNecklaces necklaces = new IntNecklaces(content, kind);
+                int[] necklace = necklaces.take();
+                Assert.assertEquals(0, necklace[0]);
+                Assert.assertEquals(1, necklace[content[0]]);
+                Assert.assertNull(necklaces.take());
+            }
+        }
+    }
+
+    @Test
+    public void testCount() throws Exception {
+        // OEIS A000031, A001037, A000029
+        Assert.assertEquals(BigInteger.valueOf(4116), new IntNecklaces(16, 2, IntNecklaces.Kind.NECKLACES).count());
+        Assert.assertEquals(BigInteger.valueOf(4080), new IntNecklaces(16, 2, IntNecklaces.Kind.LYNDON_WORDS).count());
+        Assert.assertEquals(BigInteger.valueOf(2250), new IntNecklaces(16, 2, IntNecklaces.Kind.BRACELETS).count());
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        IntNecklaces necklaces = new IntNecklaces(new int[]{2, 3}, IntNecklaces.Kind.BRACELETS);
+        List<int[]> first = new IntCombinatorialPort.Iterator(necklaces).toList();
+        necklaces.reset();
+        List<int[]> second = new IntCombinatorialPort.Iterator(necklaces).toList();
+        Assert.assertEquals(first.size(), second.size());
+        TreeSet<String> set = new TreeSet<>();
+        for (int[] b : second)
+            set.add(Arrays.toString(b));
+        Assert.assertEquals(first.size(), set.size());
+    }
+}
@@ -0,0 +1,117 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class IntPerfectMatchingsTest {
+    /**
+     * All matchings in canonical form via recursion
+     */
+    private static void bruteForce(boolean[] matched, int[] current, int i, boolean[][] forbidden, List<int[]> out) {
+        if (2 * i == matched.length) {
+            out.add(current.clone());
+            return;
+        }
+        int a = 0;
+        while (matched[a])
+            ++a;
+        matched[a] = true;
+        for (int b = a + 1; b < matched.length; ++b)
+            if (!matched[b] && (forbidden == null || !forbidden[a][b])) {
+                matched[b] = true;
+                current[2 * i] = a;
+                current[2 * i + 1] = b;
+                bruteForce(matched, current, i + 1, forbidden, out);
+                matched[b] = false;
+            }
+        matched[a] = false;
+    }
+
+    private static List<int[]> bruteForce(int nPairs, int[][] forbiddenPairs) {
+        boolean[][] forbidden = null;
+        if (forbiddenPairs != null) {
+            forbidden = new boolean[2 * nPairs][2 * nPairs];
+            for (int[] p : forbiddenPairs)
+                forbidden[p[0]][p[1]] = forbidden[p[1]][p[0]] = true;
+        }
+        List<int[]> r = new ArrayList<>();
+        bruteForce(new boolean[2 * nPairs], new int[2 * nPairs], 0, forbidden, r);
+        return r;
+    }
+
+    @Test
+    public void testAll() throws Exception {
+        for (int n = 0; n < 6; ++n) {
+            List<int[]> expected = bruteForce(n, null);
+            IntPerfectMatchings port = new IntPerfectMatchings(n);
+            TestUtil.assertElementsEqual(expected, new IntCombinatorialPort.Iterator(port).toList());
+            Assert.assertEquals(IntCombinatorialSpace.perfectMatchings(n).count(), BigInteger.valueOf(expected.size()));
+            port.reset();
+            TestUtil.assertElementsEqual(expected, new IntCombinatorialPort.Iterator(port).toList());
+        }
+    }
+
+    @Test
+    public void testLastUpdatePair() throws Exception {
+        IntPerfectMatchings port = new IntPerfectMatchings(4);
+        int[] previous = null, current;
+        while ((current = port.take()) != null) {
+            if (previous != null) {
+                int pair = 0;
+                while (previous[2 * pair] == current[2 * pair] && previous[2 * pair + 1] == current[2 * pair + 1])
+                    ++pair;
+                Assert.assertEquals(pair, port.getLastUpdatePair());
+            }
+            previous = current.clone();
+        }
+    }
+
+    @Test
+    public void testForbidden() throws Exception {
+        int[][][] cases = {
+                {{0, 1}},
+                {{0, 1}, {2, 3}, {4, 5}},
+                {{0, 1}, {0, 2}, {0, 3}, {0, 4}},
+                {{0, 1}, {0, 2}, {0, 3}, {0, 4}, {0, 5}},
+                {{1, 2}, {3, 4}, {5, 6}, {2, 7}, {0, 7}}
+        };
+        for (int[][] forbidden : cases)
+            for (int n = 3; n <= 4; ++n) {
+                boolean fits = true;
+                for (int[] p : forbidden)
+                    fits &= p[0] < 2 * n && p[1] < 2 * n;
+                if (!fits)
+                    continue;
+                TestUtil.assertElementsEqual(bruteForce(n, forbidden),
+                        new IntCombinatorialPort.Iterator(new IntPerfectMatchings(n, forbidden)).toList());
+            }
+    }
+
+    @Test
+    public void testRank() throws Exception {
+        for (int n = 0; n < 6; ++n) {
+            IntCombinatorialSpace space = IntCombinatorialSpace.perfectMatchings(n);
+            List<int[]> all = bruteForce(n, null);
+            for (int i = 0; i < all.size(); ++i) {
+                Assert.assertEquals(BigInteger.valueOf(i), space.rank(all.get(i)));
+                Assert.assertArrayEquals(all.get(i), space.unrank(i));
+            }
+            if (all.size() > 3) {
+                List<int[]> tail = space.iterator(3, all.size() - 3).stream().map(int[]::clone)
+                        .collect(Collectors.toList());
+                TestUtil.assertElementsEqual(all.subList(3, all.size()), tail);
+            }
+        }
+        Assert.assertEquals(new BigInteger("191898783962510625"), IntCombinatorialSpace.perfectMatchings(16).count());
+        Assert.assertArrayEquals(new int[]{0, 3, 1, 2}, IntCombinatorialSpace.perfectMatchings(2).unrank(2));
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 3}, IntCombinatorialSpace.perfectMatchings(2).unrank(0));
+    }
+}
@@ -0,0 +1,112 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class IntPermutationsByCycleTypeTest {
+    private static final int[][] CYCLE_TYPES = {
+            {}, {1}, {2}, {1, 1}, {3}, {2, 1}, {2, 2}, {4}, {1, 3}, {1, 1, 2}, {2, 2, 2}, {6}, {3, 3},
+            {1, 2, 3}, {2, 1, 2, 1}, {1, 1, 1, 1, 1}, {4, 2}, {5, 1, 1}
+    };
+
+    private static int[] sortedCycleLengths(int[] permutation) {
+        int[] r = Permutations.cycleLengths(permutation);
+        Arrays.sort(r);
+        return r;
+    }
+
+    private static Set<String> filtered(int[] cycleType) {
+        int[] sorted = cycleType.clone();
+        Arrays.sort(sorted);
+        int n = Arrays.stream(cycleType).sum();
+        Set<String> r = new TreeSet<>();
+        for (int[] p : new IntCombinationsWithPermutations(n, n).toList())
+            if (Arrays.equals(sorted, sortedCycleLengths(p)))
+                r.add(Arrays.toString(p));
+        if (n == 0)
+            r.add(Arrays.toString(new int[0]));
+        return r;
+    }
+
+    private static List<int[]> all(IntPermutationsByCycleType port) {
+        return new IntCombinatorialPort.Iterator(port).toList();
+    }
+
+    @Test
+    public void testAll() throws Exception {
+        for (int[] cycleType : CYCLE_TYPES) {
+            IntPermutationsByCycleType port = new IntPermutationsByCycleType(cycleType);
+            List<int[]> list = all(port);
+            Set<String> actual = new TreeSet<>();
+            for (int[] p : list) {
+                Assert.assertTrue(Permutations.isPermutation(p));
+                actual.add(Arrays.toString(p));
+            }
+            Assert.assertEquals(list.size(), actual.size());
+            Assert.assertEquals(filtered(cycleType), actual);
+            Assert.assertEquals(BigInteger.valueOf(list.size()), port.count());
+
+            port.reset();
+            TestUtil.assertElementsEqual(list, all(port));
+        }
+    }
+
+    @Test
+    public void testCount() throws Exception {
+        // fixed-point-free involutions: (2n - 1)!!
+        Assert.assertEquals(IntCombinatorialSpace.perfectMatchings(8).count(),
+                new IntPermutationsByCycleType(2, 2, 2, 2, 2, 2, 2, 2).count());
+        // n-cycles: (n - 1)!
+        Assert.assertEquals(IntCombinatorialSpace.factorial(19), new IntPermutationsByCycleType(20).count());
+        // sum over all classes of S_5
+        int[][] partitions = {{5}, {4, 1}, {3, 2}, {3, 1, 1}, {2, 2, 1}, {2, 1, 1, 1}, {1, 1, 1, 1, 1}};
+        BigInteger sum = BigInteger.ZERO;
+        for (int[] partition : partitions)
+            sum = sum.add(new IntPermutationsByCycleType(partition).count());
+        Assert.assertEquals(BigInteger.valueOf(120), sum);
+    }
+
+    @Test
+    public void testRank() throws Exception {
+        for (int[] cycleType : CYCLE_TYPES) {
+            IntCombinatorialSpace space = IntCombinatorialSpace.permutationsByCycleType(cycleType);
+            List<int[]> all = all(new IntPermutationsByCycleType(cycleType));
+            Assert.assertEquals(BigInteger.valueOf(all.size()), space.count());
+            for (int i = 0; i < all.size(); ++i) {
+                Assert.assertEquals(BigInteger.valueOf(i), space.rank(all.get(i)));
+                Assert.assertArrayEquals(all.get(i), space.unrank(i));
+            }
+            if (all.size() > 3) {
+                List<int[]> tail = space.iterator(3, all.size() - 3).stream().map(int[]::clone)
+                        .collect(Collectors.toList());
+                TestUtil.assertElementsEqual(all.subList(3, all.size()), tail);
+            }
+        }
+    }
+
+    @Test
+    public void testShards() throws Exception {
+        IntCombinatorialSpace space = IntCombinatorialSpace.permutationsByCycleType(3, 2, 2);
+        List<int[]> all = all(new IntPermutationsByCycleType(3, 2, 2));
+        List<int[]> sharded = new ArrayList<>();
+        for (int i = 0; i < 5; ++i)
+            sharded.addAll(space.shard(i, 5).stream().map(int[]::clone).collect(Collectors.toList()));
+        TestUtil.assertElementsEqual(all, sharded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongCycleType() throws Exception {
+        IntCombinatorialSpace.permutationsByCycleType(2, 2).rank(new int[]{1, 2, 3, 0});
+    }
+}
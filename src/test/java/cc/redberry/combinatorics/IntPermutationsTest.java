@@ -57,4 +57,14 @@ public class IntPermutationsTest {
         Assert.assertTrue(ig.next().length == 0);
         Assert.assertTrue(!ig.hasNext());
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongStartingPermutation() {
+        new IntPermutations(new int[]{0, 5});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRepeatedImage() {
+        new IntPermutations(new int[]{1, 0, 1});
+    }
 }
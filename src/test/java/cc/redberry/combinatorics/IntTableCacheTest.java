@@ -0,0 +1,87 @@
+package cc.redberry.combinatorics;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class IntTableCacheTest {
+    @After
+    public void tearDown() {
+        IntTableCache.disable();
+    }
+
+    @Test
+    public void test1() {
+        IntTableCache.enable(1 << 20);
+        for (int n = 0; n < 7; ++n) {
+            TestUtil.assertElementsEqual(new IntPermutations(n), Combinatorics.permutations(n));
+            TestUtil.assertElementsEqual(new IntPermutations(n), Combinatorics.permutations(n));
+            for (int k = 0; k <= n; ++k) {
+                TestUtil.assertElementsEqual(new IntCombinations(n, k), Combinatorics.combinations(n, k));
+                TestUtil.assertElementsEqual(new IntCombinations(n, k), Combinatorics.combinations(n, k));
+            }
+        }
+        Assert.assertEquals(7 + 28, IntTableCache.missCount());
+        Assert.assertEquals(7 + 28, IntTableCache.hitCount());
+        Assert.assertEquals(0, IntTableCache.evictionCount());
+    }
+
+    @Test
+    public void testEviction() {
+        // 6! * 6 = 4320 bytes
+        IntTableCache.enable(4500);
+        Combinatorics.permutations(6);
+        Combinatorics.permutations(5);
+        Assert.assertEquals(1, IntTableCache.evictionCount());
+        Assert.assertEquals(600, IntTableCache.sizeInBytes());
+        Combinatorics.permutations(5);
+        Assert.assertEquals(1, IntTableCache.hitCount());
+        // too large to be cached
+        Assert.assertTrue(Combinatorics.permutations(12) instanceof IntPermutations);
+    }
+
+    @Test
+    public void testTooLargeForBound() {
+        // 7! * 7 = 35280 bytes, so the table is not even computed
+        IntTableCache.enable(10000);
+        CombinatorialIterator<int[]> it = Combinatorics.permutations(7);
+        Assert.assertTrue(it instanceof IntPermutations);
+        Assert.assertEquals(0, IntTableCache.missCount());
+        Assert.assertEquals(0, IntTableCache.sizeInBytes());
+        TestUtil.assertElementsEqual(new IntPermutations(7), it);
+    }
+
+    @Test
+    public void testConcurrentHits() throws Exception {
+        IntTableCache.enable(1 << 20);
+        Combinatorics.permutations(6);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; ++i)
+                    Combinatorics.permutations(6).next();
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        Assert.assertEquals(1, IntTableCache.missCount());
+        Assert.assertEquals(4000, IntTableCache.hitCount());
+    }
+
+    @Test
+    public void testCheckpoint() {
+        IntTableCache.enable(1 << 20);
+        CombinatorialIterator<int[]> it = Combinatorics.combinations(8, 3);
+        for (int i = 0; i < 10; ++i)
+            it.next();
+        List<int[]> rest = Combinatorics.resume(it.checkpoint()).toList();
+        Assert.assertEquals(56 - 10, rest.size());
+        Assert.assertArrayEquals(it.next(), rest.get(0));
+    }
+}
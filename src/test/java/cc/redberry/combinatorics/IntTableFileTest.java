@@ -0,0 +1,71 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class IntTableFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test1() throws Exception {
+        Path file = folder.newFile().toPath();
+        Assert.assertEquals(120, IntTableFile.write(file, Combinatorics.combinations(10, 3), 10));
+        List<int[]> expected = Combinatorics.combinations(10, 3).toList();
+        try (IntTableFile table = IntTableFile.open(file)) {
+            Assert.assertEquals(120, table.size());
+            Assert.assertEquals(3, table.width());
+            Assert.assertEquals(ElementWidth.BYTE, table.elementWidth());
+            for (int i = expected.size() - 1; i >= 0; --i) {
+                Assert.assertArrayEquals(expected.get(i), table.get(i, new int[3]));
+                Assert.assertEquals(expected.get(i)[1], table.get(i, 1));
+                ByteBuffer row = table.row(i);
+                Assert.assertEquals(3, row.remaining());
+                Assert.assertEquals(expected.get(i)[2], row.get(2));
+            }
+            Assert.assertEquals(expected.size(), table.iterator().toList().size());
+            int i = 0;
+            for (int[] row : table.iterator())
+                Assert.assertArrayEquals(expected.get(i++), row);
+        }
+    }
+
+    @Test
+    public void test2() throws Exception {
+        for (int bound : new int[]{300, 70000}) {
+            Path file = folder.newFile().toPath();
+            IntTableFile.write(file, Combinatorics.tuples(3, 2), bound);
+            try (IntTableFile table = IntTableFile.open(file)) {
+                Assert.assertEquals(ElementWidth.forBound(bound), table.elementWidth());
+                Assert.assertEquals(6, table.size());
+                Assert.assertArrayEquals(new int[]{2, 1}, table.get(5, new int[2]));
+            }
+        }
+    }
+
+    @Test(expected = NotSerializableException.class)
+    public void testIteratorNotSerializable() throws Exception {
+        Path file = folder.newFile().toPath();
+        IntTableFile.write(file, Combinatorics.combinations(5, 2), 5);
+        try (IntTableFile table = IntTableFile.open(file)) {
+            new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(table.iterator());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfBound() throws Exception {
+        IntTableFile.write(folder.newFile().toPath(), Combinatorics.permutations(5), 4);
+    }
+}
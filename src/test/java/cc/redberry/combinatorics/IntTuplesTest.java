@@ -65,4 +65,31 @@ public class IntTuplesTest {
             System.out.println(Arrays.toString(c));
         }
     }
+
+    @Test
+    public void testBatch() {
+        int[][] boundsSet = {{3, 2, 2}, {1, 17}, {40}, {2, 1, 33, 5}};
+        for (int[] bounds : boundsSet)
+            for (int rows : new int[]{1, 3, 8, 33, 100}) {
+                IntTuples single = new IntTuples(bounds), batch = new IntTuples(bounds);
+                int[] buffer = new int[rows * bounds.length];
+                int written;
+                while ((written = batch.take(buffer, rows)) > 0) {
+                    for (int r = 0; r < written; ++r)
+                        Assert.assertArrayEquals(single.take(),
+                                Arrays.copyOfRange(buffer, r * bounds.length, (r + 1) * bounds.length));
+                    if (written < rows)
+                        break;
+                    Assert.assertArrayEquals(single.getReference(), batch.getReference());
+                    Assert.assertEquals(single.getLastUpdateDepth(), batch.getLastUpdateDepth());
+                }
+                Assert.assertNull(single.take());
+                Assert.assertEquals(0, batch.take(buffer, rows));
+            }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchNegativeRows() throws Exception {
+        new IntTuples(2, 3).take(new int[6], -1);
+    }
 }
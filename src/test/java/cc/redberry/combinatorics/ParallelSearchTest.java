@@ -0,0 +1,92 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class ParallelSearchTest {
+    private static boolean isMatch(int[] p) {
+        return p[0] == 5 && p[3] == 2 && p[7] == 1;
+    }
+
+    @Test
+    public void testFirst() throws Exception {
+        IntCombinatorialSpace space = IntCombinatorialSpace.permutations(9);
+        int[] expected = null;
+        for (int[] p : space.iterator())
+            if (isMatch(p)) {
+                expected = p.clone();
+                break;
+            }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 5; ++i) {
+                ParallelSearch.Result r = new ParallelSearch().executor(executor, 4).lexicographicallyFirst()
+                        .search(space, ParallelSearchTest::isMatch);
+                Assert.assertEquals(ParallelSearch.Status.FOUND, r.getStatus());
+                Assert.assertArrayEquals(expected, r.getElement());
+                Assert.assertEquals(space.rank(expected), r.getRank());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertArrayEquals(expected, Combinatorics.searchFirst(space, ParallelSearchTest::isMatch).getElement());
+    }
+
+    @Test
+    public void testAny() throws Exception {
+        IntCombinatorialSpace space = IntCombinatorialSpace.permutations(9);
+        ParallelSearch.Result r = Combinatorics.search(space, ParallelSearchTest::isMatch);
+        Assert.assertEquals(ParallelSearch.Status.FOUND, r.getStatus());
+        Assert.assertTrue(isMatch(r.getElement()));
+        Assert.assertArrayEquals(r.getElement(), space.unrank(r.getRank()));
+        Assert.assertTrue(r.getExamined() < space.count().longValue());
+    }
+
+    @Test
+    public void testNotFound() throws Exception {
+        IntCombinatorialSpace space = IntCombinatorialSpace.combinations(20, 4);
+        ParallelSearch.Result r = Combinatorics.search(space, c -> c[0] > c[1]);
+        Assert.assertEquals(ParallelSearch.Status.NOT_FOUND, r.getStatus());
+        Assert.assertNull(r.getElement());
+        Assert.assertEquals(space.count().longValue(), r.getExamined());
+    }
+
+    @Test
+    public void testBudget() throws Exception {
+        IntCombinatorialSpace space = IntCombinatorialSpace.tuples(10, 10, 10, 10, 10, 10);
+        AtomicLong tested = new AtomicLong();
+        ParallelSearch.Result r = new ParallelSearch().maxElements(50_000).search(space, t -> {
+            tested.incrementAndGet();
+            return false;
+        });
+        Assert.assertEquals(ParallelSearch.Status.BUDGET_EXHAUSTED, r.getStatus());
+        Assert.assertEquals(50_000, r.getExamined());
+        Assert.assertEquals(50_000, tested.get());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        IntCombinatorialSpace space = IntCombinatorialSpace.permutations(30);
+        long start = System.nanoTime();
+        ParallelSearch.Result r = new ParallelSearch().timeout(100, TimeUnit.MILLISECONDS)
+                .lexicographicallyFirst().search(space, p -> p[0] == 29);
+        Assert.assertEquals(ParallelSearch.Status.TIMEOUT, r.getStatus());
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        ParallelSearch.Result r = Combinatorics.search(IntCombinatorialSpace.tuples(3, 0), t -> true);
+        Assert.assertEquals(ParallelSearch.Status.NOT_FOUND, r.getStatus());
+        Assert.assertEquals(BigInteger.ZERO.longValue(), r.getExamined());
+    }
+}
@@ -0,0 +1,50 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class PermutationSetTest {
+    @Test
+    public void testRank() throws Exception {
+        long rank = 0;
+        for (int[] permutation : new IntPermutations(6))
+            Assert.assertEquals(rank++, PermutationSet.rank(permutation));
+    }
+
+    @Test
+    public void testPacked() throws Exception {
+        testSet(7);
+    }
+
+    @Test
+    public void testHashed() throws Exception {
+        testSet(PermutationSet.MAX_PACKED_DIMENSION + 3);
+    }
+
+    private static void testSet(int dimension) {
+        PermutationSet set = new PermutationSet(dimension);
+        Set<String> expected = new HashSet<>();
+        IntPermutations it = new IntPermutations(dimension);
+        for (int i = 0; i < 2000 && it.hasNext(); ++i) {
+            int[] permutation = it.next().clone();
+            if (i % 3 == 0)
+                continue;
+            Assert.assertTrue(set.add(permutation));
+            Assert.assertFalse(set.add(permutation.clone()));
+            expected.add(Arrays.toString(permutation));
+        }
+        Assert.assertEquals(expected.size(), set.size());
+        it.reset();
+        for (int i = 0; i < 2000 && it.hasNext(); ++i) {
+            int[] permutation = it.next();
+            Assert.assertEquals(expected.contains(Arrays.toString(permutation)), set.contains(permutation));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class PermutationsTest {
+    private static List<int[]> all(int n) {
+        return new IntCombinationsWithPermutations(n, n).toList();
+    }
+
+    private static int[] inverse(int[] p) {
+        int[] r = new int[p.length];
+        for (int i = 0; i < p.length; ++i)
+            r[p[i]] = i;
+        return r;
+    }
+
+    private static int bruteSign(int[] p) {
+        int inversions = 0;
+        for (int i = 0; i < p.length; ++i)
+            for (int j = i + 1; j < p.length; ++j)
+                if (p[i] > p[j])
+                    ++inversions;
+        return inversions % 2 == 0 ? 1 : -1;
+    }
+
+    @Test
+    public void testInverseAndCompose() throws Exception {
+        for (int[] a : all(5)) {
+            int[] inv = Permutations.inverse(a, new int[5]);
+            Assert.assertArrayEquals(inverse(a), inv);
+            Assert.assertArrayEquals(inv, Permutations.inverseInPlace(a.clone()));
+            Assert.assertTrue(Permutations.isIdentity(Permutations.compose(a, inv, new int[5])));
+        }
+        for (int[] a : all(4))
+            for (int[] b : all(4)) {
+                Assert.assertTrue(Permutations.isIdentity(Permutations.compose(inverse(b), b, new int[4])));
+                int[] expected = Permutations.compose(a, inverse(b), new int[4]);
+                Assert.assertArrayEquals(expected, Permutations.rightDivide(a, b, new int[4]));
+                Assert.assertArrayEquals(a, Permutations.compose(expected, b, new int[4]));
+            }
+    }
+
+    @Test
+    public void testPermute() throws Exception {
+        int[] data = {10, 11, 12, 13, 14, 15};
+        for (int[] a : all(6)) {
+            int[] expected = Permutations.permute(a, data, new int[6]);
+            int[] copy = a.clone();
+            Assert.assertArrayEquals(expected, Permutations.permuteInPlace(copy, data.clone()));
+            Assert.assertArrayEquals(a, copy);
+            for (int i = 0; i < 6; ++i)
+                Assert.assertEquals(data[a[i]], expected[i]);
+        }
+        int[] a = {1, 2, 0}, b = {0, 2, 1};
+        Integer[] source = {5, 6, 7};
+        Integer[] byAthenB = Permutations.permute(b, Permutations.permute(a, source, new Integer[3]), new Integer[3]);
+        Assert.assertArrayEquals(Permutations.permute(Permutations.compose(a, b, new int[3]), source, new Integer[3]),
+                byAthenB);
+    }
+
+    @Test
+    public void testCycles() throws Exception {
+        int[] p = {1, 2, 0, 4, 3, 5, 7, 6};
+        Assert.assertArrayEquals(new int[][]{{0, 1, 2}, {3, 4}, {6, 7}}, Permutations.cycles(p));
+        Assert.assertArrayEquals(new int[]{3, 2, 1, 2}, Permutations.cycleLengths(p));
+        Assert.assertEquals(4, Permutations.cycleCount(p));
+        Assert.assertEquals(6, Permutations.order(p));
+        Assert.assertEquals(1, Permutations.sign(p));
+        for (int[] a : all(6))
+            Assert.assertEquals(bruteSign(a), Permutations.sign(a));
+
+        int[] large = new int[100];
+        for (int i = 0; i < 100; ++i)
+            large[i] = (i + 1) % 100;
+        Assert.assertEquals(1, Permutations.cycleCount(large));
+        Assert.assertEquals(100, Permutations.order(large));
+        Assert.assertEquals(-1, Permutations.sign(large));
+        Assert.assertArrayEquals(new int[]{100}, Permutations.cycleLengths(large));
+        Assert.assertEquals(100, Permutations.cycles(large)[0].length);
+
+        // cycle (0 ... 69), fixed points 70 ... 89 and transpositions (90 91), ..., (98 99)
+        int[] mixed = new int[100];
+        for (int i = 0; i < 100; ++i)
+            mixed[i] = i < 70 ? (i + 1) % 70 : i < 90 ? i : i ^ 1;
+        int[] lengths = Permutations.cycleLengths(mixed);
+        Assert.assertEquals(1 + 20 + 5, lengths.length);
+        Assert.assertEquals(70, lengths[0]);
+        int[][] cycles = Permutations.cycles(mixed);
+        Assert.assertEquals(6, cycles.length);
+        Assert.assertEquals(69, cycles[0][69]);
+        Assert.assertArrayEquals(new int[]{98, 99}, cycles[5]);
+    }
+
+    @Test
+    public void testPacked() throws Exception {
+        for (int[] a : all(5)) {
+            long pa = Permutations.pack(a);
+            Assert.assertArrayEquals(a, Permutations.unpack(pa, new int[5]));
+            Assert.assertEquals(Permutations.pack(inverse(a)), Permutations.inversePacked(pa, 5));
+            Assert.assertEquals(bruteSign(a), Permutations.signPacked(pa, 5));
+            Assert.assertEquals(Permutations.identityPacked(5), Permutations.composePacked(pa,
+                    Permutations.inversePacked(pa, 5), 5));
+            int[] b = {4, 2, 0, 1, 3};
+            Assert.assertEquals(Permutations.pack(Permutations.compose(a, b, new int[5])),
+                    Permutations.composePacked(pa, Permutations.pack(b), 5));
+        }
+        int[] p = new int[16];
+        for (int i = 0; i < 16; ++i)
+            p[i] = 15 - i;
+        Assert.assertArrayEquals(p, Permutations.unpack(Permutations.pack(p), new int[16]));
+    }
+
+    @Test
+    public void testTracking() throws Exception {
+        for (int n = 0; n < 7; ++n) {
+            IntPermutations it = new IntPermutations(n, true);
+            while (it.hasNext()) {
+                int[] p = it.next();
+                Assert.assertArrayEquals(inverse(p), it.getInverse());
+                Assert.assertEquals(bruteSign(p), it.getSign());
+            }
+            while (it.hasPrevious()) {
+                int[] p = it.previous();
+                Assert.assertArrayEquals(inverse(p), it.getInverse());
+                Assert.assertEquals(bruteSign(p), it.getSign());
+            }
+            it.reset();
+            Assert.assertEquals(1, it.getSign());
+        }
+        IntPermutations it = new IntPermutations(new int[]{1, 0, 2});
+        Assert.assertEquals(-1, it.getSign());
+    }
+
+    @Test
+    public void testTrackingCheckpoint() throws Exception {
+        IntPermutations it = new IntPermutations(5, true);
+        for (int i = 0; i < 17; ++i)
+            it.next();
+        IntPermutations resumed = IntPermutations.resume(it.checkpoint());
+        Assert.assertArrayEquals(it.getInverse(), resumed.getInverse());
+        Assert.assertEquals(it.getSign(), resumed.getSign());
+        while (it.hasNext()) {
+            Assert.assertArrayEquals(it.next(), resumed.next());
+            Assert.assertArrayEquals(it.getInverse(), resumed.getInverse());
+        }
+        Assert.assertFalse(resumed.hasNext());
+        try {
+            IntPermutations.resume(new IntPermutations(3).checkpoint()).getInverse();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // inverse is not tracked
+        }
+    }
+}
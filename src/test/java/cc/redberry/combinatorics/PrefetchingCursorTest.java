@@ -0,0 +1,142 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class PrefetchingCursorTest {
+    @Test
+    public void testAdvance() throws Exception {
+        List<int[]> expected = new IntCombinations(12, 4).toList();
+        for (PrefetchingCursor.WaitStrategy strategy : PrefetchingCursor.WaitStrategy.values())
+            for (int capacity : new int[]{1, 3, 64, 10000}) {
+                // spinning with tiny buffers is very slow on machines with few cores
+                if (strategy == PrefetchingCursor.WaitStrategy.SPIN && capacity < 64)
+                    continue;
+                try (PrefetchingCursor cursor = new PrefetchingCursor(new IntCombinations(12, 4), capacity, strategy)) {
+                    TestUtil.assertElementsEqual(expected, TestUtil.drain(cursor));
+                    Assert.assertFalse(cursor.advance());
+                }
+            }
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        List<int[]> expected = new IntCombinatorialPort.Iterator(new IntTuples(5, 6, 7)).toList();
+        try (PrefetchingCursor cursor = new PrefetchingCursor(new IntTuples(5, 6, 7), 50,
+                PrefetchingCursor.WaitStrategy.PARK)) {
+            List<int[]> actual = new ArrayList<>();
+            int n;
+            while ((n = cursor.nextBatch(16)) != 0) {
+                Assert.assertTrue(n <= 16);
+                int length = cursor.elementLength();
+                for (int i = 0; i < n; ++i) {
+                    int[] element = new int[length];
+                    System.arraycopy(cursor.batchBuffer(), cursor.batchOffset() + i * length, element, 0, length);
+                    actual.add(element);
+                }
+            }
+            TestUtil.assertElementsEqual(expected, actual);
+        }
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        List<int[]> expected = new IntCombinations(10, 3).toList();
+        try (PrefetchingCursor cursor = new PrefetchingCursor(new IntCombinations(10, 3), 8,
+                PrefetchingCursor.WaitStrategy.YIELD)) {
+            for (int i = 0; i < 5; ++i)
+                Assert.assertTrue(cursor.advance());
+            cursor.reset();
+            TestUtil.assertElementsEqual(expected, TestUtil.drain(cursor));
+            cursor.reset();
+            TestUtil.assertElementsEqual(expected, TestUtil.drain(cursor));
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        try (PrefetchingCursor cursor = new PrefetchingCursor(new IntNecklaces(new int[]{1, 1}, IntNecklaces.Kind.LYNDON_WORDS), 4,
+                PrefetchingCursor.WaitStrategy.PARK)) {
+            Assert.assertTrue(cursor.advance());
+            Assert.assertFalse(cursor.advance());
+        }
+        try (PrefetchingCursor cursor = new PrefetchingCursor(new IntLinearTuples(new int[]{2}, new int[]{1}, 5, 5), 4,
+                PrefetchingCursor.WaitStrategy.SPIN)) {
+            Assert.assertEquals(0, cursor.nextBatch(1));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testError() throws Exception {
+        CombinatorialIterator<int[]> source = new CombinatorialIterator<int[]>() {
+            int count = 0;
+
+            @Override
+            public void reset() {}
+
+            @Override
+            public int[] current() {
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public int[] next() {
+                if (++count > 10)
+                    throw new IllegalStateException("test");
+                return new int[]{count};
+            }
+        };
+        try (PrefetchingCursor cursor = new PrefetchingCursor(source, 4, PrefetchingCursor.WaitStrategy.PARK)) {
+            int n = 0;
+            try {
+                while (cursor.advance())
+                    ++n;
+            } finally {
+                Assert.assertEquals(10, n);
+            }
+        }
+    }
+
+    @Test
+    public void testRejectedExecution() throws Exception {
+        List<int[]> expected = new IntCombinations(6, 2).toList();
+        // rejects the first task and runs the next ones on a new thread
+        AtomicInteger attempts = new AtomicInteger();
+        IntCombinatorialPort source = new IntCartesianProduct.IteratorPort(new IntCombinations(6, 2));
+        try (PrefetchingCursor cursor = new PrefetchingCursor(source, 4, PrefetchingCursor.WaitStrategy.PARK, r -> {
+            if (attempts.getAndIncrement() == 0)
+                throw new RejectedExecutionException();
+            new Thread(r).start();
+        })) {
+            try {
+                cursor.nextBatch(1);
+                Assert.fail();
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+            cursor.reset();
+            TestUtil.assertElementsEqual(expected, TestUtil.drain(cursor));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBufferOverflow() throws Exception {
+        try (PrefetchingCursor cursor = new PrefetchingCursor(new IntTuples(2, 2, 2), Integer.MAX_VALUE / 2,
+                PrefetchingCursor.WaitStrategy.PARK)) {
+            cursor.nextBatch(1);
+        }
+    }
+}
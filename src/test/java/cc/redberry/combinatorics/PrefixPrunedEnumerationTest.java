@@ -0,0 +1,115 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class PrefixPrunedEnumerationTest {
+
+    private static final class Collector implements PrefixVisitor {
+        final List<int[]> elements = new ArrayList<>();
+        final Predicate<int[]> filter;
+        final int[] partialSums;
+        int nPrefixes = 0;
+
+        Collector(int length, Predicate<int[]> filter) {
+            this.partialSums = new int[length];
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean acceptPrefix(int[] prefix, int position) {
+            ++nPrefixes;
+            partialSums[position] = (position == 0 ? 0 : partialSums[position - 1]) + prefix[position];
+            // incremental sums should be consistent with the prefix
+            Assert.assertEquals(Arrays.stream(prefix, 0, position + 1).sum(), partialSums[position]);
+            return filter.test(Arrays.copyOf(prefix, position + 1));
+        }
+
+        @Override
+        public boolean visit(int[] element) {
+            elements.add(element.clone());
+            return true;
+        }
+    }
+
+    private static void assertSameAsFiltered(Iterable<int[]> all, List<int[]> actual, Predicate<int[]> prefixFilter) {
+        List<int[]> expected = new ArrayList<>();
+        OUT:
+        for (int[] e : all) {
+            for (int i = 1; i <= e.length; ++i)
+                if (!prefixFilter.test(Arrays.copyOf(e, i)))
+                    continue OUT;
+            expected.add(e.clone());
+        }
+        TestUtil.assertElementsEqual(expected, actual);
+    }
+
+    @Test
+    public void testAll() {
+        Predicate<int[]> all = p -> true;
+        Collector c = new Collector(5, all);
+        Assert.assertEquals(120, PrefixPrunedEnumeration.permutations(5, c));
+        assertSameAsFiltered(new IntPermutations(5), c.elements, all);
+
+        c = new Collector(3, all);
+        Assert.assertEquals(56, PrefixPrunedEnumeration.combinations(8, 3, c));
+        assertSameAsFiltered(new IntCombinations(8, 3), c.elements, all);
+
+        c = new Collector(3, all);
+        Assert.assertEquals(24, PrefixPrunedEnumeration.tuples(c, 2, 3, 4));
+        assertSameAsFiltered(Combinatorics.tuples(2, 3, 4), c.elements, all);
+
+        c = new Collector(4, all);
+        Assert.assertEquals(56, PrefixPrunedEnumeration.compositions(5, 4, c));
+        assertSameAsFiltered(Combinatorics.compositions(5, 4), c.elements, all);
+    }
+
+    @Test
+    public void testPruning() {
+        Predicate<int[]> sumBound = p -> Arrays.stream(p).sum() <= 6;
+        Collector c = new Collector(4, sumBound);
+        PrefixPrunedEnumeration.tuples(c, 10, 10, 10, 10);
+        assertSameAsFiltered(Combinatorics.tuples(10, 10, 10, 10), c.elements, sumBound);
+        Assert.assertTrue(c.nPrefixes < 1500);
+
+        Predicate<int[]> firstSmall = p -> p[0] < 2 && (p.length < 2 || p[1] != 3);
+        c = new Collector(6, firstSmall);
+        PrefixPrunedEnumeration.permutations(6, c);
+        assertSameAsFiltered(new IntPermutations(6), c.elements, firstSmall);
+
+        c = new Collector(4, sumBound);
+        PrefixPrunedEnumeration.combinations(10, 4, c);
+        assertSameAsFiltered(new IntCombinations(10, 4), c.elements, sumBound);
+
+        Predicate<int[]> noTwos = p -> p[p.length - 1] != 2;
+        c = new Collector(3, noTwos);
+        PrefixPrunedEnumeration.compositions(6, 3, c);
+        assertSameAsFiltered(Combinatorics.compositions(6, 3), c.elements, noTwos);
+    }
+
+    @Test
+    public void testStop() {
+        long visited = PrefixPrunedEnumeration.permutations(4, new PrefixVisitor() {
+            int count = 0;
+
+            @Override
+            public boolean acceptPrefix(int[] prefix, int position) {
+                return true;
+            }
+
+            @Override
+            public boolean visit(int[] element) {
+                return ++count < 3;
+            }
+        });
+        Assert.assertEquals(3, visited);
+    }
+}
@@ -0,0 +1,86 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static cc.redberry.combinatorics.Combinatorics.arrayComparator;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class RandomCombinatoricsTest {
+
+    @Test
+    public void testCombinationsValid() {
+        SplittableRandom rnd = new SplittableRandom(1);
+        for (int[] nk : new int[][]{{10, 0}, {10, 10}, {10, 3}, {1000, 5}, {1000, 100}, {1_000_000_000, 200}}) {
+            for (int t = 0; t < 100; ++t) {
+                int[] c = RandomCombinatorics.combination(rnd, nk[0], nk[1]);
+                Assert.assertEquals(nk[1], c.length);
+                for (int i = 0; i < c.length; ++i) {
+                    Assert.assertTrue(c[i] >= 0 && c[i] < nk[0]);
+                    if (i > 0)
+                        Assert.assertTrue(c[i - 1] < c[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUniformity() {
+        SplittableRandom rnd = new SplittableRandom(2);
+        assertUniform(Combinatorics.combinations(6, 2).toList(), () -> RandomCombinatorics.combination(rnd, 6, 2));
+        assertUniform(Combinatorics.combinations(40, 2).toList(), () -> RandomCombinatorics.combination(rnd, 40, 2));
+        assertUniform(Combinatorics.permutations(4).stream().map(int[]::clone).collect(Collectors.toList()),
+                () -> RandomCombinatorics.permutation(rnd, 4));
+        assertUniform(Combinatorics.combinationsWithPermutations(5, 2).toList(),
+                () -> RandomCombinatorics.combinationWithPermutations(rnd, 5, 2));
+        assertUniform(Combinatorics.compositions(4, 3).toList(), () -> RandomCombinatorics.composition(rnd, 4, 3));
+        assertUniform(Combinatorics.tuples(2, 3, 4).toList(), () -> RandomCombinatorics.tuple(rnd, 2, 3, 4));
+    }
+
+    private static void assertUniform(List<int[]> all, Supplier<int[]> sampler) {
+        Map<int[], Integer> counts = new TreeMap<>(arrayComparator);
+        for (int[] a : all)
+            counts.put(a, 0);
+        int nSamples = all.size() * 2000;
+        for (int i = 0; i < nSamples; ++i) {
+            int[] s = sampler.get();
+            Integer c = counts.get(s);
+            Assert.assertNotNull(Arrays.toString(s), c);
+            counts.put(s, c + 1);
+        }
+        for (Integer c : counts.values())
+            Assert.assertTrue(c > 1700 && c < 2300);
+    }
+
+    @Test
+    public void testCompositions() {
+        SplittableRandom rnd = new SplittableRandom(3);
+        for (int t = 0; t < 1000; ++t) {
+            int[] c = RandomCombinatorics.composition(rnd, 17, 5);
+            Assert.assertEquals(17, Arrays.stream(c).sum());
+            Assert.assertTrue(Arrays.stream(c).allMatch(i -> i >= 0));
+        }
+        Assert.assertArrayEquals(new int[]{5}, RandomCombinatorics.composition(rnd, 5, 1));
+    }
+
+    @Test
+    public void testParallelStreamDeterministic() {
+        List<int[]> seq = RandomCombinatorics.combinations(new SplittableRandom(42), 10_000, 100, 7)
+                .collect(Collectors.toList());
+        List<int[]> par = RandomCombinatorics.combinations(new SplittableRandom(42), 10_000, 100, 7)
+                .parallel().collect(Collectors.toList());
+        Assert.assertEquals(seq.size(), par.size());
+        for (int i = 0; i < seq.size(); ++i)
+            Assert.assertArrayEquals(seq.get(i), par.get(i));
+    }
+}
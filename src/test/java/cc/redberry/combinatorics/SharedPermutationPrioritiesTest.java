@@ -0,0 +1,111 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class SharedPermutationPrioritiesTest {
+    @Test
+    public void testCursorCoversAll() throws Exception {
+        SharedPermutationPriorities priorities = new SharedPermutationPriorities(5);
+        priorities.nice(new int[]{4, 3, 2, 1, 0});
+        priorities.nice(new int[]{1, 0, 2, 3, 4});
+        priorities.nice(new int[]{1, 0, 2, 3, 4});
+        SharedPermutationPriorities.SnapshotCursor cursor = priorities.cursor();
+        Assert.assertArrayEquals(new int[]{1, 0, 2, 3, 4}, cursor.take());
+        Assert.assertArrayEquals(new int[]{4, 3, 2, 1, 0}, cursor.take());
+        Set<String> seen = new HashSet<>();
+        seen.add(Arrays.toString(new int[]{1, 0, 2, 3, 4}));
+        seen.add(Arrays.toString(new int[]{4, 3, 2, 1, 0}));
+        int[] p;
+        while ((p = cursor.take()) != null)
+            Assert.assertTrue(seen.add(Arrays.toString(p)));
+        Assert.assertEquals(120, seen.size());
+    }
+
+    @Test
+    public void testCursorNice() throws Exception {
+        SharedPermutationPriorities priorities = new SharedPermutationPriorities(4);
+        SharedPermutationPriorities.SnapshotCursor cursor = priorities.cursor();
+        int[] p;
+        while ((p = cursor.take()) != null)
+            if (p[0] == 3)
+                cursor.nice();
+        Assert.assertEquals(6, priorities.size());
+        cursor.reset();
+        for (int i = 0; i < 6; ++i)
+            Assert.assertEquals(3, cursor.take()[0]);
+        Assert.assertEquals(0, cursor.take()[0]);
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        final SharedPermutationPriorities priorities = new SharedPermutationPriorities(5, 100);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t] = new Thread(() -> {
+                SharedPermutationPriorities.SnapshotCursor cursor = priorities.cursor();
+                for (int round = 0; round < 10; ++round) {
+                    int[] p;
+                    while ((p = cursor.take()) != null)
+                        if (p[4] == 0)
+                            cursor.nice();
+                    cursor.reset();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        Assert.assertEquals(24, priorities.size());
+        for (int[] p : new IntPermutations(5))
+            Assert.assertEquals(p[4] == 0 ? 40 : 0, priorities.priority(p));
+    }
+
+    @Test
+    public void testExportLoad() throws Exception {
+        SharedPermutationPriorities priorities = new SharedPermutationPriorities(4);
+        for (int[] p : new IntPermutations(4))
+            for (int i = 0; i < p[0] * 4 + p[1]; ++i)
+                priorities.nice(p);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        priorities.export(new DataOutputStream(bytes));
+
+        SharedPermutationPriorities loaded = new SharedPermutationPriorities(4);
+        loaded.load(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        Assert.assertEquals(priorities.size(), loaded.size());
+        for (int[] p : new IntPermutations(4))
+            Assert.assertEquals(priorities.priority(p), loaded.priority(p));
+
+        SharedPermutationPriorities.SnapshotCursor a = priorities.cursor(), b = loaded.cursor();
+        int[] p;
+        while ((p = a.take()) != null)
+            Assert.assertArrayEquals(p, b.take());
+        Assert.assertNull(b.take());
+    }
+
+    @Test(expected = NotSerializableException.class)
+    public void testCursorNotSerializable() throws Exception {
+        new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(new SharedPermutationPriorities(3).cursor());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongDimension() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new SharedPermutationPriorities(4).export(new DataOutputStream(bytes));
+        new SharedPermutationPriorities(5).load(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
@@ -0,0 +1,47 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Common assertions and helpers for tests of combinatorial iterators.
+ *
+ * @author Stanislav Poslavsky
+ */
+final class TestUtil {
+    private TestUtil() {}
+
+    /**
+     * Asserts that both lists contain equal arrays in the same order
+     */
+    static void assertElementsEqual(List<int[]> expected, List<int[]> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i)
+            Assert.assertArrayEquals(expected.get(i), actual.get(i));
+    }
+
+    /**
+     * Asserts that both iterators produce equal arrays in the same order (elements are compared as soon as they are
+     * produced, so iterators may return the same reference on each invocation)
+     */
+    static void assertElementsEqual(CombinatorialIterator<int[]> expected, CombinatorialIterator<int[]> actual) {
+        while (expected.hasNext()) {
+            Assert.assertTrue(actual.hasNext());
+            Assert.assertArrayEquals(expected.next(), actual.next());
+        }
+        Assert.assertFalse(actual.hasNext());
+    }
+
+    /**
+     * Returns copies of all remaining elements of the cursor and asserts that the cursor stays at the end
+     */
+    static List<int[]> drain(Cursor cursor) {
+        List<int[]> r = new ArrayList<>();
+        while (cursor.advance())
+            r.add(cursor.current().clone());
+        Assert.assertFalse(cursor.advance());
+        return r;
+    }
+}
@@ -0,0 +1,42 @@
+package cc.redberry.combinatorics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Stanislav Poslavsky
+ */
+public class UnrolledCombinationsTest {
+    @Test
+    public void testCombinations() throws Exception {
+        for (int n = 0; n < 10; ++n)
+            for (int k = 0; k <= n; ++k) {
+                List<int[]> actual = new ArrayList<>();
+                Combinatorics.forEachCombination(n, k, c -> actual.add(c.clone()));
+                TestUtil.assertElementsEqual(new IntCombinations(n, k).toList(), actual);
+            }
+    }
+
+    @Test
+    public void testCombinationsWithPermutations() throws Exception {
+        for (int n = 0; n < 8; ++n)
+            for (int k = 0; k <= n; ++k) {
+                List<int[]> actual = new ArrayList<>();
+                Combinatorics.forEachCombinationWithPermutations(n, k, c -> actual.add(c.clone()));
+                TestUtil.assertElementsEqual(new IntCombinationsWithPermutations(n, k).toList(), actual);
+            }
+    }
+
+    @Test
+    public void testSum() throws Exception {
+        long[] sum = {0};
+        Combinatorics.forEachCombination(60, 3, c -> sum[0] += c[0] + c[1] + c[2]);
+        long expected = 0;
+        for (int[] c : new IntCombinations(60, 3))
+            expected += c[0] + c[1] + c[2];
+        Assert.assertEquals(expected, sum[0]);
+    }
+}